@@ -0,0 +1,157 @@
+package com.example.triage.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Token bucket whose refill rate follows the remaining budget reported by the server.
+// Runs at maxRate while there is headroom and only slows down near the limit, after
+// an explicit Retry-After, or when the caller reports throttling.
+public class AdaptiveRateLimiter {
+    
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_THROTTLE_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    
+    private final String name;
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final double reserveFraction;
+    
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long blockedUntilNanos;
+    private int consecutiveThrottles;
+    
+    // Last budget reported by the server, for statistics
+    private long remaining = -1;
+    private long limit = -1;
+    private long resetEpochSeconds = -1;
+    
+    private long acquired;
+    private long delayed;
+    private long totalWaitNanos;
+    private long throttles;
+    
+    public AdaptiveRateLimiter(String name, double maxRate, double reserveFraction) {
+        this.name = name;
+        this.maxRate = maxRate;
+        this.minRate = Math.min(maxRate, 0.05);
+        this.burst = Math.max(1, maxRate);
+        this.reserveFraction = reserveFraction;
+        this.rate = maxRate;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.blockedUntilNanos = lastRefillNanos;
+    }
+    
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    // Takes a permit and returns how long the caller must wait before using it
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        refill(now);
+        
+        long waitNanos = Math.max(0, blockedUntilNanos - now);
+        tokens -= 1;
+        if (tokens < 0) {
+            waitNanos = Math.max(waitNanos, (long) (-tokens / rate * NANOS_PER_SECOND));
+        }
+        
+        acquired++;
+        if (waitNanos > 0) {
+            delayed++;
+            totalWaitNanos += waitNanos;
+        }
+        return waitNanos;
+    }
+    
+    // Feeds the X-RateLimit-* values of a response into the refill rate
+    public synchronized void updateBudget(long remaining, long limit, long resetEpochSeconds) {
+        long now = System.nanoTime();
+        refill(now);
+        
+        this.remaining = remaining;
+        this.limit = limit;
+        this.resetEpochSeconds = resetEpochSeconds;
+        
+        long secondsToReset = Math.max(1, resetEpochSeconds - System.currentTimeMillis() / 1000);
+        if (remaining <= 0) {
+            // Budget exhausted: hold everything until the window resets
+            blockUntil(now + (secondsToReset + 1) * NANOS_PER_SECOND);
+            rate = maxRate;
+            return;
+        }
+        
+        if (limit > 0 && remaining > limit * reserveFraction) {
+            rate = maxRate;
+        } else {
+            // Near the limit: spread what is left evenly over the rest of the window
+            rate = Math.max(minRate, Math.min(maxRate, (double) remaining / secondsToReset));
+            tokens = Math.min(tokens, 1);
+        }
+    }
+    
+    public synchronized void pauseFor(long seconds) {
+        blockUntil(System.nanoTime() + Math.max(1, seconds) * NANOS_PER_SECOND);
+    }
+    
+    // Multiplicative decrease with a growing pause, for servers that only signal by failing
+    public synchronized void onThrottle() {
+        long now = System.nanoTime();
+        refill(now);
+        throttles++;
+        consecutiveThrottles++;
+        rate = Math.max(minRate, rate / 2);
+        tokens = Math.min(tokens, 0);
+        long pause = Math.min(MAX_THROTTLE_PAUSE_NANOS, NANOS_PER_SECOND << Math.min(consecutiveThrottles - 1, 5));
+        blockUntil(now + pause);
+    }
+    
+    // Additive increase back towards full speed
+    public synchronized void onSuccess() {
+        consecutiveThrottles = 0;
+        if (rate < maxRate) {
+            refill(System.nanoTime());
+            rate = Math.min(maxRate, rate + maxRate / 10);
+        }
+    }
+    
+    public synchronized long getThrottleCount() {
+        return throttles;
+    }
+    
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("ratePerSecond", rate);
+        stats.put("maxRatePerSecond", maxRate);
+        stats.put("remaining", remaining);
+        stats.put("limit", limit);
+        stats.put("resetEpochSeconds", resetEpochSeconds);
+        stats.put("acquired", acquired);
+        stats.put("delayed", delayed);
+        stats.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(totalWaitNanos));
+        stats.put("throttles", throttles);
+        stats.put("blockedForMs", Math.max(0, TimeUnit.NANOSECONDS.toMillis(blockedUntilNanos - System.nanoTime())));
+        return stats;
+    }
+    
+    private void refill(long now) {
+        double elapsedSeconds = (double) (now - lastRefillNanos) / NANOS_PER_SECOND;
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+    
+    private void blockUntil(long nanos) {
+        if (nanos - blockedUntilNanos > 0) {
+            blockedUntilNanos = nanos;
+        }
+    }
+}
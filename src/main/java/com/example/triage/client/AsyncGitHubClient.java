@@ -0,0 +1,286 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+// Non-blocking counterpart of GitHubClient on the JDK HttpClient (HTTP/2, pooled keep-alive
+// connections). Shares the response cache and rate limiter with GitHubClient; rate limit
+// waits are scheduled instead of slept, so no thread is held while a request is pending.
+@Component
+public class AsyncGitHubClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncGitHubClient.class);
+    private static final int PER_PAGE = 100;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    
+    private final TriageConfiguration config;
+    private final GitHubResponseCache responseCache;
+    private final GitHubRateLimiter rateLimiter;
+    private final GitHubJsonDecoder jsonDecoder;
+    private final HttpClient httpClient;
+    
+    // Caps concurrent requests; excess requests wait in the queue without holding a thread
+    private final Semaphore inFlight;
+    private final Queue<Runnable> queued = new ConcurrentLinkedQueue<>();
+    
+    public AsyncGitHubClient(TriageConfiguration config, GitHubResponseCache responseCache,
+                             GitHubRateLimiter rateLimiter) {
+        this.config = config;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.jsonDecoder = new GitHubJsonDecoder(new JsonFactory());
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        this.inFlight = new Semaphore(Math.max(1, config.getGithub().getAsyncMaxInFlight()));
+    }
+    
+    public CompletableFuture<GitHubIssue> fetchIssueById(int issueNumber) {
+        String url = repoUrl("/issues/" + issueNumber);
+        return get(url, jsonDecoder::readIssue).thenApply(ResponseEntity::getBody);
+    }
+    
+    public CompletableFuture<List<GitHubIssue>> fetchPendingTriageIssues(int limit) {
+        return fetchPaged(repoUrl("/issues?labels=pending-triage&state=open&sort=created&direction=desc"), limit);
+    }
+    
+    // Same result as GitHubClient.fetchOrgMemberComments; failures complete with ""
+    public CompletableFuture<String> fetchOrgMemberComments(long issueNumber, int maxComments) {
+        String url = repoUrl(String.format("/issues/%d/comments?per_page=%d", issueNumber, Math.min(maxComments, 100)));
+        return get(url, in -> {
+                StringBuilder orgComments = new StringBuilder();
+                jsonDecoder.readComments(in, GitHubClient.ORG_MEMBER_ASSOCIATIONS,
+                    (login, body) -> GitHubClient.appendOrgComment(orgComments, login, body));
+                return orgComments.toString();
+            })
+            .thenApply(response -> Objects.requireNonNullElse(response.getBody(), ""))
+            .exceptionally(e -> {
+                logger.warn("Failed to fetch comments for issue #{}: {}", issueNumber, unwrap(e).getMessage());
+                return "";
+            });
+    }
+    
+    // Fetches the comments of all issues concurrently and stores them on the issues
+    public CompletableFuture<List<GitHubIssue>> attachOrgMemberComments(List<GitHubIssue> issues, int maxComments) {
+        CompletableFuture<?>[] futures = issues.stream()
+            .map(issue -> fetchOrgMemberComments(issue.getNumber(), maxComments)
+                .thenAccept(issue::setOrgMemberComments))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).thenApply(ignored -> issues);
+    }
+    
+    // Fetches page 1, then every further page needed for the limit at once
+    private CompletableFuture<List<GitHubIssue>> fetchPaged(String url, int limit) {
+        if (limit <= 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        
+        return get(pageUrl(url, 1), this::readPage).thenCompose(first -> {
+            List<GitHubIssue> firstPage = first.getBody() != null ? first.getBody() : List.of();
+            long pagesNeeded = ((long) limit + PER_PAGE - 1) / PER_PAGE;
+            int lastPage = (int) Math.min(parseLastPage(first.getHeaders()), pagesNeeded);
+            if (firstPage.size() < PER_PAGE || lastPage <= 1) {
+                return CompletableFuture.completedFuture(truncate(firstPage, limit));
+            }
+            
+            List<CompletableFuture<ResponseEntity<List<GitHubIssue>>>> pages = new ArrayList<>();
+            for (int page = 2; page <= lastPage; page++) {
+                pages.add(get(pageUrl(url, page), this::readPage));
+            }
+            
+            return CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+                // Merge in page order so the API sort order is preserved
+                List<GitHubIssue> allIssues = new ArrayList<>(firstPage);
+                for (CompletableFuture<ResponseEntity<List<GitHubIssue>>> page : pages) {
+                    List<GitHubIssue> body = page.join().getBody();
+                    if (body != null) {
+                        allIssues.addAll(body);
+                    }
+                }
+                return truncate(allIssues, limit);
+            });
+        });
+    }
+    
+    private <T> CompletableFuture<ResponseEntity<T>> get(String url, BodyDecoder<T> decoder) {
+        CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<>();
+        queued.add(() -> {
+            CompletableFuture<ResponseEntity<T>> sent;
+            try {
+                sent = send(url, decoder, 1);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            sent.whenComplete((response, error) -> {
+                inFlight.release();
+                drain();
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else {
+                    result.complete(response);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+    
+    private void drain() {
+        while (!queued.isEmpty() && inFlight.tryAcquire()) {
+            Runnable next = queued.poll();
+            if (next == null) {
+                inFlight.release();
+                return;
+            }
+            next.run();
+        }
+    }
+    
+    private <T> CompletableFuture<ResponseEntity<T>> send(String url, BodyDecoder<T> decoder, int attempt) {
+        URI uri = URI.create(url);
+        GitHubResponseCache.Entry cached = responseCache.lookup(url);
+        
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+            .timeout(REQUEST_TIMEOUT)
+            .header("Authorization", "Bearer " + config.getGithub().getToken())
+            .header("Accept", "application/vnd.github+json")
+            .header("X-GitHub-Api-Version", "2022-11-28")
+            .GET();
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                request.header(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                request.header(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+        }
+        
+        return CompletableFuture.runAsync(() -> { }, delayed(rateLimiter.reserve(uri), TimeUnit.NANOSECONDS))
+            .thenCompose(ignored -> httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()))
+            .thenApply(response -> toResponseEntity(url, response, cached, decoder))
+            .exceptionallyCompose(error -> {
+                Throwable cause = unwrap(error);
+                if (cause instanceof IOException && attempt < MAX_ATTEMPTS) {
+                    logger.warn("Network error, will retry {}: {}", url, cause.getMessage());
+                    return CompletableFuture.runAsync(() -> { }, delayed(1000L << (attempt - 1), TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> send(url, decoder, attempt + 1));
+                }
+                return CompletableFuture.failedFuture(cause);
+            });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> toResponseEntity(String url, HttpResponse<byte[]> response,
+                                                   GitHubResponseCache.Entry cached, BodyDecoder<T> decoder) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        int status = response.statusCode();
+        rateLimiter.afterResponse(response.uri(), status, headers);
+        
+        if (status == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+            responseCache.recordNotModified();
+            return new ResponseEntity<>((T) cached.getBody(), cached.getHeaders(), HttpStatus.OK);
+        }
+        if (status >= 400) {
+            throw toException(url, status, headers);
+        }
+        
+        try {
+            T body = decoder.decode(new ByteArrayInputStream(response.body()));
+            responseCache.store(url, headers, body);
+            return new ResponseEntity<>(body, headers, HttpStatusCode.valueOf(status));
+        } catch (IOException e) {
+            throw new GitHubApiException("Failed to decode GitHub response from " + url, e, 1);
+        }
+    }
+    
+    // Same exit codes as the blocking client
+    private GitHubApiException toException(String url, int status, HttpHeaders headers) {
+        if (status == HttpStatus.NOT_FOUND.value()) {
+            return new GitHubApiException("Not found: " + url, 4);
+        }
+        if (status == HttpStatus.UNAUTHORIZED.value() || status == HttpStatus.FORBIDDEN.value()) {
+            logger.error("GitHub authentication failed ({}). Please check your GITHUB_TOKEN.", status);
+            return new GitHubApiException("Authentication failed with GitHub API", 3);
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            String resetTime = headers.getFirst("X-RateLimit-Reset");
+            return new GitHubApiException("GitHub API rate limit exceeded. Reset time: " + resetTime, 2);
+        }
+        return new GitHubApiException("GitHub API request failed with status " + status + ": " + url, 1);
+    }
+    
+    private List<GitHubIssue> readPage(InputStream in) throws IOException {
+        List<GitHubIssue> page = new ArrayList<>();
+        jsonDecoder.readIssues(in, page::add);
+        return page;
+    }
+    
+    private List<GitHubIssue> truncate(List<GitHubIssue> issues, int limit) {
+        return issues.size() > limit ? new ArrayList<>(issues.subList(0, limit)) : issues;
+    }
+    
+    private Executor delayed(long delay, TimeUnit unit) {
+        return delay > 0 ? CompletableFuture.delayedExecutor(delay, unit) : Runnable::run;
+    }
+    
+    private String repoUrl(String path) {
+        return String.format("%s/repos/%s/%s%s", config.getGithub().getApiBaseUrl(),
+            config.getGithub().getOwner(), config.getGithub().getRepo(), path);
+    }
+    
+    private String pageUrl(String url, int page) {
+        return url + "&per_page=" + PER_PAGE + "&page=" + page;
+    }
+    
+    private int parseLastPage(HttpHeaders headers) {
+        String link = headers.getFirst(HttpHeaders.LINK);
+        if (link != null) {
+            Matcher matcher = GitHubClient.LAST_PAGE_PATTERN.matcher(link);
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+        return 1; // GitHub always sends Link when there are more pages
+    }
+    
+    private Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(InputStream in) throws IOException;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.bedrockruntime.model.ThrottlingException;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Component
+public class BedrockRateLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BedrockRateLimiter.class);
+    
+    private final AdaptiveRateLimiter limiter;
+    
+    public BedrockRateLimiter(TriageConfiguration config) {
+        // Bedrock reports no budget headers, so only throttling errors drive the rate
+        this.limiter = new AdaptiveRateLimiter(
+            "bedrock", config.getRateLimit().getBedrockMaxRequestsPerSecond(), 0);
+    }
+    
+    public <T> T call(Supplier<T> request) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Bedrock rate limit", e);
+        }
+        
+        try {
+            T result = request.get();
+            limiter.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (isThrottling(e)) {
+                logger.warn("Bedrock throttled the request, slowing down: {}", e.getMessage());
+                limiter.onThrottle();
+            }
+            throw e;
+        }
+    }
+    
+    public long getThrottleCount() {
+        return limiter.getThrottleCount();
+    }
+    
+    public Map<String, Object> getStatistics() {
+        return limiter.getStatistics();
+    }
+    
+    public static boolean isThrottling(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ThrottlingException) {
+                return true;
+            }
+            String message = t.getMessage();
+            if (message != null && (message.contains("ThrottlingException") ||
+                message.contains("Too many requests") || message.contains("Rate exceeded"))) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
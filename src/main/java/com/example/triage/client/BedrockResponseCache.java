@@ -0,0 +1,516 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Model responses stored on disk under the hash of model, temperature and prompt. An identical
+// prompt is answered from disk without a Bedrock call. Lookups go through a memory-mapped
+// open-addressing table, so a hit costs one probe and one small file read.
+@Component
+public class BedrockResponseCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BedrockResponseCache.class);
+    
+    private static final int MAGIC = 0x4c4c4d43; // "LLMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    
+    // Slot: key (16 bytes), created at, last access, response size, state
+    private static final int SLOT_BYTES = 40;
+    private static final int KEY_HI = 0;
+    private static final int KEY_LO = 8;
+    private static final int CREATED_AT = 16;
+    private static final int LAST_ACCESS = 24;
+    private static final int SIZE = 32;
+    private static final int STATE = 36;
+    
+    private static final int EMPTY = 0;
+    private static final int LIVE = 1;
+    private static final int DELETED = 2;
+    
+    private final TriageConfiguration.LlmCache settings;
+    private final String model;
+    private final double temperature;
+    private final long ttlMillis;
+    
+    private volatile boolean enabled;
+    private Path entriesDir;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    
+    // Guarded by this
+    private int liveEntries;
+    private int deletedSlots;
+    private long liveBytes;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong totalHitNanos = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong storeFailures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    public BedrockResponseCache(TriageConfiguration config) {
+        this.settings = config.getLlmCache();
+        this.model = config.getAi().getModel();
+        this.temperature = config.getAi().getTemperature();
+        this.ttlMillis = TimeUnit.HOURS.toMillis(settings.getTtlHours());
+        this.enabled = settings.isEnabled() && settings.getMaxEntries() > 0;
+        
+        if (enabled) {
+            try {
+                open(Paths.get(settings.getPath()));
+                logger.info("Model response cache at {}: {} entries, {} bytes",
+                    settings.getPath(), liveEntries, liveBytes);
+            } catch (IOException e) {
+                logger.warn("Model response cache disabled, cannot open {}: {}", settings.getPath(), e.getMessage());
+                enabled = false;
+            }
+        }
+    }
+    
+    // Only responses the caller can use are stored, so a malformed one is asked for again next
+    // time instead of being served for the whole TTL. A cached response the caller no longer
+    // accepts, e.g. after its parser changed, is dropped and counts as a miss.
+    public String getOrCompute(String prompt, Supplier<String> call, Predicate<String> usable) {
+        if (!enabled) {
+            return call.get();
+        }
+        
+        long startedAt = System.nanoTime();
+        Key key = keyFor(prompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            if (usable.test(cached)) {
+                hits.incrementAndGet();
+                totalHitNanos.addAndGet(System.nanoTime() - startedAt);
+                return cached;
+            }
+            rejected.incrementAndGet();
+            discard(key);
+        }
+        
+        misses.incrementAndGet();
+        String response = call.get();
+        if (response != null && usable.test(response)) {
+            store(key, response);
+        } else if (response != null) {
+            rejected.incrementAndGet();
+        }
+        return response;
+    }
+    
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("entries", liveEntries);
+            stats.put("bytes", liveBytes);
+        }
+        stats.put("maxEntries", settings.getMaxEntries());
+        stats.put("maxBytes", settings.getMaxBytes());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("avgHitMicros", hitCount == 0 ? 0.0 :
+            (double) TimeUnit.NANOSECONDS.toMicros(totalHitNanos.get()) / hitCount);
+        stats.put("expirations", expirations.get());
+        stats.put("evictions", evictions.get());
+        stats.put("storeFailures", storeFailures.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+    
+    // Expired entries that are never asked for again would otherwise stay until the cache fills up
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        List<Key> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (int slot = 0; slot < capacity; slot++) {
+                if (state(slot) == LIVE && isExpired(slot, now)) {
+                    expired.add(keyAt(slot));
+                    remove(slot);
+                }
+            }
+        }
+        expirations.addAndGet(expired.size());
+        expired.forEach(this::deleteEntryFile);
+    }
+    
+    @PreDestroy
+    public synchronized void close() {
+        if (index == null) {
+            return;
+        }
+        enabled = false;
+        try {
+            index.force();
+            indexChannel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close model response cache index: {}", e.getMessage());
+        }
+    }
+    
+    private String lookup(Key key) {
+        synchronized (this) {
+            int slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (isExpired(slot, now)) {
+                remove(slot);
+                expirations.incrementAndGet();
+                deleteEntryFile(key);
+                return null;
+            }
+            index.putLong(slotOffset(slot) + LAST_ACCESS, now);
+        }
+        
+        try {
+            return Files.readString(entryPath(key), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // Evicted by another thread, or removed from disk behind our back
+            if (!(e instanceof NoSuchFileException)) {
+                logger.warn("Could not read cached model response {}: {}", key, e.getMessage());
+            }
+            synchronized (this) {
+                int slot = find(key);
+                if (slot >= 0) {
+                    remove(slot);
+                }
+            }
+            return null;
+        }
+    }
+    
+    private void discard(Key key) {
+        synchronized (this) {
+            int slot = find(key);
+            if (slot >= 0) {
+                remove(slot);
+            }
+        }
+        deleteEntryFile(key);
+    }
+    
+    private void store(Key key, String response) {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        Path path = entryPath(key);
+        try {
+            // Write then rename, so a reader never sees a partial response
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), key.toString(), ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            storeFailures.incrementAndGet();
+            logger.warn("Could not cache model response: {}", e.getMessage());
+            return;
+        }
+        
+        List<Key> evicted;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            put(key, now, now, bytes.length);
+            evicted = evictIfNeeded(now);
+        }
+        evicted.forEach(this::deleteEntryFile);
+    }
+    
+    private void open(Path dir) throws IOException {
+        entriesDir = dir.resolve("entries");
+        Files.createDirectories(entriesDir);
+        
+        // At most half full, so probe sequences stay short
+        capacity = 16;
+        while (capacity < settings.getMaxEntries() * 2) {
+            capacity <<= 1;
+        }
+        long indexBytes = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+        
+        indexChannel = FileChannel.open(dir.resolve("index.bin"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean sizeMatches = indexChannel.size() == indexBytes;
+        if (indexChannel.size() > indexBytes) {
+            indexChannel.truncate(indexBytes);
+        }
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexBytes);
+        
+        if (sizeMatches && index.getInt(0) == MAGIC && index.getInt(4) == VERSION && index.getInt(8) == capacity) {
+            synchronized (this) {
+                for (int slot = 0; slot < capacity; slot++) {
+                    int state = state(slot);
+                    if (state == LIVE) {
+                        liveEntries++;
+                        liveBytes += index.getInt(slotOffset(slot) + SIZE);
+                    } else if (state == DELETED) {
+                        deletedSlots++;
+                    }
+                }
+            }
+        } else {
+            // New cache, a different max-entries, or a damaged index: index what is on disk
+            rebuildIndex();
+        }
+    }
+    
+    private synchronized void rebuildIndex() throws IOException {
+        for (int offset = 0; offset < HEADER_BYTES + capacity * SLOT_BYTES; offset += 8) {
+            index.putLong(offset, 0L);
+        }
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, capacity);
+        liveEntries = 0;
+        deletedSlots = 0;
+        liveBytes = 0;
+        
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(entriesDir, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            Key key = Key.parse(file.getFileName().toString());
+            if (key == null) {
+                Files.deleteIfExists(file); // Left over from an interrupted write
+                continue;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            put(key, modified, modified, (int) Files.size(file));
+            evictIfNeeded(System.currentTimeMillis()).forEach(this::deleteEntryFile);
+        }
+        logger.info("Rebuilt model response cache index from {} files", files.size());
+    }
+    
+    private int find(Key key) {
+        int mask = capacity - 1;
+        int slot = key.home(mask);
+        for (int probes = 0; probes < capacity; probes++) {
+            int state = state(slot);
+            if (state == EMPTY) {
+                return -1;
+            }
+            int offset = slotOffset(slot);
+            if (state == LIVE && index.getLong(offset + KEY_HI) == key.hi && index.getLong(offset + KEY_LO) == key.lo) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    
+    private void put(Key key, long createdAt, long lastAccess, int size) {
+        int slot = find(key);
+        if (slot >= 0) {
+            liveBytes += size - index.getInt(slotOffset(slot) + SIZE);
+            writeSlot(slot, key, createdAt, lastAccess, size);
+            return;
+        }
+        
+        // Deleted slots lengthen probes; rebuild the table once they crowd it
+        if (liveEntries + deletedSlots + 1 > capacity * 3 / 4) {
+            compactIndex();
+        }
+        int mask = capacity - 1;
+        slot = key.home(mask);
+        while (state(slot) == LIVE) {
+            slot = (slot + 1) & mask;
+        }
+        if (state(slot) == DELETED) {
+            deletedSlots--;
+        }
+        writeSlot(slot, key, createdAt, lastAccess, size);
+        liveEntries++;
+        liveBytes += size;
+    }
+    
+    private void remove(int slot) {
+        index.putInt(slotOffset(slot) + STATE, DELETED);
+        liveEntries--;
+        deletedSlots++;
+        liveBytes -= index.getInt(slotOffset(slot) + SIZE);
+    }
+    
+    private void compactIndex() {
+        List<long[]> live = new ArrayList<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            if (state(slot) == LIVE) {
+                int offset = slotOffset(slot);
+                live.add(new long[] {index.getLong(offset + KEY_HI), index.getLong(offset + KEY_LO),
+                    index.getLong(offset + CREATED_AT), index.getLong(offset + LAST_ACCESS), index.getInt(offset + SIZE)});
+            }
+        }
+        for (int offset = HEADER_BYTES; offset < HEADER_BYTES + capacity * SLOT_BYTES; offset += 8) {
+            index.putLong(offset, 0L);
+        }
+        liveEntries = 0;
+        deletedSlots = 0;
+        liveBytes = 0;
+        for (long[] entry : live) {
+            put(new Key(entry[0], entry[1]), entry[2], entry[3], (int) entry[4]);
+        }
+    }
+    
+    // Drops expired entries, then least recently used ones until the cache is 10% below its limits
+    private List<Key> evictIfNeeded(long now) {
+        List<Key> evicted = new ArrayList<>();
+        if (liveEntries <= settings.getMaxEntries() && liveBytes <= settings.getMaxBytes()) {
+            return evicted;
+        }
+        
+        List<Integer> candidates = new ArrayList<>();
+        for (int slot = 0; slot < capacity; slot++) {
+            if (state(slot) != LIVE) {
+                continue;
+            }
+            if (isExpired(slot, now)) {
+                evicted.add(keyAt(slot));
+                remove(slot);
+                expirations.incrementAndGet();
+            } else {
+                candidates.add(slot);
+            }
+        }
+        
+        candidates.sort(Comparator.comparingLong(slot -> index.getLong(slotOffset(slot) + LAST_ACCESS)));
+        long targetEntries = settings.getMaxEntries() * 9L / 10;
+        long targetBytes = settings.getMaxBytes() / 10 * 9;
+        for (int slot : candidates) {
+            if (liveEntries <= targetEntries && liveBytes <= targetBytes) {
+                break;
+            }
+            evicted.add(keyAt(slot));
+            remove(slot);
+            evictions.incrementAndGet();
+        }
+        return evicted;
+    }
+    
+    private void writeSlot(int slot, Key key, long createdAt, long lastAccess, int size) {
+        int offset = slotOffset(slot);
+        index.putLong(offset + KEY_HI, key.hi);
+        index.putLong(offset + KEY_LO, key.lo);
+        index.putLong(offset + CREATED_AT, createdAt);
+        index.putLong(offset + LAST_ACCESS, lastAccess);
+        index.putInt(offset + SIZE, size);
+        index.putInt(offset + STATE, LIVE);
+    }
+    
+    private boolean isExpired(int slot, long now) {
+        return now - index.getLong(slotOffset(slot) + CREATED_AT) > ttlMillis;
+    }
+    
+    private int state(int slot) {
+        return index.getInt(slotOffset(slot) + STATE);
+    }
+    
+    private Key keyAt(int slot) {
+        int offset = slotOffset(slot);
+        return new Key(index.getLong(offset + KEY_HI), index.getLong(offset + KEY_LO));
+    }
+    
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+    
+    // Sharded by the first byte so no directory holds more than a few hundred files
+    private Path entryPath(Key key) {
+        String name = key.toString();
+        return entriesDir.resolve(name.substring(0, 2)).resolve(name);
+    }
+    
+    private void deleteEntryFile(Key key) {
+        try {
+            Files.deleteIfExists(entryPath(key));
+        } catch (IOException e) {
+            logger.debug("Could not delete cached model response {}: {}", key, e.getMessage());
+        }
+    }
+    
+    private Key keyFor(String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Double.toString(temperature).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+            return new Key(hash.getLong(), hash.getLong());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    // First 128 bits of the SHA-256 hash
+    private static final class Key {
+        private final long hi;
+        private final long lo;
+        
+        Key(long hi, long lo) {
+            this.hi = hi;
+            this.lo = lo;
+        }
+        
+        int home(int mask) {
+            return (int) (hi ^ (hi >>> 32)) & mask;
+        }
+        
+        static Key parse(String name) {
+            if (name.length() != 32) {
+                return null;
+            }
+            try {
+                byte[] bytes = HexFormat.of().parseHex(name);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                return new Key(buffer.getLong(), buffer.getLong());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return HexFormat.of().toHexDigits(hi) + HexFormat.of().toHexDigits(lo);
+        }
+    }
+}
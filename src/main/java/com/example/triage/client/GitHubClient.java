@@ -2,9 +2,11 @@ package com.example.triage.client;
 
 import com.example.triage.config.TriageConfiguration;
 import com.example.triage.model.GitHubIssue;
+import com.example.triage.model.IssueSearchResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -18,37 +20,125 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Component
 public class GitHubClient {
     
     private static final Logger logger = LoggerFactory.getLogger(GitHubClient.class);
-    private static final String GITHUB_API_BASE = "https://api.github.com";
+    static final Set<String> ORG_MEMBER_ASSOCIATIONS = Set.of("OWNER", "MEMBER", "COLLABORATOR");
+    
+    // The search API returns at most 1000 results per query
+    private static final int SEARCH_WINDOW = 1000;
+    
+    // Only the fields GitHubIssue and KnowledgeBase.IssueSummary use, plus the first
+    // $comments comments of each issue, so one request replaces 1 + N REST calls per page
+    private static final String ISSUE_FIELDS_FRAGMENT = """
+        fragment IssueFields on Issue {
+          number title body url createdAt updatedAt state
+          author { login }
+          labels(first: 50) { nodes { name } }
+          comments(first: $comments) { nodes { authorAssociation body author { login } } }
+        }
+        """;
+    
+    private static final String ISSUES_WITH_COMMENTS_QUERY = """
+        query($owner: String!, $name: String!, $after: String, $labels: [String!],
+              $states: [IssueState!], $orderBy: IssueOrderField!, $comments: Int!) {
+          repository(owner: $owner, name: $name) {
+            issues(first: 100, after: $after, labels: $labels, states: $states,
+                   orderBy: {field: $orderBy, direction: DESC}) {
+              pageInfo { hasNextPage endCursor }
+              nodes { ...IssueFields }
+            }
+          }
+        }
+        """ + ISSUE_FIELDS_FRAGMENT;
+    
+    private static final String SEARCH_WITH_COMMENTS_QUERY = """
+        query($q: String!, $after: String, $comments: Int!) {
+          search(query: $q, type: ISSUE, first: 100, after: $after) {
+            issueCount
+            pageInfo { hasNextPage endCursor }
+            nodes { ...IssueFields }
+          }
+        }
+        """ + ISSUE_FIELDS_FRAGMENT;
+    
+    static final Pattern LAST_PAGE_PATTERN = Pattern.compile("<[^>]*[?&]page=(\\d+)[^>]*>;\\s*rel=\"last\"");
     
     private final TriageConfiguration config;
+    private final String apiBase;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final GitHubJsonDecoder jsonDecoder;
+    private final GitHubResponseCache responseCache;
+    private final GitHubRateLimiter rateLimiter;
+    private final AsyncGitHubClient asyncClient;
+    private final GitHubConnectionPool connectionPool;
+    private final ExecutorService pageExecutor;
     
-    public GitHubClient(TriageConfiguration config) {
+    public GitHubClient(TriageConfiguration config, GitHubResponseCache responseCache,
+                        GitHubRateLimiter rateLimiter, AsyncGitHubClient asyncClient,
+                        GitHubConnectionPool connectionPool) {
         this.config = config;
-        // Use HttpClient5 to support PATCH method
+        this.apiBase = config.getGithub().getApiBaseUrl();
+        this.asyncClient = asyncClient;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.connectionPool = connectionPool;
+        // Use HttpClient5 to support PATCH method, on the shared instrumented connection pool
         this.restTemplate = new RestTemplate();
         try {
-            org.apache.hc.client5.http.impl.classic.CloseableHttpClient httpClient = 
-                org.apache.hc.client5.http.impl.classic.HttpClients.createDefault();
             org.springframework.http.client.HttpComponentsClientHttpRequestFactory requestFactory = 
-                new org.springframework.http.client.HttpComponentsClientHttpRequestFactory(httpClient);
+                new org.springframework.http.client.HttpComponentsClientHttpRequestFactory(connectionPool.getHttpClient());
             this.restTemplate.setRequestFactory(requestFactory);
             logger.info("Configured RestTemplate with HttpClient5 for PATCH support");
         } catch (Exception e) {
             logger.warn("Could not configure HttpClient5, PATCH requests may not work: {}", e.getMessage());
         }
+        // Paces every request by the live X-RateLimit-* / Retry-After headers
+        this.restTemplate.getInterceptors().add(rateLimiter);
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.jsonDecoder = new GitHubJsonDecoder(objectMapper.getFactory());
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pageExecutor = Executors.newFixedThreadPool(
+            Math.max(1, config.getGithub().getPageParallelism()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "github-page-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pageExecutor.shutdownNow();
     }
     
     @Retryable(
@@ -67,11 +157,10 @@ public class GitHubClient {
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
             String url = String.format("%s/repos/%s/%s/issues/%d",
-                    GITHUB_API_BASE, owner, repo, issueNumber);
+                    apiBase, owner, repo, issueNumber);
             
-            ResponseEntity<GitHubIssue> response = restTemplate.exchange(
+            ResponseEntity<GitHubIssue> response = getWithCache(
                     url,
-                    HttpMethod.GET,
                     entity,
                     GitHubIssue.class
             );
@@ -121,6 +210,17 @@ public class GitHubClient {
         backoff = @Backoff(delay = 1000, multiplier = 2)
     )
     public List<GitHubIssue> fetchPendingTriageIssues(int limit) {
+        List<GitHubIssue> allIssues = new java.util.ArrayList<>();
+        forEachPendingTriageIssue(limit, allIssues::add);
+        return allIssues;
+    }
+    
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public int forEachPendingTriageIssue(int limit, Consumer<GitHubIssue> consumer) {
         String owner = config.getGithub().getOwner();
         String repo = config.getGithub().getRepo();
         
@@ -130,42 +230,14 @@ public class GitHubClient {
             HttpHeaders headers = createAuthHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            List<GitHubIssue> allIssues = new java.util.ArrayList<>();
-            int page = 1;
-            int perPage = 100; // GitHub API max per page
+            String url = String.format("%s/repos/%s/%s/issues?labels=pending-triage&state=open&sort=created&direction=desc",
+                    apiBase, owner, repo);
             
-            while (allIssues.size() < limit) {
-                String url = String.format("%s/repos/%s/%s/issues?labels=pending-triage&state=open&per_page=%d&page=%d&sort=created&direction=desc",
-                        GITHUB_API_BASE, owner, repo, perPage, page);
-                
-                ResponseEntity<GitHubIssue[]> response = restTemplate.exchange(
-                        url,
-                        HttpMethod.GET,
-                        entity,
-                        GitHubIssue[].class
-                );
-                
-                if (response.getBody() == null || response.getBody().length == 0) {
-                    break; // No more issues
-                }
-                
-                allIssues.addAll(Arrays.asList(response.getBody()));
-                
-                if (response.getBody().length < perPage) {
-                    break; // Last page
-                }
-                
-                page++;
-                
-                // Rate limiting - pause between pages
-                if (page % 3 == 0) {
-                    Thread.sleep(1000);
-                }
-            }
+            int count = streamPaged(url, 100, entity, limit, null, consumer);
             
-            logger.info("Fetched {} issues with pending-triage label", allIssues.size());
+            logger.info("Fetched {} issues with pending-triage label", count);
             
-            return allIssues.subList(0, Math.min(allIssues.size(), limit));
+            return count;
             
         } catch (HttpClientErrorException e) {
             if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || 
@@ -204,8 +276,8 @@ public class GitHubClient {
         String owner = config.getGithub().getOwner();
         String repo = config.getGithub().getRepo();
         
-        String url = String.format("%s/repos/%s/%s/issues?state=closed&per_page=%d&sort=updated&direction=desc",
-                GITHUB_API_BASE, owner, repo, Math.min(limit, 100));
+        String url = String.format("%s/repos/%s/%s/issues?state=closed&sort=updated&direction=desc",
+                apiBase, owner, repo);
         
         logger.info("Fetching up to {} closed issues from {}/{}", limit, owner, repo);
         
@@ -213,40 +285,10 @@ public class GitHubClient {
             HttpHeaders headers = createAuthHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            List<GitHubIssue> allIssues = new java.util.ArrayList<>();
-            int page = 1;
-            int perPage = 100;
-            
-            while (allIssues.size() < limit) {
-                String pagedUrl = url + "&page=" + page;
-                
-                ResponseEntity<GitHubIssue[]> response = restTemplate.exchange(
-                        pagedUrl,
-                        HttpMethod.GET,
-                        entity,
-                        GitHubIssue[].class
-                );
-                
-                if (response.getBody() == null || response.getBody().length == 0) {
-                    break;
-                }
-                
-                allIssues.addAll(Arrays.asList(response.getBody()));
-                
-                if (response.getBody().length < perPage) {
-                    break; // Last page
-                }
-                
-                page++;
-                
-                // Rate limiting
-                if (page % 3 == 0) {
-                    Thread.sleep(1000);
-                }
-            }
+            List<GitHubIssue> allIssues = fetchPaged(url, Math.min(limit, 100), entity, limit, null);
             
             logger.info("Fetched {} closed issues", allIssues.size());
-            return allIssues.subList(0, Math.min(allIssues.size(), limit));
+            return allIssues;
             
         } catch (HttpClientErrorException e) {
             logger.error("GitHub API error: {}", e.getMessage(), e);
@@ -266,6 +308,10 @@ public class GitHubClient {
         backoff = @Backoff(delay = 1000, multiplier = 2)
     )
     public List<GitHubIssue> fetchTriagedIssues(int limit) {
+        if (config.getGithub().isSearchEnabled()) {
+            return searchTriagedIssues(limit, List.of(), null).getIssues();
+        }
+        
         String owner = config.getGithub().getOwner();
         String repo = config.getGithub().getRepo();
         
@@ -276,51 +322,15 @@ public class GitHubClient {
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
             List<GitHubIssue> allIssues = new java.util.ArrayList<>();
-            int page = 1;
-            int perPage = 100;
             
             // Fetch both open and closed issues, then filter out pending-triage
             for (String state : Arrays.asList("open", "closed")) {
-                page = 1;
-                while (allIssues.size() < limit) {
-                    String url = String.format("%s/repos/%s/%s/issues?state=%s&per_page=%d&page=%d&sort=updated&direction=desc",
-                            GITHUB_API_BASE, owner, repo, state, perPage, page);
-                    
-                    ResponseEntity<GitHubIssue[]> response = restTemplate.exchange(
-                            url,
-                            HttpMethod.GET,
-                            entity,
-                            GitHubIssue[].class
-                    );
-                    
-                    if (response.getBody() == null || response.getBody().length == 0) {
-                        break;
-                    }
-                    
-                    // Filter out issues with pending-triage label
-                    for (GitHubIssue issue : response.getBody()) {
-                        boolean hasPendingTriage = issue.getLabels().stream()
-                            .anyMatch(label -> "pending-triage".equals(label.getName()));
-                        
-                        if (!hasPendingTriage) {
-                            allIssues.add(issue);
-                            if (allIssues.size() >= limit) {
-                                break;
-                            }
-                        }
-                    }
-                    
-                    if (response.getBody().length < perPage) {
-                        break; // Last page
-                    }
-                    
-                    page++;
-                    
-                    // Rate limiting
-                    if (page % 3 == 0) {
-                        Thread.sleep(1000);
-                    }
-                }
+                String url = String.format("%s/repos/%s/%s/issues?state=%s&sort=updated&direction=desc",
+                        apiBase, owner, repo, state);
+                
+                allIssues.addAll(fetchPaged(url, 100, entity, limit - allIssues.size(),
+                    issue -> issue.getLabels().stream()
+                        .noneMatch(label -> "pending-triage".equals(label.getName()))));
                 
                 if (allIssues.size() >= limit) {
                     break;
@@ -328,7 +338,7 @@ public class GitHubClient {
             }
             
             logger.info("Fetched {} triaged issues", allIssues.size());
-            return allIssues.subList(0, Math.min(allIssues.size(), limit));
+            return allIssues;
             
         } catch (HttpClientErrorException e) {
             logger.error("GitHub API error: {}", e.getMessage(), e);
@@ -347,49 +357,77 @@ public class GitHubClient {
         maxAttempts = 3,
         backoff = @Backoff(delay = 1000, multiplier = 2)
     )
-    public String fetchOrgMemberComments(Long issueNumber, int maxComments) {
+    public List<GitHubIssue> fetchIssuesUpdatedSince(LocalDateTime since) {
+        List<GitHubIssue> allIssues = new java.util.ArrayList<>();
+        forEachIssueUpdatedSince(since, allIssues::add);
+        return allIssues;
+    }
+    
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public int forEachIssueUpdatedSince(LocalDateTime since, Consumer<GitHubIssue> consumer) {
         String owner = config.getGithub().getOwner();
         String repo = config.getGithub().getRepo();
         
-        String url = String.format("%s/repos/%s/%s/issues/%d/comments?per_page=%d",
-                GITHUB_API_BASE, owner, repo, issueNumber, Math.min(maxComments, 100));
+        String sinceParam = toIsoUtc(since);
+        
+        logger.info("Fetching issues updated since {} from {}/{}", sinceParam, owner, repo);
         
         try {
             HttpHeaders headers = createAuthHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    String.class
-            );
+            String url = String.format("%s/repos/%s/%s/issues?state=all&since=%s&sort=updated&direction=asc",
+                    apiBase, owner, repo, sinceParam);
             
-            if (response.getBody() == null) {
-                return "";
-            }
+            int count = streamPaged(url, 100, entity, Integer.MAX_VALUE, null, consumer);
             
-            // Parse comments and filter for org members
-            JsonNode comments = objectMapper.readTree(response.getBody());
-            StringBuilder orgComments = new StringBuilder();
+            logger.info("Fetched {} issues updated since {}", count, sinceParam);
+            return count;
             
-            for (JsonNode comment : comments) {
-                JsonNode user = comment.get("user");
-                String authorAssociation = comment.has("author_association") ? 
-                    comment.get("author_association").asText() : "";
-                
-                // Include comments from OWNER, MEMBER, COLLABORATOR
-                if (authorAssociation.equals("OWNER") || 
-                    authorAssociation.equals("MEMBER") || 
-                    authorAssociation.equals("COLLABORATOR")) {
-                    
-                    String username = user.get("login").asText();
-                    String body = comment.get("body").asText();
-                    orgComments.append(String.format("[%s]: %s\n", username, body));
-                }
-            }
+        } catch (HttpClientErrorException e) {
+            logger.error("GitHub API error: {}", e.getMessage(), e);
+            throw new GitHubApiException("GitHub API request failed", e, 1);
+        } catch (ResourceAccessException e) {
+            logger.warn("Network timeout, will retry: {}", e.getMessage());
+            throw e; // Let @Retryable handle this
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GitHubApiException("Interrupted while fetching issues", e, 1);
+        } catch (Exception e) {
+            logger.error("Unexpected error fetching updated issues: {}", e.getMessage(), e);
+            throw new GitHubApiException("Failed to fetch updated issues", e, 1);
+        }
+    }
+    
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public String fetchOrgMemberComments(Long issueNumber, int maxComments) {
+        String owner = config.getGithub().getOwner();
+        String repo = config.getGithub().getRepo();
+        
+        String url = String.format("%s/repos/%s/%s/issues/%d/comments?per_page=%d",
+                apiBase, owner, repo, issueNumber, Math.min(maxComments, 100));
+        
+        try {
+            HttpHeaders headers = createAuthHeaders();
+            HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            return orgComments.toString();
+            // Filter comments for org members (OWNER, MEMBER, COLLABORATOR) while streaming
+            ResponseEntity<String> response = getDecoded(url, entity, in -> {
+                StringBuilder orgComments = new StringBuilder();
+                jsonDecoder.readComments(in, ORG_MEMBER_ASSOCIATIONS,
+                    (login, body) -> appendOrgComment(orgComments, login, body));
+                return orgComments.toString();
+            });
+            
+            return response.getBody() != null ? response.getBody() : "";
             
         } catch (Exception e) {
             logger.warn("Failed to fetch comments for issue #{}: {}", issueNumber, e.getMessage());
@@ -415,23 +453,24 @@ public class GitHubClient {
             
             // First, get current labels
             String getUrl = String.format("%s/repos/%s/%s/issues/%d",
-                    GITHUB_API_BASE, owner, repo, issueNumber);
+                    apiBase, owner, repo, issueNumber);
             
+            // Read as GitHubIssue so this shares the cache entry with fetchIssueById
             HttpEntity<String> getEntity = new HttpEntity<>(headers);
-            ResponseEntity<String> getResponse = restTemplate.exchange(
+            ResponseEntity<GitHubIssue> getResponse = getWithCache(
                     getUrl,
-                    HttpMethod.GET,
                     getEntity,
-                    String.class
+                    GitHubIssue.class
             );
             
-            JsonNode issueData = objectMapper.readTree(getResponse.getBody());
-            JsonNode currentLabels = issueData.get("labels");
+            GitHubIssue issueData = getResponse.getBody();
+            List<GitHubIssue.Label> currentLabels = issueData.getLabels() != null ? 
+                issueData.getLabels() : List.of();
             
             // Build new label list
             List<String> newLabels = new java.util.ArrayList<>();
-            for (JsonNode label : currentLabels) {
-                String labelName = label.get("name").asText();
+            for (GitHubIssue.Label label : currentLabels) {
+                String labelName = label.getName();
                 if (!labelsToRemove.contains(labelName)) {
                     newLabels.add(labelName);
                 }
@@ -446,7 +485,7 @@ public class GitHubClient {
             
             // Update labels
             String updateUrl = String.format("%s/repos/%s/%s/issues/%d",
-                    GITHUB_API_BASE, owner, repo, issueNumber);
+                    apiBase, owner, repo, issueNumber);
             
             String requestBody = objectMapper.writeValueAsString(
                 Collections.singletonMap("labels", newLabels)
@@ -473,6 +512,647 @@ public class GitHubClient {
         }
     }
     
+    public List<GitHubIssue> fetchPendingTriageIssuesWithComments(int limit, int maxComments) {
+        if (config.getGithub().getFetchMode() == TriageConfiguration.FetchMode.REST) {
+            return attachOrgMemberComments(fetchPendingTriageIssues(limit), maxComments);
+        }
+        logger.info("Fetching up to {} pending-triage issues with comments via GraphQL", limit);
+        return fetchIssuesGraphQL(List.of("pending-triage"), List.of("OPEN"), "CREATED_AT",
+            limit, maxComments, null);
+    }
+    
+    public List<GitHubIssue> fetchTriagedIssuesWithComments(int limit, int maxComments) {
+        if (config.getGithub().isSearchEnabled()) {
+            return searchTriagedIssuesWithComments(limit, maxComments, List.of(), null).getIssues();
+        }
+        if (config.getGithub().getFetchMode() == TriageConfiguration.FetchMode.REST) {
+            return attachOrgMemberComments(fetchTriagedIssues(limit), maxComments);
+        }
+        logger.info("Fetching up to {} triaged issues with comments via GraphQL", limit);
+        List<GitHubIssue> allIssues = new java.util.ArrayList<>();
+        
+        // Same order as the REST listing: open issues first, then closed
+        for (String state : Arrays.asList("OPEN", "CLOSED")) {
+            allIssues.addAll(fetchIssuesGraphQL(null, List.of(state), "UPDATED_AT",
+                limit - allIssues.size(), maxComments,
+                issue -> issue.getLabels().stream()
+                    .noneMatch(label -> "pending-triage".equals(label.getName()))));
+            if (allIssues.size() >= limit) {
+                break;
+            }
+        }
+        
+        logger.info("Fetched {} triaged issues with comments", allIssues.size());
+        return allIssues;
+    }
+    
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public List<GitHubIssue> fetchIssuesGraphQL(List<String> labels, List<String> states, String orderBy,
+                                                int limit, int maxComments, Predicate<GitHubIssue> filter) {
+        String owner = config.getGithub().getOwner();
+        String repo = config.getGithub().getRepo();
+        
+        try {
+            List<GitHubIssue> allIssues = new java.util.ArrayList<>();
+            String cursor = null;
+            
+            while (allIssues.size() < limit) {
+                Map<String, Object> variables = new java.util.HashMap<>();
+                variables.put("owner", owner);
+                variables.put("name", repo);
+                variables.put("after", cursor);
+                variables.put("labels", labels);
+                variables.put("states", states);
+                variables.put("orderBy", orderBy);
+                variables.put("comments", Math.min(Math.max(maxComments, 0), 100));
+                
+                JsonNode connection = postGraphQL(ISSUES_WITH_COMMENTS_QUERY, variables)
+                    .path("repository").path("issues");
+                for (JsonNode node : connection.path("nodes")) {
+                    GitHubIssue issue = toGitHubIssue(node);
+                    if (filter == null || filter.test(issue)) {
+                        allIssues.add(issue);
+                        if (allIssues.size() >= limit) {
+                            break;
+                        }
+                    }
+                }
+                
+                JsonNode pageInfo = connection.path("pageInfo");
+                if (!pageInfo.path("hasNextPage").asBoolean(false)) {
+                    break; // Last page
+                }
+                cursor = pageInfo.path("endCursor").asText();
+            }
+            
+            return allIssues;
+            
+        } catch (GitHubApiException e) {
+            throw e;
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                logger.error("GitHub authentication failed: {}. Please check your GITHUB_TOKEN.", 
+                    e.getMessage());
+                throw new GitHubApiException("Authentication failed with GitHub API", e, 3);
+            }
+            logger.error("GitHub GraphQL API error: {}", e.getMessage(), e);
+            throw new GitHubApiException("GitHub GraphQL request failed", e, 1);
+        } catch (ResourceAccessException e) {
+            logger.warn("Network timeout, will retry: {}", e.getMessage());
+            throw e; // Let @Retryable handle this
+        } catch (Exception e) {
+            logger.error("Unexpected error fetching issues via GraphQL: {}", e.getMessage(), e);
+            throw new GitHubApiException("Failed to fetch issues via GraphQL", e, 1);
+        }
+    }
+    
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public IssueSearchResult searchTriagedIssues(int limit, List<String> anyOfLabels, LocalDateTime updatedAfter) {
+        return searchTriagedIssues(limit, anyOfLabels, updatedAfter, null);
+    }
+    
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public IssueSearchResult searchTriagedIssues(int limit, List<String> anyOfLabels,
+                                                 LocalDateTime updatedAfter, LocalDateTime updatedBefore) {
+        String query = triagedSearchQuery(anyOfLabels, updatedAfter);
+        logger.info("Searching up to {} issues: {}", limit, query);
+        
+        try {
+            IssueSearchResult result = searchWindowed(query, limit, updatedBefore, this::searchWindowRest);
+            logger.info("Search matched {} issues, fetched {}", result.getTotalCount(), result.getIssues().size());
+            return result;
+            
+        } catch (GitHubApiException e) {
+            throw e;
+        } catch (HttpClientErrorException e) {
+            logger.error("GitHub search API error: {}", e.getMessage(), e);
+            throw new GitHubApiException("GitHub search request failed", e, 1);
+        } catch (ResourceAccessException e) {
+            logger.warn("Network timeout, will retry: {}", e.getMessage());
+            throw e; // Let @Retryable handle this
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GitHubApiException("Interrupted while searching issues", e, 1);
+        } catch (Exception e) {
+            logger.error("Unexpected error searching issues: {}", e.getMessage(), e);
+            throw new GitHubApiException("Failed to search issues", e, 1);
+        }
+    }
+    
+    // Triaged issues (no pending-triage label) filtered on the server, with their org member
+    // comments. Falls back to the listing plus client-side filtering when search is disabled.
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public IssueSearchResult searchTriagedIssuesWithComments(int limit, int maxComments,
+                                                             List<String> anyOfLabels, LocalDateTime updatedAfter) {
+        return searchTriagedIssuesWithComments(limit, maxComments, anyOfLabels, updatedAfter, null);
+    }
+    
+    // As above, limited to issues last updated at or before updatedBefore, so a caller can page
+    // through the results newest first with the oldest updated_at it has seen
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public IssueSearchResult searchTriagedIssuesWithComments(int limit, int maxComments, List<String> anyOfLabels,
+                                                             LocalDateTime updatedAfter, LocalDateTime updatedBefore) {
+        if (!config.getGithub().isSearchEnabled()) {
+            List<GitHubIssue> matching = fetchTriagedIssuesWithComments(limit, maxComments).stream()
+                .filter(issue -> matchesSearch(issue, anyOfLabels, updatedAfter, updatedBefore))
+                .collect(Collectors.toList());
+            return new IssueSearchResult(matching.size(), matching);
+        }
+        if (config.getGithub().getFetchMode() == TriageConfiguration.FetchMode.REST) {
+            IssueSearchResult result = searchTriagedIssues(limit, anyOfLabels, updatedAfter, updatedBefore);
+            attachOrgMemberComments(result.getIssues(), maxComments);
+            return result;
+        }
+        
+        String query = triagedSearchQuery(anyOfLabels, updatedAfter);
+        logger.info("Searching up to {} issues with comments via GraphQL: {}", limit, query);
+        
+        try {
+            IssueSearchResult result = searchWindowed(query, limit, updatedBefore,
+                (windowQuery, windowLimit, consumer) ->
+                    searchWindowGraphQL(windowQuery, windowLimit, maxComments, consumer));
+            logger.info("Search matched {} issues, fetched {}", result.getTotalCount(), result.getIssues().size());
+            return result;
+            
+        } catch (GitHubApiException e) {
+            throw e;
+        } catch (HttpClientErrorException e) {
+            logger.error("GitHub GraphQL API error: {}", e.getMessage(), e);
+            throw new GitHubApiException("GitHub GraphQL request failed", e, 1);
+        } catch (ResourceAccessException e) {
+            logger.warn("Network timeout, will retry: {}", e.getMessage());
+            throw e; // Let @Retryable handle this
+        } catch (Exception e) {
+            logger.error("Unexpected error searching issues via GraphQL: {}", e.getMessage(), e);
+            throw new GitHubApiException("Failed to search issues via GraphQL", e, 1);
+        }
+    }
+    
+    // Like searchTriagedIssuesWithComments, but comments that take a request per issue are left
+    // out for attachMissingOrgMemberComments, so a caller can overlap them with its next search
+    @Retryable(
+        retryFor = {ResourceAccessException.class},
+        maxAttempts = 3,
+        backoff = @Backoff(delay = 1000, multiplier = 2)
+    )
+    public IssueSearchResult searchTriagedIssuesDeferringComments(int limit, int maxComments, List<String> anyOfLabels,
+                                                                  LocalDateTime updatedAfter, LocalDateTime updatedBefore) {
+        if (config.getGithub().isSearchEnabled() && config.getGithub().getFetchMode() == TriageConfiguration.FetchMode.REST) {
+            return searchTriagedIssues(limit, anyOfLabels, updatedAfter, updatedBefore);
+        }
+        return searchTriagedIssuesWithComments(limit, maxComments, anyOfLabels, updatedAfter, updatedBefore);
+    }
+    
+    // Requests the org member comments of the issues fetched without them, concurrently
+    public CompletableFuture<List<GitHubIssue>> attachMissingOrgMemberComments(List<GitHubIssue> issues, int maxComments) {
+        List<GitHubIssue> missing = issues.stream()
+            .filter(issue -> issue.getOrgMemberComments() == null)
+            .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(issues);
+        }
+        return asyncClient.attachOrgMemberComments(missing, maxComments).thenApply(ignored -> issues);
+    }
+    
+    public Map<String, Object> getResponseCacheStatistics() {
+        return responseCache.getStatistics();
+    }
+    
+    public Map<String, Object> getRateLimitStatistics() {
+        return rateLimiter.getStatistics();
+    }
+    
+    public Map<String, Object> getConnectionPoolStatistics() {
+        return connectionPool.getStatistics();
+    }
+    
+    // Overlaps the per-issue comment requests instead of fetching them one after another
+    private List<GitHubIssue> attachOrgMemberComments(List<GitHubIssue> issues, int maxComments) {
+        return asyncClient.attachOrgMemberComments(issues, maxComments).join();
+    }
+    
+    private String triagedSearchQuery(List<String> anyOfLabels, LocalDateTime updatedAfter) {
+        StringBuilder query = new StringBuilder()
+            .append("repo:").append(config.getGithub().getOwner()).append('/').append(config.getGithub().getRepo())
+            .append(" is:issue -label:\"pending-triage\" sort:updated-desc");
+        if (anyOfLabels != null && !anyOfLabels.isEmpty()) {
+            // A comma-separated label qualifier matches any of the labels
+            query.append(" label:").append(anyOfLabels.stream()
+                .map(label -> "\"" + label + "\"")
+                .collect(Collectors.joining(",")));
+        }
+        if (updatedAfter != null) {
+            query.append(" updated:>=").append(toIsoUtc(updatedAfter));
+        }
+        return query.toString();
+    }
+    
+    private boolean matchesSearch(GitHubIssue issue, List<String> anyOfLabels,
+                                  LocalDateTime updatedAfter, LocalDateTime updatedBefore) {
+        if (updatedAfter != null && (issue.getUpdatedAt() == null || issue.getUpdatedAt().isBefore(updatedAfter))) {
+            return false;
+        }
+        if (updatedBefore != null && (issue.getUpdatedAt() == null || issue.getUpdatedAt().isAfter(updatedBefore))) {
+            return false;
+        }
+        return anyOfLabels == null || anyOfLabels.isEmpty() || (issue.getLabels() != null &&
+            issue.getLabels().stream().anyMatch(label -> anyOfLabels.stream()
+                .anyMatch(wanted -> wanted.equalsIgnoreCase(label.getName()))));
+    }
+    
+    // Runs the query in windows of at most SEARCH_WINDOW results. Results are sorted by
+    // updated desc, so each further window is bounded by the oldest updated_at seen so far;
+    // issues on the boundary come back twice and are dropped by number. updatedBefore bounds the first window.
+    private IssueSearchResult searchWindowed(String query, int limit, LocalDateTime updatedBefore,
+                                             SearchWindowFetcher fetcher) throws Exception {
+        List<GitHubIssue> issues = new java.util.ArrayList<>();
+        Set<Long> seen = new java.util.HashSet<>();
+        long totalCount = -1;
+        String upperBound = updatedBefore == null ? null : toIsoUtc(updatedBefore);
+        
+        while (issues.size() < limit) {
+            String windowQuery = upperBound == null ? query : query + " updated:<=" + upperBound;
+            int requested = Math.min(SEARCH_WINDOW, limit - issues.size());
+            int[] returned = {0};
+            LocalDateTime[] oldest = {null};
+            
+            long windowTotal = fetcher.fetch(windowQuery, requested, issue -> {
+                returned[0]++;
+                if (issue.getUpdatedAt() != null) {
+                    oldest[0] = issue.getUpdatedAt();
+                }
+                if (seen.add(issue.getNumber()) && issues.size() < limit) {
+                    issues.add(issue);
+                }
+            });
+            if (totalCount < 0) {
+                totalCount = windowTotal;
+            }
+            
+            if (returned[0] < requested || windowTotal <= returned[0]) {
+                break; // Every match of this window has been returned
+            }
+            String nextBound = oldest[0] != null ? toIsoUtc(oldest[0]) : null;
+            if (nextBound == null || nextBound.equals(upperBound)) {
+                logger.warn("Cannot narrow search window past {}, stopping at {} issues", upperBound, issues.size());
+                break;
+            }
+            upperBound = nextBound;
+        }
+        
+        return new IssueSearchResult(Math.max(totalCount, 0), issues);
+    }
+    
+    private long searchWindowRest(String query, int limit, Consumer<GitHubIssue> consumer) {
+        HttpEntity<String> entity = new HttpEntity<>(createAuthHeaders());
+        // Encoded strictly, '+' and '&' included, so quoted labels and qualifiers reach the search as written
+        String url = UriComponentsBuilder.fromUriString(apiBase + "/search/issues")
+            .queryParam("q", "{q}")
+            .encode()
+            .buildAndExpand(query)
+            .toUriString();
+        
+        long totalCount = 0;
+        int accepted = 0;
+        for (int page = 1; accepted < limit && (page - 1) * 100 < SEARCH_WINDOW; page++) {
+            IssueSearchResult result = getDecoded(URI.create(pageUrl(url, 100, page)), entity,
+                jsonDecoder::readSearchResult).getBody();
+            if (result == null) {
+                break;
+            }
+            totalCount = result.getTotalCount();
+            if (result.isIncompleteResults()) {
+                logger.warn("GitHub search timed out and returned incomplete results for page {}", page);
+            }
+            for (GitHubIssue issue : result.getIssues()) {
+                if (accepted >= limit) {
+                    break;
+                }
+                consumer.accept(issue);
+                accepted++;
+            }
+            if (result.getIssues().size() < 100) {
+                break; // Last page
+            }
+        }
+        return totalCount;
+    }
+    
+    private long searchWindowGraphQL(String query, int limit, int maxComments,
+                                     Consumer<GitHubIssue> consumer) throws IOException {
+        long totalCount = 0;
+        int accepted = 0;
+        String cursor = null;
+        
+        while (accepted < limit) {
+            Map<String, Object> variables = new java.util.HashMap<>();
+            variables.put("q", query);
+            variables.put("after", cursor);
+            variables.put("comments", Math.min(Math.max(maxComments, 0), 100));
+            
+            JsonNode search = postGraphQL(SEARCH_WITH_COMMENTS_QUERY, variables).path("search");
+            totalCount = search.path("issueCount").asLong();
+            for (JsonNode node : search.path("nodes")) {
+                if (!node.has("number")) {
+                    continue; // Not an issue
+                }
+                consumer.accept(toGitHubIssue(node));
+                if (++accepted >= limit) {
+                    break;
+                }
+            }
+            
+            JsonNode pageInfo = search.path("pageInfo");
+            if (!pageInfo.path("hasNextPage").asBoolean(false)) {
+                break; // Last page
+            }
+            cursor = pageInfo.path("endCursor").asText();
+        }
+        return totalCount;
+    }
+    
+    // Returns the "data" node; GraphQL reports query errors with a 200 status
+    private JsonNode postGraphQL(String query, Map<String, Object> variables) throws IOException {
+        HttpHeaders headers = createAuthHeaders();
+        headers.set("Content-Type", "application/json");
+        String requestBody = objectMapper.writeValueAsString(Map.of("query", query, "variables", variables));
+        
+        ResponseEntity<JsonNode> response = restTemplate.exchange(
+                apiBase + "/graphql",
+                HttpMethod.POST,
+                new HttpEntity<>(requestBody, headers),
+                JsonNode.class
+        );
+        
+        JsonNode root = response.getBody();
+        if (root == null) {
+            throw new GitHubApiException("Empty response from GitHub GraphQL API", 1);
+        }
+        if (root.hasNonNull("errors")) {
+            throw new GitHubApiException("GitHub GraphQL query failed: " + root.get("errors"), 1);
+        }
+        return root.path("data");
+    }
+    
+    // GitHub expects ISO 8601 in UTC; issue timestamps are already UTC
+    private String toIsoUtc(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(ChronoUnit.SECONDS).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "Z";
+    }
+    
+    private GitHubIssue toGitHubIssue(JsonNode node) {
+        GitHubIssue issue = new GitHubIssue();
+        issue.setNumber(node.path("number").asLong());
+        issue.setTitle(node.path("title").asText(null));
+        issue.setBody(node.path("body").asText(null));
+        issue.setUrl(node.path("url").asText(null));
+        issue.setState(node.path("state").asText("").toLowerCase());
+        issue.setCreatedAt(GitHubJsonDecoder.parseTimestamp(node.path("createdAt").asText(null)));
+        issue.setUpdatedAt(GitHubJsonDecoder.parseTimestamp(node.path("updatedAt").asText(null)));
+        
+        if (node.path("author").hasNonNull("login")) {
+            GitHubIssue.User user = new GitHubIssue.User();
+            user.setLogin(node.path("author").path("login").asText());
+            issue.setUser(user);
+        }
+        
+        List<GitHubIssue.Label> labels = new java.util.ArrayList<>();
+        for (JsonNode labelNode : node.path("labels").path("nodes")) {
+            GitHubIssue.Label label = new GitHubIssue.Label();
+            label.setName(labelNode.path("name").asText());
+            labels.add(label);
+        }
+        issue.setLabels(labels);
+        
+        StringBuilder orgComments = new StringBuilder();
+        for (JsonNode comment : node.path("comments").path("nodes")) {
+            if (ORG_MEMBER_ASSOCIATIONS.contains(comment.path("authorAssociation").asText())) {
+                // Deleted accounts come back without an author
+                String login = comment.path("author").path("login").asText("ghost");
+                appendOrgComment(orgComments, login, comment.path("body").asText());
+            }
+        }
+        issue.setOrgMemberComments(orgComments.toString());
+        
+        return issue;
+    }
+    
+    static void appendOrgComment(StringBuilder orgComments, String username, String body) {
+        orgComments.append(String.format("[%s]: %s\n", username, body));
+    }
+    
+    private List<GitHubIssue> fetchPaged(String url, int perPage, HttpEntity<?> entity, int limit,
+                                         Predicate<GitHubIssue> filter) throws InterruptedException {
+        List<GitHubIssue> allIssues = new java.util.ArrayList<>();
+        streamPaged(url, perPage, entity, limit, filter, allIssues::add);
+        return allIssues;
+    }
+    
+    // Fetches page 1, then the remaining pages announced by the Link rel="last" header
+    // concurrently in waves of at most page-parallelism requests. Pages are handed to the
+    // consumer in page order, so the API sort order is preserved. Returns the number of
+    // issues accepted.
+    private int streamPaged(String url, int perPage, HttpEntity<?> entity, int limit,
+                            Predicate<GitHubIssue> filter, Consumer<GitHubIssue> consumer)
+            throws InterruptedException {
+        if (limit <= 0) {
+            return 0;
+        }
+        
+        ResponseEntity<List<GitHubIssue>> first = fetchPage(pageUrl(url, perPage, 1), entity);
+        List<GitHubIssue> firstPage = first.getBody();
+        if (firstPage == null || firstPage.isEmpty()) {
+            return 0;
+        }
+        int accepted = collectPage(firstPage, 0, limit, filter, consumer);
+        if (firstPage.size() < perPage) {
+            return accepted; // Single page
+        }
+        
+        int lastPage = parseLastPage(first.getHeaders());
+        int parallelism = Math.max(1, config.getGithub().getPageParallelism());
+        int nextPage = 2;
+        
+        while (nextPage <= lastPage && accepted < limit) {
+            int waveEnd = Math.min(lastPage, nextPage + parallelism - 1);
+            if (filter == null) {
+                // Every issue counts towards the limit, so never request pages we won't use
+                long pagesNeeded = ((long) limit - accepted + perPage - 1) / perPage;
+                waveEnd = (int) Math.min(waveEnd, nextPage + pagesNeeded - 1);
+            }
+            
+            List<Future<ResponseEntity<List<GitHubIssue>>>> wave = new java.util.ArrayList<>();
+            for (int page = nextPage; page <= waveEnd; page++) {
+                String pagedUrl = pageUrl(url, perPage, page);
+                wave.add(pageExecutor.submit(() -> fetchPage(pagedUrl, entity)));
+            }
+            
+            try {
+                for (Future<ResponseEntity<List<GitHubIssue>>> future : wave) {
+                    List<GitHubIssue> page = awaitPage(future).getBody();
+                    if (page == null || page.isEmpty()) {
+                        lastPage = 0; // Listing shrank while paging
+                        break;
+                    }
+                    accepted = collectPage(page, accepted, limit, filter, consumer);
+                    if (accepted >= limit) {
+                        break;
+                    }
+                }
+            } finally {
+                wave.forEach(future -> future.cancel(true));
+            }
+            
+            nextPage = waveEnd + 1;
+        }
+        
+        return accepted;
+    }
+    
+    private ResponseEntity<List<GitHubIssue>> fetchPage(String url, HttpEntity<?> entity) {
+        return getDecoded(url, entity, in -> {
+            List<GitHubIssue> page = new java.util.ArrayList<>();
+            jsonDecoder.readIssues(in, page::add);
+            return page;
+        });
+    }
+    
+    // Hands accepted issues to the consumer until the limit is reached; returns the new total
+    private int collectPage(List<GitHubIssue> page, int accepted, int limit,
+                            Predicate<GitHubIssue> filter, Consumer<GitHubIssue> consumer) {
+        for (GitHubIssue issue : page) {
+            if (accepted >= limit) {
+                break;
+            }
+            if (filter == null || filter.test(issue)) {
+                consumer.accept(issue);
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+    
+    private ResponseEntity<List<GitHubIssue>> awaitPage(Future<ResponseEntity<List<GitHubIssue>>> future)
+            throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // Surface the original exception so the callers' error handling still applies
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new GitHubApiException("Failed to fetch page from GitHub", e.getCause(), 1);
+        }
+    }
+    
+    private String pageUrl(String url, int perPage, int page) {
+        return url + "&per_page=" + perPage + "&page=" + page;
+    }
+    
+    private int parseLastPage(HttpHeaders headers) {
+        String link = headers.getFirst(HttpHeaders.LINK);
+        if (link != null) {
+            Matcher matcher = LAST_PAGE_PATTERN.matcher(link);
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+        // No Link header: fall back to walking pages one wave at a time
+        return Integer.MAX_VALUE;
+    }
+    
+    // Conditional GET: revalidates cached responses with If-None-Match / If-Modified-Since
+    // and serves the already deserialized body on 304 Not Modified
+    private <T> ResponseEntity<T> getWithCache(String url, HttpEntity<?> entity, Class<T> responseType) {
+        GitHubResponseCache.Entry cached = responseCache.lookup(url);
+        
+        ResponseEntity<T> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                new HttpEntity<>(conditionalHeaders(entity, cached)),
+                responseType
+        );
+        
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            responseCache.recordNotModified();
+            return new ResponseEntity<>(responseType.cast(cached.getBody()), cached.getHeaders(), HttpStatus.OK);
+        }
+        
+        responseCache.store(url, response.getHeaders(), response.getBody());
+        return response;
+    }
+    
+    // Same conditional GET, but the decoder reads the body straight off the response stream
+    // instead of going through a message converter
+    private <T> ResponseEntity<T> getDecoded(String url, HttpEntity<?> entity, BodyDecoder<T> decoder) {
+        // Encoded as RestTemplate encodes a URL string
+        return getDecoded(restTemplate.getUriTemplateHandler().expand(url), entity, decoder);
+    }
+    
+    // For a URL that is already encoded, which RestTemplate would encode again
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> getDecoded(URI uri, HttpEntity<?> entity, BodyDecoder<T> decoder) {
+        String url = uri.toString();
+        GitHubResponseCache.Entry cached = responseCache.lookup(url);
+        HttpHeaders headers = conditionalHeaders(entity, cached);
+        
+        ResponseEntity<T> response = restTemplate.execute(
+                uri,
+                HttpMethod.GET,
+                request -> request.getHeaders().putAll(headers),
+                clientResponse -> {
+                    T body = null;
+                    if (clientResponse.getStatusCode().value() != HttpStatus.NOT_MODIFIED.value()) {
+                        try (InputStream in = clientResponse.getBody()) {
+                            body = decoder.decode(in);
+                        }
+                    }
+                    return new ResponseEntity<>(body, clientResponse.getHeaders(), clientResponse.getStatusCode());
+                }
+        );
+        
+        if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+            responseCache.recordNotModified();
+            return new ResponseEntity<>((T) cached.getBody(), cached.getHeaders(), HttpStatus.OK);
+        }
+        
+        responseCache.store(url, response.getHeaders(), response.getBody());
+        return response;
+    }
+    
+    private HttpHeaders conditionalHeaders(HttpEntity<?> entity, GitHubResponseCache.Entry cached) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(entity.getHeaders());
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                headers.setIfNoneMatch(cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+        }
+        return headers;
+    }
+    
     private HttpHeaders createAuthHeaders() {
         HttpHeaders headers = new HttpHeaders();
         headers.set("Authorization", "Bearer " + config.getGithub().getToken());
@@ -480,4 +1160,15 @@ public class GitHubClient {
         headers.set("X-GitHub-Api-Version", "2022-11-28");
         return headers;
     }
+    
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(InputStream in) throws IOException;
+    }
+    
+    @FunctionalInterface
+    private interface SearchWindowFetcher {
+        // Fetches up to limit results of one query and returns its total match count
+        long fetch(String query, int limit, Consumer<GitHubIssue> consumer) throws Exception;
+    }
 }
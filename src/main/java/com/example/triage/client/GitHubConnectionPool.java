@@ -0,0 +1,90 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import java.util.Map;
+
+@Component
+public class GitHubConnectionPool {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GitHubConnectionPool.class);
+    
+    private final TriageConfiguration.ConnectionPool settings;
+    private final InstrumentedConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    
+    public GitHubConnectionPool(TriageConfiguration config) {
+        this.settings = config.getConnectionPool();
+        
+        // One SSLContext for every connection, so its client session cache lets new
+        // connections resume TLS sessions instead of doing a full handshake
+        SSLContext sslContext = SSLContexts.createSystemDefault();
+        
+        this.connectionManager = new InstrumentedConnectionManager(
+            PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.getMaxTotal())
+                .setMaxConnPerRoute(settings.getMaxPerRoute())
+                .setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+                    .setSslContext(sslContext)
+                    .build())
+                .setDefaultSocketConfig(SocketConfig.custom()
+                    .setSoKeepAlive(true)
+                    .setSoTimeout(Timeout.ofMilliseconds(settings.getSocketTimeoutMs()))
+                    .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(settings.getConnectTimeoutMs()))
+                    .setSocketTimeout(Timeout.ofMilliseconds(settings.getSocketTimeoutMs()))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                    .build())
+                .build());
+        
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(settings.getRequestTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(settings.getSocketTimeoutMs()))
+                .build())
+            .build();
+        
+        logger.info("GitHub connection pool: max {} total, {} per route",
+            settings.getMaxTotal(), settings.getMaxPerRoute());
+    }
+    
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+    
+    public Map<String, Object> getStatistics() {
+        return connectionManager.getStatistics();
+    }
+    
+    @Scheduled(fixedDelayString = "${triage.connection-pool.idle-timeout-ms:30000}")
+    public void evictIdleConnections() {
+        connectionManager.closeExpired();
+        connectionManager.closeIdle(TimeValue.ofMilliseconds(settings.getIdleTimeoutMs()));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        httpClient.close(CloseMode.GRACEFUL);
+    }
+}
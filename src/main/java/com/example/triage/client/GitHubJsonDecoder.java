@@ -0,0 +1,196 @@
+package com.example.triage.client;
+
+import com.example.triage.model.GitHubIssue;
+import com.example.triage.model.IssueSearchResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Streaming decoder for GitHub REST payloads. Reads only the fields the triage code uses
+// and skips everything else (reactions, milestones, full user objects, ...) token by token,
+// so no JsonNode tree or intermediate array is built for a page.
+public class GitHubJsonDecoder {
+    
+    private final JsonFactory jsonFactory;
+    
+    public GitHubJsonDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+    
+    // Hands each issue of a JSON array to the consumer; returns the number of elements read
+    public int readIssues(InputStream in, Consumer<GitHubIssue> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return 0;
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(readIssue(parser));
+                count++;
+            }
+            return count;
+        }
+    }
+    
+    public GitHubIssue readIssue(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return parser.nextToken() == JsonToken.START_OBJECT ? readIssue(parser) : null;
+        }
+    }
+    
+    // Search API page: {"total_count": n, "incomplete_results": b, "items": [issues]}
+    public IssueSearchResult readSearchResult(InputStream in) throws IOException {
+        IssueSearchResult result = new IssueSearchResult();
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return result;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "total_count" -> result.setTotalCount(parser.getLongValue());
+                    case "incomplete_results" -> result.setIncompleteResults(value == JsonToken.VALUE_TRUE);
+                    case "items" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                result.getIssues().add(readIssue(parser));
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return result;
+    }
+    
+    // Hands (login, body) of every comment whose author_association is in the given set
+    public void readComments(InputStream in, Set<String> associations,
+                             BiConsumer<String, String> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String login = null;
+                String body = null;
+                String association = null;
+                
+                // author_association can come after body, so decide at the end of the object
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "author_association" -> association = textOrNull(parser);
+                        case "body" -> body = textOrNull(parser);
+                        case "user" -> login = readLogin(parser);
+                        default -> parser.skipChildren();
+                    }
+                }
+                
+                if (association != null && associations.contains(association)) {
+                    consumer.accept(login, body);
+                }
+            }
+        }
+    }
+    
+    static LocalDateTime parseTimestamp(String value) {
+        return value == null ? null : LocalDateTime.ofInstant(Instant.parse(value), ZoneOffset.UTC);
+    }
+    
+    private GitHubIssue readIssue(JsonParser parser) throws IOException {
+        GitHubIssue issue = new GitHubIssue();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "number" -> issue.setNumber(value == JsonToken.VALUE_NULL ? null : parser.getLongValue());
+                case "title" -> issue.setTitle(textOrNull(parser));
+                case "body" -> issue.setBody(textOrNull(parser));
+                case "state" -> issue.setState(textOrNull(parser));
+                case "html_url" -> issue.setUrl(textOrNull(parser));
+                case "created_at" -> issue.setCreatedAt(parseTimestamp(textOrNull(parser)));
+                case "updated_at" -> issue.setUpdatedAt(parseTimestamp(textOrNull(parser)));
+                case "user" -> {
+                    String login = readLogin(parser);
+                    if (login != null) {
+                        GitHubIssue.User user = new GitHubIssue.User();
+                        user.setLogin(login);
+                        issue.setUser(user);
+                    }
+                }
+                case "labels" -> issue.setLabels(readLabels(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return issue;
+    }
+    
+    private List<GitHubIssue.Label> readLabels(JsonParser parser) throws IOException {
+        List<GitHubIssue.Label> labels = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return labels;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String name = null;
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("name".equals(field)) {
+                        name = textOrNull(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                name = textOrNull(parser);
+            }
+            if (name != null) {
+                GitHubIssue.Label label = new GitHubIssue.Label();
+                label.setName(name);
+                labels.add(label);
+            }
+        }
+        return labels;
+    }
+    
+    private String readLogin(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String login = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("login".equals(field)) {
+                login = textOrNull(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return login;
+    }
+    
+    private String textOrNull(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+}
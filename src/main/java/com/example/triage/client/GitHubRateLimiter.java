@@ -0,0 +1,109 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class GitHubRateLimiter implements ClientHttpRequestInterceptor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GitHubRateLimiter.class);
+    
+    private final TriageConfiguration.RateLimit settings;
+    // GitHub budgets core, search and graphql requests separately
+    private final Map<String, AdaptiveRateLimiter> limiters = new ConcurrentHashMap<>();
+    
+    public GitHubRateLimiter(TriageConfiguration config) {
+        this.settings = config.getRateLimit();
+    }
+    
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        try {
+            beforeRequest(request.getURI());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for GitHub rate limit");
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        afterResponse(request.getURI(), response.getStatusCode().value(), response.getHeaders());
+        return response;
+    }
+    
+    public void beforeRequest(URI uri) throws InterruptedException {
+        limiterFor(resourceOf(uri)).acquire();
+    }
+    
+    // Non-blocking variant: takes a permit and returns the nanoseconds to delay the request by
+    public long reserve(URI uri) {
+        return limiterFor(resourceOf(uri)).reserve();
+    }
+    
+    public void afterResponse(URI uri, int status, HttpHeaders headers) {
+        String resource = headers.getFirst("X-RateLimit-Resource");
+        AdaptiveRateLimiter limiter = limiterFor(resource != null ? resource : resourceOf(uri));
+        
+        Long remaining = parseLong(headers.getFirst("X-RateLimit-Remaining"));
+        Long reset = parseLong(headers.getFirst("X-RateLimit-Reset"));
+        Long limit = parseLong(headers.getFirst("X-RateLimit-Limit"));
+        if (remaining != null && reset != null) {
+            limiter.updateBudget(remaining, limit != null ? limit : -1, reset);
+        }
+        
+        // Secondary rate limits come back as 403/429 with Retry-After
+        Long retryAfter = parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (retryAfter != null && (status == 403 || status == 429)) {
+            logger.warn("GitHub asked to retry after {}s (status {})", retryAfter, status);
+            limiter.pauseFor(retryAfter);
+        }
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        limiters.forEach((resource, limiter) -> stats.put(resource, limiter.getStatistics()));
+        return stats;
+    }
+    
+    private AdaptiveRateLimiter limiterFor(String resource) {
+        return limiters.computeIfAbsent(resource, name -> new AdaptiveRateLimiter(
+            "github-" + name,
+            settings.getGithubMaxRequestsPerSecond(),
+            settings.getGithubReserveFraction()));
+    }
+    
+    private String resourceOf(URI uri) {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        if (path.startsWith("/graphql")) {
+            return "graphql";
+        }
+        if (path.startsWith("/search/")) {
+            return "search";
+        }
+        return "core";
+    }
+    
+    private Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import com.example.triage.model.IssueSearchResult;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Responses by URL with their ETag and Last-Modified, to revalidate with a conditional request.
+// Bodies are copied in and out: callers change the issues they get, e.g. attach their comments,
+// and neither the cached issues nor those the next 304 returns may carry those changes.
+@Component
+public class GitHubResponseCache {
+    
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    
+    // Requests sent with a cached validator, the 304s among them answered from the cache, and
+    // requests sent without one
+    private final AtomicLong conditionalRequests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong unconditionalRequests = new AtomicLong();
+    
+    public GitHubResponseCache(TriageConfiguration config) {
+        this.maxEntries = config.getGithub().getResponseCacheSize();
+        // Access-ordered map so the least recently used URL is evicted first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > GitHubResponseCache.this.maxEntries;
+            }
+        };
+    }
+    
+    // Called once for every request about to be sent, which is conditional if an entry is found
+    public Entry lookup(String url) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(url);
+        }
+        if (entry != null) {
+            conditionalRequests.incrementAndGet();
+        } else {
+            unconditionalRequests.incrementAndGet();
+        }
+        return entry;
+    }
+    
+    public void store(String url, HttpHeaders headers, Object body) {
+        if (maxEntries <= 0 || body == null) {
+            return;
+        }
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (etag == null && lastModified == null) {
+            return; // Nothing to revalidate with
+        }
+        synchronized (entries) {
+            entries.put(url, new Entry(etag, lastModified, HttpHeaders.readOnlyHttpHeaders(headers), copyOf(body)));
+        }
+    }
+    
+    public void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        long conditional = conditionalRequests.get();
+        stats.put("conditionalRequests", conditional);
+        stats.put("notModified", notModified.get());
+        stats.put("unconditionalRequests", unconditionalRequests.get());
+        stats.put("notModifiedRate", conditional == 0 ? 0.0 : (double) notModified.get() / conditional);
+        return stats;
+    }
+    
+    private static Object copyOf(Object body) {
+        if (body instanceof GitHubIssue issue) {
+            return issue.copy();
+        }
+        if (body instanceof IssueSearchResult result) {
+            IssueSearchResult copy = new IssueSearchResult(result.getTotalCount(), copyOf(result.getIssues()));
+            copy.setIncompleteResults(result.isIncompleteResults());
+            return copy;
+        }
+        if (body instanceof List<?> list) {
+            return copyOf(list);
+        }
+        return body; // Strings, which cannot change
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> copyOf(List<T> list) {
+        List<T> copy = new ArrayList<>(list.size());
+        for (T element : list) {
+            copy.add((T) copyOf((Object) element));
+        }
+        return copy;
+    }
+    
+    public static class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final HttpHeaders headers;
+        private final Object body;
+        
+        Entry(String etag, String lastModified, HttpHeaders headers, Object body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+            this.body = body;
+        }
+        
+        public String getEtag() {
+            return etag;
+        }
+        
+        public String getLastModified() {
+            return lastModified;
+        }
+        
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+        
+        // A copy for each caller
+        public Object getBody() {
+            return copyOf(body);
+        }
+    }
+}
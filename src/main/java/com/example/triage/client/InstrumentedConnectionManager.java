@@ -0,0 +1,127 @@
+package com.example.triage.client;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delegates to a pooling connection manager and records how long requests wait for a
+// connection and how often a pooled connection is reused instead of opening a new one
+public class InstrumentedConnectionManager implements HttpClientConnectionManager {
+    
+    private final PoolingHttpClientConnectionManager delegate;
+    
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong reusedLeases = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong totalLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    
+    public InstrumentedConnectionManager(PoolingHttpClientConnectionManager delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        long startedAt = System.nanoTime();
+        LeaseRequest request = delegate.lease(id, route, requestTimeout, state);
+        
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                try {
+                    ConnectionEndpoint endpoint = request.get(timeout);
+                    recordLease(System.nanoTime() - startedAt, endpoint.isConnected());
+                    return endpoint;
+                } catch (TimeoutException e) {
+                    leaseTimeouts.incrementAndGet();
+                    throw e;
+                }
+            }
+            
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+    
+    @Override
+    public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+        delegate.release(endpoint, newState, validDuration);
+    }
+    
+    @Override
+    public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+        connectionsOpened.incrementAndGet();
+        delegate.connect(endpoint, connectTimeout, context);
+    }
+    
+    @Override
+    public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+        delegate.upgrade(endpoint, context);
+    }
+    
+    @Override
+    public void close(CloseMode closeMode) {
+        delegate.close(closeMode);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+    
+    public void closeIdle(TimeValue idleTime) {
+        delegate.closeIdle(idleTime);
+    }
+    
+    public void closeExpired() {
+        delegate.closeExpired();
+    }
+    
+    public Map<String, Object> getStatistics() {
+        PoolStats pool = delegate.getTotalStats();
+        long leaseCount = leases.get();
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("leased", pool.getLeased());
+        stats.put("pending", pool.getPending());
+        stats.put("available", pool.getAvailable());
+        stats.put("maxTotal", pool.getMax());
+        stats.put("maxPerRoute", delegate.getDefaultMaxPerRoute());
+        stats.put("leases", leaseCount);
+        stats.put("leaseTimeouts", leaseTimeouts.get());
+        stats.put("connectionsOpened", connectionsOpened.get());
+        stats.put("reuseRate", leaseCount == 0 ? 0.0 : (double) reusedLeases.get() / leaseCount);
+        stats.put("avgLeaseWaitMs", leaseCount == 0 ? 0.0 :
+            (double) TimeUnit.NANOSECONDS.toMicros(totalLeaseWaitNanos.get()) / leaseCount / 1000);
+        stats.put("maxLeaseWaitMs", TimeUnit.NANOSECONDS.toMillis(maxLeaseWaitNanos.get()));
+        return stats;
+    }
+    
+    private void recordLease(long waitNanos, boolean reused) {
+        leases.incrementAndGet();
+        if (reused) {
+            reusedLeases.incrementAndGet();
+        }
+        totalLeaseWaitNanos.addAndGet(waitNanos);
+        maxLeaseWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.triage.config;
 
+import com.example.triage.model.IssueCategory;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "triage")
 @Validated
 public class TriageConfiguration {
@@ -21,6 +25,22 @@ public class TriageConfiguration {
     @NotBlank
     private String schedule;
     
+    private Mirror mirror = new Mirror();
+    
+    private RateLimit rateLimit = new RateLimit();
+    
+    private ConnectionPool connectionPool = new ConnectionPool();
+    
+    private Webhook webhook = new Webhook();
+    
+    private LlmCache llmCache = new LlmCache();
+    
+    private Batch batch = new Batch();
+    
+    private Cascade cascade = new Cascade();
+    
+    private KnowledgeBase knowledgeBase = new KnowledgeBase();
+    
     public GitHub getGithub() {
         return github;
     }
@@ -53,6 +73,70 @@ public class TriageConfiguration {
         this.schedule = schedule;
     }
     
+    public Mirror getMirror() {
+        return mirror;
+    }
+    
+    public void setMirror(Mirror mirror) {
+        this.mirror = mirror;
+    }
+    
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+    
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+    
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+    
+    public void setConnectionPool(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+    
+    public Webhook getWebhook() {
+        return webhook;
+    }
+    
+    public void setWebhook(Webhook webhook) {
+        this.webhook = webhook;
+    }
+    
+    public LlmCache getLlmCache() {
+        return llmCache;
+    }
+    
+    public void setLlmCache(LlmCache llmCache) {
+        this.llmCache = llmCache;
+    }
+    
+    public Batch getBatch() {
+        return batch;
+    }
+    
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+    
+    public Cascade getCascade() {
+        return cascade;
+    }
+    
+    public void setCascade(Cascade cascade) {
+        this.cascade = cascade;
+    }
+    
+    public KnowledgeBase getKnowledgeBase() {
+        return knowledgeBase;
+    }
+    
+    public void setKnowledgeBase(KnowledgeBase knowledgeBase) {
+        this.knowledgeBase = knowledgeBase;
+    }
+    
     @Validated
     public static class GitHub {
         @NotBlank
@@ -64,6 +148,19 @@ public class TriageConfiguration {
         @NotBlank
         private String token;
         
+        private int responseCacheSize = 500;
+        
+        private int pageParallelism = 4;
+        
+        private FetchMode fetchMode = FetchMode.GRAPHQL;
+        
+        // Filter triaged issues with the search API instead of listing and filtering locally
+        private boolean searchEnabled = true;
+        
+        private String apiBaseUrl = "https://api.github.com";
+        
+        private int asyncMaxInFlight = 32;
+        
         public String getOwner() {
             return owner;
         }
@@ -87,6 +184,54 @@ public class TriageConfiguration {
         public void setToken(String token) {
             this.token = token;
         }
+        
+        public int getResponseCacheSize() {
+            return responseCacheSize;
+        }
+        
+        public void setResponseCacheSize(int responseCacheSize) {
+            this.responseCacheSize = responseCacheSize;
+        }
+        
+        public int getPageParallelism() {
+            return pageParallelism;
+        }
+        
+        public void setPageParallelism(int pageParallelism) {
+            this.pageParallelism = pageParallelism;
+        }
+        
+        public FetchMode getFetchMode() {
+            return fetchMode;
+        }
+        
+        public void setFetchMode(FetchMode fetchMode) {
+            this.fetchMode = fetchMode;
+        }
+        
+        public boolean isSearchEnabled() {
+            return searchEnabled;
+        }
+        
+        public void setSearchEnabled(boolean searchEnabled) {
+            this.searchEnabled = searchEnabled;
+        }
+        
+        public String getApiBaseUrl() {
+            return apiBaseUrl;
+        }
+        
+        public void setApiBaseUrl(String apiBaseUrl) {
+            this.apiBaseUrl = apiBaseUrl;
+        }
+        
+        public int getAsyncMaxInFlight() {
+            return asyncMaxInFlight;
+        }
+        
+        public void setAsyncMaxInFlight(int asyncMaxInFlight) {
+            this.asyncMaxInFlight = asyncMaxInFlight;
+        }
     }
     
     @Validated
@@ -103,6 +248,14 @@ public class TriageConfiguration {
         @NotNull
         private Integer maxRetries;
         
+        private ClassificationMode classificationMode = ClassificationMode.SINGLE_PASS;
+        
+        // Deadline of each concurrent multi-call stage after the classification
+        private long stageTimeoutMs = 30000;
+        
+        // Estimated input tokens per prompt, shared between body, comments and knowledge base context
+        private int promptTokenBudget = 8000;
+        
         public String getProvider() {
             return provider;
         }
@@ -134,5 +287,441 @@ public class TriageConfiguration {
         public void setMaxRetries(Integer maxRetries) {
             this.maxRetries = maxRetries;
         }
+        
+        public ClassificationMode getClassificationMode() {
+            return classificationMode;
+        }
+        
+        public void setClassificationMode(ClassificationMode classificationMode) {
+            this.classificationMode = classificationMode;
+        }
+        
+        public long getStageTimeoutMs() {
+            return stageTimeoutMs;
+        }
+        
+        public void setStageTimeoutMs(long stageTimeoutMs) {
+            this.stageTimeoutMs = stageTimeoutMs;
+        }
+        
+        public int getPromptTokenBudget() {
+            return promptTokenBudget;
+        }
+        
+        public void setPromptTokenBudget(int promptTokenBudget) {
+            this.promptTokenBudget = promptTokenBudget;
+        }
+    }
+    
+    public enum ClassificationMode {
+        // Category, response, reproducibility and duplicates from one structured response
+        SINGLE_PASS,
+        // One model call per field group
+        MULTI_CALL
+    }
+    
+    public enum EmbedderType {
+        // Feature hashing of words and word pairs; deterministic and offline
+        HASHING,
+        // The Spring AI EmbeddingModel bean, such as Bedrock Titan embeddings
+        MODEL
+    }
+    
+    public enum FetchMode {
+        // Issue listing plus one comments request per issue
+        REST,
+        // Issues, labels and comments in one paginated GraphQL query
+        GRAPHQL
+    }
+    
+    public static class Mirror {
+        private boolean enabled = true;
+        
+        private long syncIntervalMs = 60000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public long getSyncIntervalMs() {
+            return syncIntervalMs;
+        }
+        
+        public void setSyncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+        }
+    }
+    
+    public static class RateLimit {
+        private double githubMaxRequestsPerSecond = 10;
+        
+        // Below this share of the hourly budget, requests are spread over the rest of the window
+        private double githubReserveFraction = 0.1;
+        
+        private double bedrockMaxRequestsPerSecond = 2;
+        
+        public double getGithubMaxRequestsPerSecond() {
+            return githubMaxRequestsPerSecond;
+        }
+        
+        public void setGithubMaxRequestsPerSecond(double githubMaxRequestsPerSecond) {
+            this.githubMaxRequestsPerSecond = githubMaxRequestsPerSecond;
+        }
+        
+        public double getGithubReserveFraction() {
+            return githubReserveFraction;
+        }
+        
+        public void setGithubReserveFraction(double githubReserveFraction) {
+            this.githubReserveFraction = githubReserveFraction;
+        }
+        
+        public double getBedrockMaxRequestsPerSecond() {
+            return bedrockMaxRequestsPerSecond;
+        }
+        
+        public void setBedrockMaxRequestsPerSecond(double bedrockMaxRequestsPerSecond) {
+            this.bedrockMaxRequestsPerSecond = bedrockMaxRequestsPerSecond;
+        }
+    }
+    
+    public static class ConnectionPool {
+        private int maxTotal = 50;
+        
+        private int maxPerRoute = 20;
+        
+        private long connectTimeoutMs = 5000;
+        
+        private long socketTimeoutMs = 30000;
+        
+        // How long a request may wait for a free pooled connection
+        private long requestTimeoutMs = 10000;
+        
+        private long idleTimeoutMs = 30000;
+        
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+        
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+        
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+        
+        public void setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+        }
+        
+        public long getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+        
+        public void setConnectTimeoutMs(long connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+        
+        public long getSocketTimeoutMs() {
+            return socketTimeoutMs;
+        }
+        
+        public void setSocketTimeoutMs(long socketTimeoutMs) {
+            this.socketTimeoutMs = socketTimeoutMs;
+        }
+        
+        public long getRequestTimeoutMs() {
+            return requestTimeoutMs;
+        }
+        
+        public void setRequestTimeoutMs(long requestTimeoutMs) {
+            this.requestTimeoutMs = requestTimeoutMs;
+        }
+        
+        public long getIdleTimeoutMs() {
+            return idleTimeoutMs;
+        }
+        
+        public void setIdleTimeoutMs(long idleTimeoutMs) {
+            this.idleTimeoutMs = idleTimeoutMs;
+        }
+    }
+    
+    public static class Webhook {
+        // Shared secret configured on the GitHub webhook; deliveries are rejected without it
+        private String secret;
+        
+        // An issue is triaged once no event arrived for it for this long...
+        private long debounceMs = 10000;
+        
+        // ...or at the latest this long after its first queued event
+        private long maxDelayMs = 120000;
+        
+        private long drainIntervalMs = 1000;
+        
+        public String getSecret() {
+            return secret;
+        }
+        
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+        
+        public long getDebounceMs() {
+            return debounceMs;
+        }
+        
+        public void setDebounceMs(long debounceMs) {
+            this.debounceMs = debounceMs;
+        }
+        
+        public long getMaxDelayMs() {
+            return maxDelayMs;
+        }
+        
+        public void setMaxDelayMs(long maxDelayMs) {
+            this.maxDelayMs = maxDelayMs;
+        }
+        
+        public long getDrainIntervalMs() {
+            return drainIntervalMs;
+        }
+        
+        public void setDrainIntervalMs(long drainIntervalMs) {
+            this.drainIntervalMs = drainIntervalMs;
+        }
+    }
+    
+    public static class LlmCache {
+        private boolean enabled = true;
+        
+        private String path = "./llm-cache";
+        
+        private int maxEntries = 10000;
+        
+        private long maxBytes = 256L * 1024 * 1024;
+        
+        private long ttlHours = 168;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public void setPath(String path) {
+            this.path = path;
+        }
+        
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+        
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+        
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+        
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+        
+        public long getTtlHours() {
+            return ttlHours;
+        }
+        
+        public void setTtlHours(long ttlHours) {
+            this.ttlHours = ttlHours;
+        }
+    }
+    
+    public static class Batch {
+        private int maxConcurrency = 8;
+        
+        private int initialConcurrency = 2;
+        
+        // An issue taking this many times the usual latency counts as congestion
+        private double latencySpikeFactor = 2.5;
+        
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+        
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+        
+        public int getInitialConcurrency() {
+            return initialConcurrency;
+        }
+        
+        public void setInitialConcurrency(int initialConcurrency) {
+            this.initialConcurrency = initialConcurrency;
+        }
+        
+        public double getLatencySpikeFactor() {
+            return latencySpikeFactor;
+        }
+        
+        public void setLatencySpikeFactor(double latencySpikeFactor) {
+            this.latencySpikeFactor = latencySpikeFactor;
+        }
+    }
+    
+    public static class Cascade {
+        // Quick single-call classification first; the full pipeline only for issues that need it
+        private boolean enabled = false;
+        
+        // Quick results below this confidence are classified again by the full pipeline
+        private int confidenceThreshold = 85;
+        
+        // Categories whose reproducibility the full pipeline assesses
+        private List<IssueCategory> escalateCategories = new ArrayList<>(List.of(IssueCategory.BUG, IssueCategory.USABILITY));
+        
+        // Prices of the model per 1000 input and output tokens, for the estimated cost reported per run
+        private double costPer1kInputTokens = 0.003;
+        private double costPer1kOutputTokens = 0.015;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getConfidenceThreshold() {
+            return confidenceThreshold;
+        }
+        
+        public void setConfidenceThreshold(int confidenceThreshold) {
+            this.confidenceThreshold = confidenceThreshold;
+        }
+        
+        public List<IssueCategory> getEscalateCategories() {
+            return escalateCategories;
+        }
+        
+        public void setEscalateCategories(List<IssueCategory> escalateCategories) {
+            this.escalateCategories = escalateCategories;
+        }
+        
+        public double getCostPer1kInputTokens() {
+            return costPer1kInputTokens;
+        }
+        
+        public void setCostPer1kInputTokens(double costPer1kInputTokens) {
+            this.costPer1kInputTokens = costPer1kInputTokens;
+        }
+        
+        public double getCostPer1kOutputTokens() {
+            return costPer1kOutputTokens;
+        }
+        
+        public void setCostPer1kOutputTokens(double costPer1kOutputTokens) {
+            this.costPer1kOutputTokens = costPer1kOutputTokens;
+        }
+    }
+    
+    public static class KnowledgeBase {
+        // Past issues put in a classification prompt, picked by similarity to the issue
+        private int similarIssues = 8;
+        // Past issues the model is asked to confirm as duplicates, and the TF-IDF similarity they need
+        private int duplicateCandidates = 5;
+        private double duplicateThreshold = 0.35;
+        // Semantic index: embedding source and HNSW graph parameters
+        private EmbedderType embedder = EmbedderType.HASHING;
+        private int embeddingDimensions = 256;
+        private int hnswM = 16;
+        private int hnswEfConstruction = 100;
+        private int hnswEfSearch = 64;
+        // Reload the knowledge base when its file is replaced outside this instance
+        private boolean hotReload = true;
+        
+        public int getSimilarIssues() {
+            return similarIssues;
+        }
+        
+        public void setSimilarIssues(int similarIssues) {
+            this.similarIssues = similarIssues;
+        }
+        
+        public int getDuplicateCandidates() {
+            return duplicateCandidates;
+        }
+        
+        public void setDuplicateCandidates(int duplicateCandidates) {
+            this.duplicateCandidates = duplicateCandidates;
+        }
+        
+        public double getDuplicateThreshold() {
+            return duplicateThreshold;
+        }
+        
+        public void setDuplicateThreshold(double duplicateThreshold) {
+            this.duplicateThreshold = duplicateThreshold;
+        }
+        
+        public EmbedderType getEmbedder() {
+            return embedder;
+        }
+        
+        public void setEmbedder(EmbedderType embedder) {
+            this.embedder = embedder;
+        }
+        
+        public int getEmbeddingDimensions() {
+            return embeddingDimensions;
+        }
+        
+        public void setEmbeddingDimensions(int embeddingDimensions) {
+            this.embeddingDimensions = embeddingDimensions;
+        }
+        
+        public int getHnswM() {
+            return hnswM;
+        }
+        
+        public void setHnswM(int hnswM) {
+            this.hnswM = hnswM;
+        }
+        
+        public int getHnswEfConstruction() {
+            return hnswEfConstruction;
+        }
+        
+        public void setHnswEfConstruction(int hnswEfConstruction) {
+            this.hnswEfConstruction = hnswEfConstruction;
+        }
+        
+        public int getHnswEfSearch() {
+            return hnswEfSearch;
+        }
+        
+        public void setHnswEfSearch(int hnswEfSearch) {
+            this.hnswEfSearch = hnswEfSearch;
+        }
+        
+        public boolean isHotReload() {
+            return hotReload;
+        }
+        
+        public void setHotReload(boolean hotReload) {
+            this.hotReload = hotReload;
+        }
     }
 }
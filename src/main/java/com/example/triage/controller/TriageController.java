@@ -5,15 +5,26 @@ import com.example.triage.model.IssueCategory;
 import com.example.triage.model.KnowledgeBase;
 import com.example.triage.model.TriageResult;
 import com.example.triage.service.AIClassificationService;
+import com.example.triage.service.BatchTriageEngine;
+import com.example.triage.service.HnswVectorIndex;
+import com.example.triage.service.IssueMirrorService;
+import com.example.triage.service.KnowledgeBaseBuildJob;
+import com.example.triage.service.KnowledgeBaseBuildRunner;
 import com.example.triage.service.KnowledgeBaseService;
+import com.example.triage.service.KnowledgeBaseSnapshot;
+import com.example.triage.service.SimilarIssue;
 import com.example.triage.service.TriageReportService;
+import com.example.triage.service.TriageService;
 import com.example.triage.service.QuickTriageService;
+import com.example.triage.client.BedrockRateLimiter;
+import com.example.triage.client.BedrockResponseCache;
 import com.example.triage.client.GitHubClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,17 +41,35 @@ public class TriageController {
     private final KnowledgeBaseService knowledgeBaseService;
     private final TriageReportService triageReportService;
     private final QuickTriageService quickTriageService;
+    private final IssueMirrorService issueMirrorService;
+    private final BedrockRateLimiter bedrockRateLimiter;
+    private final BedrockResponseCache bedrockResponseCache;
+    private final BatchTriageEngine batchTriageEngine;
+    private final TriageService triageService;
+    private final KnowledgeBaseBuildRunner knowledgeBaseBuildRunner;
     
     public TriageController(GitHubClient gitHubClient, 
                            AIClassificationService classificationService,
                            KnowledgeBaseService knowledgeBaseService,
                            TriageReportService triageReportService,
-                           QuickTriageService quickTriageService) {
+                           QuickTriageService quickTriageService,
+                           IssueMirrorService issueMirrorService,
+                           BedrockRateLimiter bedrockRateLimiter,
+                           BedrockResponseCache bedrockResponseCache,
+                           BatchTriageEngine batchTriageEngine,
+                           TriageService triageService,
+                           KnowledgeBaseBuildRunner knowledgeBaseBuildRunner) {
         this.gitHubClient = gitHubClient;
         this.classificationService = classificationService;
         this.knowledgeBaseService = knowledgeBaseService;
         this.triageReportService = triageReportService;
         this.quickTriageService = quickTriageService;
+        this.issueMirrorService = issueMirrorService;
+        this.bedrockRateLimiter = bedrockRateLimiter;
+        this.bedrockResponseCache = bedrockResponseCache;
+        this.batchTriageEngine = batchTriageEngine;
+        this.triageService = triageService;
+        this.knowledgeBaseBuildRunner = knowledgeBaseBuildRunner;
         
         // Set knowledge base service and github client in classification service
         classificationService.setKnowledgeBaseService(knowledgeBaseService);
@@ -53,13 +82,14 @@ public class TriageController {
             @RequestParam(defaultValue = "0") int offset) {
         logger.info("Fetching {} pending-triage issues with offset {}", limit, offset);
         
-        // Fetch all pending issues to get total count (set high limit to get all)
-        List<GitHubIssue> allIssues = gitHubClient.fetchPendingTriageIssues(10000);
+        // Served from the local issue mirror, so paging costs no GitHub calls
+        List<GitHubIssue> allIssues = issueMirrorService.getPendingIssues();
         int totalCount = allIssues.size();
         
         // Get paginated subset
-        int endIndex = Math.min(offset + limit, totalCount);
-        List<GitHubIssue> paginatedIssues = allIssues.subList(offset, endIndex);
+        int startIndex = Math.min(Math.max(offset, 0), totalCount);
+        int endIndex = Math.min(startIndex + limit, totalCount);
+        List<GitHubIssue> paginatedIssues = allIssues.subList(startIndex, endIndex);
         
         Map<String, Object> response = new HashMap<>();
         response.put("issues", paginatedIssues);
@@ -75,8 +105,8 @@ public class TriageController {
     public ResponseEntity<Map<String, Object>> getStatistics() {
         logger.info("Fetching triage statistics");
         try {
-            // Fetch all pending issues (set high limit to get all)
-            List<GitHubIssue> allIssues = gitHubClient.fetchPendingTriageIssues(10000);
+            // All pending issues from the local issue mirror
+            List<GitHubIssue> allIssues = issueMirrorService.getPendingIssues();
             
             Map<String, Object> stats = new HashMap<>();
             stats.put("totalPending", allIssues.size());
@@ -117,6 +147,7 @@ public class TriageController {
             }
             
             stats.put("byCategory", categoryCount);
+            stats.put("lastSyncedAt", issueMirrorService.getLastSyncedAt());
             
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
@@ -125,18 +156,36 @@ public class TriageController {
         }
     }
     
+    @GetMapping("/github/stats")
+    public ResponseEntity<Map<String, Object>> getGitHubStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("responseCache", gitHubClient.getResponseCacheStatistics());
+        stats.put("rateLimit", gitHubClient.getRateLimitStatistics());
+        stats.put("connectionPool", gitHubClient.getConnectionPoolStatistics());
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/ai/stats")
+    public ResponseEntity<Map<String, Object>> getAiStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rateLimit", bedrockRateLimiter.getStatistics());
+        stats.put("stages", classificationService.getStageStatistics());
+        stats.put("prompts", classificationService.getPromptStatistics());
+        stats.put("responseCache", bedrockResponseCache.getStatistics());
+        stats.put("lastBatch", batchTriageEngine.getLastRunSummary());
+        stats.put("lastCascade", triageService.getLastCascadeSummary());
+        return ResponseEntity.ok(stats);
+    }
+    
     @PostMapping("/classify/{issueNumber}")
     public ResponseEntity<TriageResult> classifyIssue(
             @PathVariable int issueNumber,
             @RequestParam(required = false) String model) {
         logger.info("Classifying issue #{} with model: {}", issueNumber, model);
         try {
-            // Fetch the specific issue
-            List<GitHubIssue> issues = gitHubClient.fetchPendingTriageIssues(100);
-            GitHubIssue issue = issues.stream()
-                    .filter(i -> i.getNumber() == issueNumber)
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Issue not found: " + issueNumber));
+            // Look the issue up in the mirror, falling back to GitHub for issues outside it
+            GitHubIssue issue = issueMirrorService.findPendingIssue(issueNumber)
+                    .orElseGet(() -> gitHubClient.fetchIssueById(issueNumber));
             
             // Classify the issue with optional model override
             TriageResult result = classificationService.classifyIssue(issue, model);
@@ -150,22 +199,32 @@ public class TriageController {
         }
     }
     
+    // Starts a build in the background; poll the returned job for progress
     @PostMapping("/knowledge-base/build")
     public ResponseEntity<Map<String, Object>> buildKnowledgeBase(
-            @RequestParam(defaultValue = "2000") int maxIssues) {
-        logger.info("Building knowledge base from {} issues", maxIssues);
+            @RequestParam(defaultValue = "2000") int maxIssues,
+            @RequestParam(defaultValue = "false") boolean full) {
+        logger.info("Building knowledge base from {} issues (full: {})", maxIssues, full);
         try {
-            KnowledgeBase kb = knowledgeBaseService.buildKnowledgeBase(maxIssues);
+            KnowledgeBaseBuildJob job = knowledgeBaseBuildRunner.start(maxIssues, full);
             
-            Map<String, Object> response = new HashMap<>();
+            Map<String, Object> response = job.toMap();
             response.put("success", true);
-            response.put("totalIssuesAnalyzed", kb.getTotalIssuesAnalyzed());
-            response.put("createdAt", kb.getCreatedAt());
-            response.put("message", "Knowledge base built successfully");
+            response.put("progressUrl", "/api/triage/knowledge-base/build/" + job.getId());
+            response.put("message", "Knowledge base build started");
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("error", e.getMessage());
+            KnowledgeBaseBuildJob active = knowledgeBaseBuildRunner.getActiveJob();
+            if (active != null) {
+                error.put("activeJob", active.toMap());
+            }
+            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
-            logger.error("Error building knowledge base: {}", e.getMessage());
+            logger.error("Error starting knowledge base build: {}", e.getMessage());
             Map<String, Object> error = new HashMap<>();
             error.put("success", false);
             error.put("error", e.getMessage());
@@ -173,22 +232,51 @@ public class TriageController {
         }
     }
     
+    @GetMapping("/knowledge-base/build/{jobId}")
+    public ResponseEntity<Map<String, Object>> getKnowledgeBaseBuild(@PathVariable String jobId) {
+        KnowledgeBaseBuildJob job = knowledgeBaseBuildRunner.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.toMap());
+    }
+    
+    @PostMapping("/knowledge-base/build/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelKnowledgeBaseBuild(@PathVariable String jobId) {
+        KnowledgeBaseBuildJob job = knowledgeBaseBuildRunner.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<String, Object> response = job.toMap();
+        response.put("success", knowledgeBaseBuildRunner.cancel(jobId));
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/knowledge-base/status")
     public ResponseEntity<Map<String, Object>> getKnowledgeBaseStatus() {
         try {
-            KnowledgeBase kb = knowledgeBaseService.getKnowledgeBase();
+            KnowledgeBaseSnapshot snapshot = knowledgeBaseService.getSnapshot();
+            KnowledgeBase kb = snapshot.getKnowledgeBase();
             
             Map<String, Object> status = new HashMap<>();
-            status.put("exists", knowledgeBaseService.hasKnowledgeBase());
+            status.put("exists", !snapshot.isEmpty());
+            status.put("version", snapshot.getVersion());
             status.put("totalIssuesAnalyzed", kb.getTotalIssuesAnalyzed());
             status.put("lastUpdated", kb.getLastUpdated());
             status.put("createdAt", kb.getCreatedAt());
+            status.put("issuesUpdatedThrough", kb.getIssuesUpdatedThrough());
             
             Map<String, Integer> distribution = new HashMap<>();
             for (IssueCategory category : IssueCategory.values()) {
                 distribution.put(category.name(), kb.getIssuesByCategory(category).size());
             }
             status.put("categoryDistribution", distribution);
+            status.put("semanticIndex", knowledgeBaseService.getSemanticIndexStatus());
+            KnowledgeBaseBuildJob activeBuild = knowledgeBaseBuildRunner.getActiveJob();
+            if (activeBuild != null) {
+                status.put("activeBuild", activeBuild.toMap());
+            }
             
             return ResponseEntity.ok(status);
         } catch (Exception e) {
@@ -197,12 +285,57 @@ public class TriageController {
         }
     }
     
+    // Knowledge base issues ranked by similarity to an issue, with their scores: by TF-IDF, or by
+    // embedding similarity from the semantic index
+    @GetMapping("/knowledge-base/similar/{issueNumber}")
+    public ResponseEntity<List<Map<String, Object>>> findSimilarIssues(
+            @PathVariable int issueNumber,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean semantic) {
+        try {
+            GitHubIssue issue = issueMirrorService.findPendingIssue(issueNumber)
+                    .orElseGet(() -> gitHubClient.fetchIssueById(issueNumber));
+            
+            List<Map<String, Object>> matches = new ArrayList<>();
+            if (semantic) {
+                List<HnswVectorIndex.Match> semanticMatches = knowledgeBaseService.findSemanticallySimilar(issue, limit);
+                if (semanticMatches == null) {
+                    return ResponseEntity.status(org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE).build();
+                }
+                for (HnswVectorIndex.Match match : semanticMatches) {
+                    KnowledgeBase.IssueSummary summary = knowledgeBaseService.getIssueSummary(match.getNumber());
+                    if (summary != null) {
+                        matches.add(similarIssueEntry(summary, match.getScore()));
+                    }
+                }
+            } else {
+                for (SimilarIssue match : knowledgeBaseService.findSimilar(issue, limit)) {
+                    matches.add(similarIssueEntry(match.getIssue(), match.getScore()));
+                }
+            }
+            return ResponseEntity.ok(matches);
+        } catch (Exception e) {
+            logger.error("Error finding issues similar to #{}: {}", issueNumber, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    private Map<String, Object> similarIssueEntry(KnowledgeBase.IssueSummary summary, double score) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("number", summary.getNumber());
+        entry.put("title", summary.getTitle());
+        entry.put("category", summary.getCategory());
+        entry.put("score", score);
+        return entry;
+    }
+    
     @PostMapping("/categorize-all")
     public ResponseEntity<Map<String, Object>> categorizeAllPendingIssues() {
         logger.info("Starting bulk categorization of first 10 pending-triage issues");
         try {
-            // Fetch only first 10 pending issues
-            List<GitHubIssue> issues = gitHubClient.fetchPendingTriageIssues(10);
+            // Take only the first 10 pending issues
+            List<GitHubIssue> pendingIssues = issueMirrorService.getPendingIssues();
+            List<GitHubIssue> issues = pendingIssues.subList(0, Math.min(pendingIssues.size(), 10));
             int totalIssues = issues.size();
             
             if (totalIssues == 0) {
@@ -263,6 +396,7 @@ public class TriageController {
             
             // Update labels on GitHub
             gitHubClient.updateIssueLabels(issueNumber, labelsToAdd, labelsToRemove);
+            issueMirrorService.removeIssue(issueNumber);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
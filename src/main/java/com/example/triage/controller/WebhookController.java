@@ -0,0 +1,122 @@
+package com.example.triage.controller;
+
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.service.WebhookTriageQueue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/webhooks")
+public class WebhookController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    
+    // Issue actions that can change what the triage would decide
+    private static final Set<String> ISSUE_ACTIONS = Set.of(
+        "opened", "edited", "reopened", "labeled", "unlabeled", "closed", "transferred");
+    private static final Set<String> COMMENT_ACTIONS = Set.of("created", "edited");
+    
+    private final TriageConfiguration config;
+    private final WebhookTriageQueue webhookTriageQueue;
+    private final ObjectMapper objectMapper;
+    
+    public WebhookController(TriageConfiguration config, WebhookTriageQueue webhookTriageQueue,
+                             ObjectMapper objectMapper) {
+        this.config = config;
+        this.webhookTriageQueue = webhookTriageQueue;
+        this.objectMapper = objectMapper;
+    }
+    
+    @PostMapping("/github")
+    public ResponseEntity<Map<String, Object>> receiveGitHubEvent(
+            @RequestHeader(value = "X-GitHub-Event", required = false) String event,
+            @RequestHeader(value = "X-GitHub-Delivery", required = false) String deliveryId,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            @RequestBody(required = false) byte[] payload) {
+        Map<String, Object> response = new HashMap<>();
+        byte[] body = payload != null ? payload : new byte[0];
+        
+        if (!isValidSignature(body, signature)) {
+            logger.warn("Rejected webhook delivery {} with missing or invalid signature", deliveryId);
+            response.put("error", "Invalid signature");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            String action = root.path("action").asText();
+            JsonNode issue = root.path("issue");
+            
+            boolean relevant = ("issues".equals(event) && ISSUE_ACTIONS.contains(action)) ||
+                // Comments on pull requests arrive as issue_comment events too
+                ("issue_comment".equals(event) && COMMENT_ACTIONS.contains(action) && !issue.has("pull_request"));
+            
+            if (relevant && issue.hasNonNull("number")) {
+                long issueNumber = issue.get("number").asLong();
+                webhookTriageQueue.enqueue(issueNumber);
+                logger.debug("Queued issue #{} for triage ({} {})", issueNumber, event, action);
+                response.put("queued", issueNumber);
+                return ResponseEntity.accepted().body(response);
+            }
+            
+            response.put("ignored", event + (action.isEmpty() ? "" : "." + action));
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error handling webhook delivery {}: {}", deliveryId, e.getMessage());
+            response.put("error", "Malformed payload");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getWebhookStats() {
+        return ResponseEntity.ok(webhookTriageQueue.getStatistics());
+    }
+    
+    // X-Hub-Signature-256 is the hex HMAC-SHA256 of the raw body keyed with the webhook secret
+    private boolean isValidSignature(byte[] body, String signature) {
+        String secret = config.getWebhook().getSecret();
+        if (secret == null || secret.isBlank()) {
+            logger.warn("GITHUB_WEBHOOK_SECRET is not set; webhook deliveries are rejected");
+            return false;
+        }
+        if (signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = mac.doFinal(body);
+            byte[] actual = HexFormat.of().parseHex(signature.substring(SIGNATURE_PREFIX.length()));
+            // Constant-time comparison
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false; // Not valid hex
+        } catch (Exception e) {
+            logger.error("Could not verify webhook signature: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.triage.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class GitHubIssue {
@@ -16,11 +18,36 @@ public class GitHubIssue {
     @JsonProperty("created_at")
     private LocalDateTime createdAt;
     
+    @JsonProperty("updated_at")
+    private LocalDateTime updatedAt;
+    
+    private String state;
+    
     @JsonProperty("html_url")
     private String url;
     
     private List<Label> labels;
     
+    // Maintainer comments, only filled in by the *WithComments fetches
+    @JsonIgnore
+    private String orgMemberComments;
+    
+    // A copy that can be changed, e.g. given its comments, without changing this one
+    public GitHubIssue copy() {
+        GitHubIssue copy = new GitHubIssue();
+        copy.number = number;
+        copy.title = title;
+        copy.body = body;
+        copy.user = user;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.state = state;
+        copy.url = url;
+        copy.labels = labels != null ? new ArrayList<>(labels) : null;
+        copy.orgMemberComments = orgMemberComments;
+        return copy;
+    }
+    
     public Long getNumber() {
         return number;
     }
@@ -65,6 +92,22 @@ public class GitHubIssue {
         this.createdAt = createdAt;
     }
     
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
     public String getUrl() {
         return url;
     }
@@ -81,6 +124,14 @@ public class GitHubIssue {
         this.labels = labels;
     }
     
+    public String getOrgMemberComments() {
+        return orgMemberComments;
+    }
+    
+    public void setOrgMemberComments(String orgMemberComments) {
+        this.orgMemberComments = orgMemberComments;
+    }
+    
     public static class User {
         private String login;
         
@@ -0,0 +1,49 @@
+package com.example.triage.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+public class IssueSearchResult {
+    
+    @JsonProperty("total_count")
+    private long totalCount;
+    
+    @JsonProperty("incomplete_results")
+    private boolean incompleteResults;
+    
+    @JsonProperty("items")
+    private List<GitHubIssue> issues = new ArrayList<>();
+    
+    public IssueSearchResult() {
+    }
+    
+    public IssueSearchResult(long totalCount, List<GitHubIssue> issues) {
+        this.totalCount = totalCount;
+        this.issues = issues;
+    }
+    
+    public long getTotalCount() {
+        return totalCount;
+    }
+    
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
+    }
+    
+    public boolean isIncompleteResults() {
+        return incompleteResults;
+    }
+    
+    public void setIncompleteResults(boolean incompleteResults) {
+        this.incompleteResults = incompleteResults;
+    }
+    
+    public List<GitHubIssue> getIssues() {
+        return issues;
+    }
+    
+    public void setIssues(List<GitHubIssue> issues) {
+        this.issues = issues;
+    }
+}
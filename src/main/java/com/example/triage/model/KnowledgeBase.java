@@ -1,66 +1,211 @@
 package com.example.triage.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
 
+// Issues are stored by column in one partition per category: issue numbers in an int[], labels as
+// ids into a shared label table, and titles, key terms, bodies and comments as ids into a text
+// arena. Summaries are built from the columns when they are read, so label names are held once
+// and no per-issue objects stay on the heap.
+@JsonIgnoreProperties(value = {"totalIssuesAnalyzed", "labelFrequency"}, allowGetters = true)
 public class KnowledgeBase {
     
+    private static final IssueCategory[] CATEGORIES = IssueCategory.values();
+    // A copy of a copy layers its texts over its original's; deeper than this, the live texts are copied into one
+    private static final int MAX_TEXT_LAYERS = 8;
+    
     private LocalDateTime createdAt;
     private LocalDateTime lastUpdated;
-    private int totalIssuesAnalyzed;
-    private Map<IssueCategory, List<IssueSummary>> categorizedIssues;
     private List<String> commonPatterns;
-    private Map<String, Integer> labelFrequency;
+    // Newest updated_at of the issues fetched so far; the next refresh fetches only issues changed since
+    private LocalDateTime issuesUpdatedThrough;
+    private final Map<IssueCategory, Partition> partitions = new EnumMap<>(IssueCategory.class);
+    private IssueIndex index = new IssueIndex();
+    private LabelTable labels = new LabelTable();
+    private TextArena text;
+    // Heap bytes of the texts of the issues in the knowledge base; the arena also holds those of
+    // issues removed since it was last compacted
+    private long liveTextBytes;
     
     public KnowledgeBase() {
-        this.createdAt = LocalDateTime.now();
-        this.lastUpdated = LocalDateTime.now();
-        this.categorizedIssues = new HashMap<>();
-        this.commonPatterns = new ArrayList<>();
-        this.labelFrequency = new HashMap<>();
-        
-        // Initialize categories
+        this(LocalDateTime.now(), LocalDateTime.now(), new ArrayList<>(), null, new TextArena());
+    }
+    
+    // For reading a saved knowledge base whose texts are in the given arena; its issues are
+    // added with appendIssue
+    public KnowledgeBase(LocalDateTime createdAt, LocalDateTime lastUpdated, List<String> commonPatterns,
+                         LocalDateTime issuesUpdatedThrough, TextArena text) {
+        this.createdAt = createdAt;
+        this.lastUpdated = lastUpdated;
+        this.commonPatterns = commonPatterns;
+        this.issuesUpdatedThrough = issuesUpdatedThrough;
+        this.text = text;
         for (IssueCategory category : IssueCategory.values()) {
-            categorizedIssues.put(category, new ArrayList<>());
+            partitions.put(category, new Partition());
+        }
+    }
+    
+    // For reading a knowledge base saved as JSON; the issue count and label frequencies follow from the issues
+    @JsonCreator
+    public KnowledgeBase(@JsonProperty("createdAt") LocalDateTime createdAt,
+                         @JsonProperty("lastUpdated") LocalDateTime lastUpdated,
+                         @JsonProperty("categorizedIssues") Map<IssueCategory, List<IssueSummary>> categorizedIssues,
+                         @JsonProperty("commonPatterns") List<String> commonPatterns,
+                         @JsonProperty("issuesUpdatedThrough") LocalDateTime issuesUpdatedThrough) {
+        this(createdAt, lastUpdated, commonPatterns != null ? commonPatterns : new ArrayList<>(),
+            issuesUpdatedThrough, new TextArena());
+        if (categorizedIssues != null) {
+            categorizedIssues.forEach((category, issues) -> issues.forEach(issue -> appendIssue(category, issue.getNumber(),
+                text.add(issue.getTitle()), text.add(issue.getKeyTerms()), text.add(issue.getBody()),
+                text.add(issue.getOrgMemberComments()), issue.getLabels())));
+        }
+    }
+    
+    // A copy to change without changing this one. The columns are copied; the texts are not, the
+    // copy reads them through an arena layered over this one's and adds its own texts there, so
+    // texts a copy adds and then drops, e.g. in a cancelled refresh, never stay in this arena.
+    public KnowledgeBase copy() {
+        KnowledgeBase copy = new KnowledgeBase(createdAt, lastUpdated,
+            commonPatterns != null ? new ArrayList<>(commonPatterns) : new ArrayList<>(), issuesUpdatedThrough,
+            text.layer());
+        partitions.forEach((category, partition) -> copy.partitions.put(category, partition.copy()));
+        copy.index = index.copy();
+        copy.labels = labels.copy();
+        copy.liveTextBytes = liveTextBytes;
+        if (copy.text.depth() > MAX_TEXT_LAYERS) {
+            copy.copyLiveTexts();
         }
+        return copy;
     }
     
+    // Adding an issue number that is already in the knowledge base replaces the earlier summary
     public void addIssue(IssueSummary summary) {
-        categorizedIssues.get(summary.getCategory()).add(summary);
-        totalIssuesAnalyzed++;
+        removeIssue(summary.getNumber());
+        appendIssue(summary.getCategory(), summary.getNumber(), text.add(summary.getTitle()),
+            text.add(summary.getKeyTerms()), text.add(summary.getBody()), text.add(summary.getOrgMemberComments()),
+            summary.getLabels());
         lastUpdated = LocalDateTime.now();
-        
-        // Update label frequency
-        for (String label : summary.getLabels()) {
-            labelFrequency.merge(label, 1, Integer::sum);
+    }
+    
+    // Adds an issue whose texts are already in the text arena, without checking for an earlier summary
+    public void appendIssue(IssueCategory category, int number, int title, int keyTerms, int body, int comments,
+                            List<String> issueLabels) {
+        int[] labelIds = new int[issueLabels != null ? issueLabels.size() : 0];
+        for (int i = 0; i < labelIds.length; i++) {
+            labelIds[i] = labels.add(issueLabels.get(i));
+        }
+        int row = partitions.get(category).append(number, title, keyTerms, body, comments, labelIds);
+        index.put(number, category, row);
+        liveTextBytes += text.heapLength(title) + text.heapLength(keyTerms) + text.heapLength(body) +
+            text.heapLength(comments);
+    }
+    
+    // The row is only marked removed; a partition is compacted once its removed rows outnumber the
+    // live ones, so removing is constant time and the compaction is paid for by the removals
+    public boolean removeIssue(int number) {
+        int slot = index.find(number);
+        if (slot < 0) {
+            return false;
+        }
+        IssueCategory category = CATEGORIES[index.category(slot)];
+        int row = index.row(slot);
+        index.remove(slot);
+        Partition partition = partitions.get(category);
+        partition.labelIds(row).forEach(labels::release);
+        liveTextBytes -= text.heapLength(partition.titles[row]) + text.heapLength(partition.keyTerms[row]) +
+            text.heapLength(partition.bodies[row]) + text.heapLength(partition.comments[row]);
+        partition.remove(row);
+        if (partition.removed > Math.max(partition.live(), Partition.MIN_COMPACTED_ROWS)) {
+            partition.compact(category, index);
+        }
+        compactText();
+        lastUpdated = LocalDateTime.now();
+        return true;
+    }
+    
+    // Once the texts of removed issues outweigh the live ones, and a chunk, the live texts are
+    // copied to a new arena, so the copying is paid for by the removals that made it necessary
+    private void compactText() {
+        long deadTextBytes = text.heapBytes() - liveTextBytes;
+        if (deadTextBytes > Math.max(liveTextBytes, TextArena.CHUNK_BYTES)) {
+            copyLiveTexts();
+        }
+    }
+    
+    private void copyLiveTexts() {
+        TextArena compacted = text.withoutAddedTexts();
+        for (Partition partition : partitions.values()) {
+            partition.copyTexts(text, compacted);
         }
+        text = compacted;
     }
     
+    // Null if the issue is not in the knowledge base
+    public IssueSummary getIssue(int number) {
+        int slot = index.find(number);
+        if (slot < 0) {
+            return null;
+        }
+        IssueCategory category = CATEGORIES[index.category(slot)];
+        return summary(category, partitions.get(category), index.row(slot));
+    }
+    
+    public boolean containsIssue(int number) {
+        return index.find(number) >= 0;
+    }
+    
+    // A read-only view whose summaries are built from the columns on each access
     public List<IssueSummary> getIssuesByCategory(IssueCategory category) {
-        return categorizedIssues.getOrDefault(category, new ArrayList<>());
+        return new CategoryView(category);
     }
     
-    public String generateContextSummary() {
-        StringBuilder summary = new StringBuilder();
-        summary.append("Knowledge Base Summary:\n");
-        summary.append("Total Issues Analyzed: ").append(totalIssuesAnalyzed).append("\n\n");
-        
-        summary.append("Issue Distribution by Category:\n");
+    @JsonIgnore
+    public List<IssueSummary> getAllIssues() {
+        List<IssueSummary> issues = new ArrayList<>();
         for (IssueCategory category : IssueCategory.values()) {
-            int count = categorizedIssues.get(category).size();
-            if (count > 0) {
-                summary.append("- ").append(category).append(": ").append(count).append(" issues\n");
+            issues.addAll(getIssuesByCategory(category));
+        }
+        return issues;
+    }
+    
+    // Without building any summaries
+    @JsonIgnore
+    public List<Integer> getIssueNumbers() {
+        List<Integer> numbers = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            for (int row = 0; row < partition.size; row++) {
+                if (partition.numbers[row] != Partition.REMOVED) {
+                    numbers.add(partition.numbers[row]);
+                }
             }
         }
+        return numbers;
+    }
+    
+    public String generateContextSummary() {
+        StringBuilder summary = new StringBuilder();
+        appendDistribution(summary);
         
         summary.append("\nCommon Patterns and Team Responses:\n");
-        for (Map.Entry<IssueCategory, List<IssueSummary>> entry : categorizedIssues.entrySet()) {
-            if (!entry.getValue().isEmpty()) {
-                summary.append("\n").append(entry.getKey()).append(" Examples:\n");
-                entry.getValue().stream()
+        for (IssueCategory category : IssueCategory.values()) {
+            List<IssueSummary> issues = getIssuesByCategory(category);
+            if (!issues.isEmpty()) {
+                summary.append("\n").append(category).append(" Examples:\n");
+                issues.stream()
                     .limit(3)
                     .forEach(issue -> {
                         summary.append("  - #").append(issue.getNumber())
@@ -78,6 +223,48 @@ public class KnowledgeBase {
         return summary.toString();
     }
     
+    // Only the past issues most similar to the one being triaged, instead of a few fixed examples
+    public String generateContextSummary(List<IssueSummary> similarIssues) {
+        StringBuilder summary = new StringBuilder();
+        appendDistribution(summary);
+        
+        if (similarIssues.isEmpty()) {
+            summary.append("\nNo similar past issues found.\n");
+            return summary.toString();
+        }
+        
+        summary.append("\nMost Similar Past Issues:\n");
+        for (IssueSummary issue : similarIssues) {
+            summary.append("  - #").append(issue.getNumber())
+                .append(" [").append(issue.getCategory()).append("]: ").append(issue.getTitle());
+            if (issue.getLabels() != null && !issue.getLabels().isEmpty()) {
+                summary.append(" (labels: ").append(String.join(", ", issue.getLabels())).append(")");
+            }
+            summary.append("\n");
+            if (issue.getOrgMemberComments() != null && !issue.getOrgMemberComments().isEmpty()) {
+                summary.append("    Team Response: ")
+                    .append(issue.getOrgMemberComments().substring(0, 
+                        Math.min(issue.getOrgMemberComments().length(), 300)))
+                    .append("...\n");
+            }
+        }
+        
+        return summary.toString();
+    }
+    
+    private void appendDistribution(StringBuilder summary) {
+        summary.append("Knowledge Base Summary:\n");
+        summary.append("Total Issues Analyzed: ").append(getTotalIssuesAnalyzed()).append("\n\n");
+        
+        summary.append("Issue Distribution by Category:\n");
+        for (IssueCategory category : IssueCategory.values()) {
+            int count = partitions.get(category).live();
+            if (count > 0) {
+                summary.append("- ").append(category).append(": ").append(count).append(" issues\n");
+            }
+        }
+    }
+    
     // Getters and setters
     public LocalDateTime getCreatedAt() {
         return createdAt;
@@ -88,10 +275,18 @@ public class KnowledgeBase {
     }
     
     public int getTotalIssuesAnalyzed() {
-        return totalIssuesAnalyzed;
+        int total = 0;
+        for (Partition partition : partitions.values()) {
+            total += partition.live();
+        }
+        return total;
     }
     
     public Map<IssueCategory, List<IssueSummary>> getCategorizedIssues() {
+        Map<IssueCategory, List<IssueSummary>> categorizedIssues = new EnumMap<>(IssueCategory.class);
+        for (IssueCategory category : IssueCategory.values()) {
+            categorizedIssues.put(category, getIssuesByCategory(category));
+        }
         return categorizedIssues;
     }
     
@@ -104,7 +299,360 @@ public class KnowledgeBase {
     }
     
     public Map<String, Integer> getLabelFrequency() {
-        return labelFrequency;
+        return labels.frequencies();
+    }
+    
+    public LocalDateTime getIssuesUpdatedThrough() {
+        return issuesUpdatedThrough;
+    }
+    
+    public void setIssuesUpdatedThrough(LocalDateTime issuesUpdatedThrough) {
+        this.issuesUpdatedThrough = issuesUpdatedThrough;
+    }
+    
+    // Heap taken by the text arena, live texts and those not yet compacted away
+    long getTextHeapBytes() {
+        return text.heapBytes();
+    }
+    
+    private IssueSummary summary(IssueCategory category, Partition partition, int row) {
+        List<String> issueLabels = new ArrayList<>(partition.labelCount(row));
+        partition.labelIds(row).forEach(id -> issueLabels.add(labels.name(id)));
+        IssueSummary summary = new IssueSummary(partition.numbers[row], text.get(partition.titles[row]),
+            category, issueLabels, text.get(partition.comments[row]));
+        summary.setKeyTerms(text.get(partition.keyTerms[row]));
+        summary.setBody(text.get(partition.bodies[row]));
+        return summary;
+    }
+    
+    // Indexed access skips removed rows, so the view is iterated rather than indexed
+    private class CategoryView extends AbstractList<IssueSummary> {
+        private final IssueCategory category;
+        private final Partition partition;
+        
+        CategoryView(IssueCategory category) {
+            this.category = category;
+            this.partition = partitions.get(category);
+        }
+        
+        @Override
+        public IssueSummary get(int index) {
+            if (index < 0 || index >= partition.live()) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + partition.live());
+            }
+            int row = index;
+            if (partition.removed > 0) {
+                row = partition.nextLive(0);
+                for (int skipped = 0; skipped < index; skipped++) {
+                    row = partition.nextLive(row + 1);
+                }
+            }
+            return summary(category, partition, row);
+        }
+        
+        @Override
+        public Iterator<IssueSummary> iterator() {
+            return new Iterator<>() {
+                private int row = partition.nextLive(0);
+                
+                @Override
+                public boolean hasNext() {
+                    return row < partition.size;
+                }
+                
+                @Override
+                public IssueSummary next() {
+                    if (row >= partition.size) {
+                        throw new NoSuchElementException();
+                    }
+                    IssueSummary summary = summary(category, partition, row);
+                    row = partition.nextLive(row + 1);
+                    return summary;
+                }
+            };
+        }
+        
+        @Override
+        public int size() {
+            return partition.live();
+        }
+    }
+    
+    // The issues of one category, one array per field. Row r's labels are
+    // labelIds[labelStarts[r]] up to labelIds[labelStarts[r + 1]]. A removed row keeps its place,
+    // with REMOVED as its number, until the partition is compacted.
+    private static class Partition {
+        static final int REMOVED = Integer.MIN_VALUE;
+        static final int MIN_COMPACTED_ROWS = 16;
+        
+        private int size;
+        private int removed;
+        private int[] numbers = new int[0];
+        private int[] titles = new int[0];
+        private int[] keyTerms = new int[0];
+        private int[] bodies = new int[0];
+        private int[] comments = new int[0];
+        private int[] labelStarts = new int[1];
+        private int[] labelIds = new int[0];
+        
+        // Returns the row of the issue
+        int append(int number, int title, int keyTerm, int body, int comment, int[] issueLabels) {
+            if (size == numbers.length) {
+                int capacity = Math.max(16, size * 2);
+                numbers = Arrays.copyOf(numbers, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                keyTerms = Arrays.copyOf(keyTerms, capacity);
+                bodies = Arrays.copyOf(bodies, capacity);
+                comments = Arrays.copyOf(comments, capacity);
+                labelStarts = Arrays.copyOf(labelStarts, capacity + 1);
+            }
+            int labelEnd = labelStarts[size];
+            if (labelEnd + issueLabels.length > labelIds.length) {
+                labelIds = Arrays.copyOf(labelIds, Math.max(labelIds.length * 2, labelEnd + issueLabels.length));
+            }
+            System.arraycopy(issueLabels, 0, labelIds, labelEnd, issueLabels.length);
+            numbers[size] = number;
+            titles[size] = title;
+            keyTerms[size] = keyTerm;
+            bodies[size] = body;
+            comments[size] = comment;
+            labelStarts[size + 1] = labelEnd + issueLabels.length;
+            return size++;
+        }
+        
+        void remove(int row) {
+            numbers[row] = REMOVED;
+            removed++;
+        }
+        
+        int live() {
+            return size - removed;
+        }
+        
+        // The first row from the given one that is not removed, or size if there is none
+        int nextLive(int row) {
+            while (row < size && numbers[row] == REMOVED) {
+                row++;
+            }
+            return row;
+        }
+        
+        // Moves the live rows up over the removed ones, keeping their order, and updates their index entries
+        void compact(IssueCategory category, IssueIndex index) {
+            int live = 0;
+            for (int row = 0; row < size; row++) {
+                if (numbers[row] == REMOVED) {
+                    continue;
+                }
+                // Row live's label start is written only after the labels of this row have been read
+                int labelStart = labelStarts[row];
+                int labelCount = labelStarts[row + 1] - labelStart;
+                int labelEnd = labelStarts[live];
+                System.arraycopy(labelIds, labelStart, labelIds, labelEnd, labelCount);
+                numbers[live] = numbers[row];
+                titles[live] = titles[row];
+                keyTerms[live] = keyTerms[row];
+                bodies[live] = bodies[row];
+                comments[live] = comments[row];
+                labelStarts[live + 1] = labelEnd + labelCount;
+                if (live != row) {
+                    index.put(numbers[live], category, live);
+                }
+                live++;
+            }
+            size = live;
+            removed = 0;
+        }
+        
+        Partition copy() {
+            Partition copy = new Partition();
+            copy.size = size;
+            copy.removed = removed;
+            copy.numbers = Arrays.copyOf(numbers, size);
+            copy.titles = Arrays.copyOf(titles, size);
+            copy.keyTerms = Arrays.copyOf(keyTerms, size);
+            copy.bodies = Arrays.copyOf(bodies, size);
+            copy.comments = Arrays.copyOf(comments, size);
+            copy.labelStarts = Arrays.copyOf(labelStarts, size + 1);
+            copy.labelIds = Arrays.copyOf(labelIds, labelStarts[size]);
+            return copy;
+        }
+        
+        // Points the text columns of the live rows at copies of their texts in the target arena
+        void copyTexts(TextArena source, TextArena target) {
+            for (int row = nextLive(0); row < size; row = nextLive(row + 1)) {
+                titles[row] = target.copy(source, titles[row]);
+                keyTerms[row] = target.copy(source, keyTerms[row]);
+                bodies[row] = target.copy(source, bodies[row]);
+                comments[row] = target.copy(source, comments[row]);
+            }
+        }
+        
+        int labelCount(int row) {
+            return labelStarts[row + 1] - labelStarts[row];
+        }
+        
+        IntStream labelIds(int row) {
+            return Arrays.stream(labelIds, labelStarts[row], labelStarts[row + 1]);
+        }
+    }
+    
+    // Category and row of each issue number, in an open-addressing table of primitive arrays, so
+    // finding an issue neither boxes an entry per issue nor looks in every partition
+    private static class IssueIndex {
+        private static final int EMPTY = Integer.MIN_VALUE;
+        
+        private int[] numbers;
+        private int[] rows;
+        private byte[] categories;
+        private int size;
+        
+        IssueIndex() {
+            this(16);
+        }
+        
+        private IssueIndex(int capacity) {
+            numbers = new int[capacity];
+            Arrays.fill(numbers, EMPTY);
+            rows = new int[capacity];
+            categories = new byte[capacity];
+        }
+        
+        // The slot of the issue number, or -1
+        int find(int number) {
+            int mask = numbers.length - 1;
+            for (int slot = hash(number) & mask; numbers[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (numbers[slot] == number) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+        
+        int row(int slot) {
+            return rows[slot];
+        }
+        
+        int category(int slot) {
+            return categories[slot];
+        }
+        
+        void put(int number, IssueCategory category, int row) {
+            if ((size + 1) * 2 > numbers.length) {
+                resize(numbers.length * 2);
+            }
+            int mask = numbers.length - 1;
+            int slot = hash(number) & mask;
+            while (numbers[slot] != EMPTY && numbers[slot] != number) {
+                slot = (slot + 1) & mask;
+            }
+            if (numbers[slot] == EMPTY) {
+                numbers[slot] = number;
+                size++;
+            }
+            rows[slot] = row;
+            categories[slot] = (byte) category.ordinal();
+        }
+        
+        // Entries further along the probe sequence move back into the freed slot when their home
+        // slot allows it, so lookups never need tombstones
+        void remove(int slot) {
+            int mask = numbers.length - 1;
+            int free = slot;
+            for (int next = (free + 1) & mask; numbers[next] != EMPTY; next = (next + 1) & mask) {
+                int home = hash(numbers[next]) & mask;
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    numbers[free] = numbers[next];
+                    rows[free] = rows[next];
+                    categories[free] = categories[next];
+                    free = next;
+                }
+            }
+            numbers[free] = EMPTY;
+            size--;
+        }
+        
+        IssueIndex copy() {
+            IssueIndex copy = new IssueIndex(0);
+            copy.numbers = numbers.clone();
+            copy.rows = rows.clone();
+            copy.categories = categories.clone();
+            copy.size = size;
+            return copy;
+        }
+        
+        private void resize(int capacity) {
+            int[] oldNumbers = numbers;
+            int[] oldRows = rows;
+            byte[] oldCategories = categories;
+            numbers = new int[capacity];
+            Arrays.fill(numbers, EMPTY);
+            rows = new int[capacity];
+            categories = new byte[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldNumbers.length; i++) {
+                if (oldNumbers[i] != EMPTY) {
+                    int slot = hash(oldNumbers[i]) & mask;
+                    while (numbers[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    numbers[slot] = oldNumbers[i];
+                    rows[slot] = oldRows[i];
+                    categories[slot] = oldCategories[i];
+                }
+            }
+        }
+        
+        private static int hash(int number) {
+            int h = number * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+    
+    // Every label name once, with the number of issues that carry it
+    private static class LabelTable {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private int[] frequency = new int[16];
+        
+        int add(String name) {
+            int id = ids.computeIfAbsent(name, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+            if (id == frequency.length) {
+                frequency = Arrays.copyOf(frequency, frequency.length * 2);
+            }
+            frequency[id]++;
+            return id;
+        }
+        
+        LabelTable copy() {
+            LabelTable copy = new LabelTable();
+            copy.names.addAll(names);
+            copy.ids.putAll(ids);
+            copy.frequency = frequency.clone();
+            return copy;
+        }
+        
+        void release(int id) {
+            frequency[id]--;
+        }
+        
+        String name(int id) {
+            return names.get(id);
+        }
+        
+        // Labels no issue carries any more are left out
+        Map<String, Integer> frequencies() {
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            for (int id = 0; id < names.size(); id++) {
+                if (frequency[id] > 0) {
+                    frequencies.put(names.get(id), frequency[id]);
+                }
+            }
+            return frequencies;
+        }
     }
     
     public static class IssueSummary {
@@ -113,8 +661,13 @@ public class KnowledgeBase {
         private IssueCategory category;
         private List<String> labels;
         private String keyTerms;
+        private String body;
         private String orgMemberComments;
         
+        // For reading a saved knowledge base
+        public IssueSummary() {
+        }
+        
         public IssueSummary(int number, String title, IssueCategory category, List<String> labels) {
             this.number = number;
             this.title = title;
@@ -154,6 +707,14 @@ public class KnowledgeBase {
             this.keyTerms = keyTerms;
         }
         
+        public String getBody() {
+            return body;
+        }
+        
+        public void setBody(String body) {
+            this.body = body;
+        }
+        
         public String getOrgMemberComments() {
             return orgMemberComments;
         }
@@ -0,0 +1,234 @@
+package com.example.triage.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Progress of a knowledge base build, saved after every batch of issues so an interrupted build
+// resumes where it stopped. Issues are fetched newest first; the cursor is the oldest updated_at
+// merged so far and bounds the next batch. The knowledge base being built is not saved with it:
+// each batch's merged and removed issues are appended to a journal, and a resumed build replays
+// the journal onto the knowledge base it started from, so a save costs one batch, not the whole.
+public class KnowledgeBaseCheckpoint {
+    
+    private boolean fullBuild;
+    private int maxIssues;
+    private LocalDateTime updatedAfter;
+    private boolean removalsApplied;
+    private int fetchedIssues;
+    private LocalDateTime cursor;
+    // Issues updated exactly at the cursor come back in the next batch and are skipped
+    private Set<Integer> issuesAtCursor = new HashSet<>();
+    private LocalDateTime newestUpdated;
+    // When the build first started, in UTC like updated_at; a resumed build keeps it
+    private LocalDateTime startedAt;
+    // Bytes of the journal this checkpoint covers; any after them are from a batch it does not
+    private long journalBytes;
+    // Issues added or replaced by an incremental refresh, whose index entries are updated at the end;
+    // rebuilt from the journal on resume
+    @JsonIgnore
+    private Set<Integer> mergedIssues = new HashSet<>();
+    @JsonIgnore
+    private KnowledgeBase knowledgeBase;
+    // Changes made since the last save, which go into the journal with the next one
+    @JsonIgnore
+    private final List<Change> pendingChanges = new ArrayList<>();
+    
+    public KnowledgeBaseCheckpoint() {
+    }
+    
+    public KnowledgeBaseCheckpoint(boolean fullBuild, int maxIssues, LocalDateTime updatedAfter,
+                                   KnowledgeBase knowledgeBase) {
+        this.fullBuild = fullBuild;
+        this.maxIssues = maxIssues;
+        this.updatedAfter = updatedAfter;
+        this.knowledgeBase = knowledgeBase;
+        this.startedAt = LocalDateTime.now(ZoneOffset.UTC);
+    }
+    
+    // False for an issue this build has already merged
+    public boolean recordFetched(int number, LocalDateTime updatedAt) {
+        if (updatedAt != null) {
+            if (cursor == null || updatedAt.isBefore(cursor)) {
+                cursor = updatedAt;
+                issuesAtCursor = new HashSet<>();
+            }
+            if (updatedAt.equals(cursor) && !issuesAtCursor.add(number)) {
+                return false;
+            }
+            if (newestUpdated == null || updatedAt.isAfter(newestUpdated)) {
+                newestUpdated = updatedAt;
+            }
+        }
+        fetchedIssues++;
+        return true;
+    }
+    
+    public void recordMerged(KnowledgeBase.IssueSummary issue) {
+        mergedIssues.add(issue.getNumber());
+        pendingChanges.add(Change.merged(issue));
+    }
+    
+    public void recordRemoved(int number) {
+        mergedIssues.remove(number);
+        pendingChanges.add(Change.removed(number));
+    }
+    
+    // Applies a change read back from the journal
+    public void replay(Change change) {
+        if (change.getMerged() != null) {
+            knowledgeBase.addIssue(change.getMerged());
+            mergedIssues.add(change.getMerged().getNumber());
+        } else if (change.getRemoved() != null) {
+            knowledgeBase.removeIssue(change.getRemoved());
+            mergedIssues.remove(change.getRemoved());
+        }
+    }
+    
+    public List<Change> takePendingChanges() {
+        List<Change> changes = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        return changes;
+    }
+    
+    // Getters and setters
+    public boolean isFullBuild() {
+        return fullBuild;
+    }
+    
+    public void setFullBuild(boolean fullBuild) {
+        this.fullBuild = fullBuild;
+    }
+    
+    public int getMaxIssues() {
+        return maxIssues;
+    }
+    
+    public void setMaxIssues(int maxIssues) {
+        this.maxIssues = maxIssues;
+    }
+    
+    public LocalDateTime getUpdatedAfter() {
+        return updatedAfter;
+    }
+    
+    public void setUpdatedAfter(LocalDateTime updatedAfter) {
+        this.updatedAfter = updatedAfter;
+    }
+    
+    public boolean isRemovalsApplied() {
+        return removalsApplied;
+    }
+    
+    public void setRemovalsApplied(boolean removalsApplied) {
+        this.removalsApplied = removalsApplied;
+    }
+    
+    public int getFetchedIssues() {
+        return fetchedIssues;
+    }
+    
+    public void setFetchedIssues(int fetchedIssues) {
+        this.fetchedIssues = fetchedIssues;
+    }
+    
+    public LocalDateTime getCursor() {
+        return cursor;
+    }
+    
+    public void setCursor(LocalDateTime cursor) {
+        this.cursor = cursor;
+    }
+    
+    public Set<Integer> getIssuesAtCursor() {
+        return issuesAtCursor;
+    }
+    
+    public void setIssuesAtCursor(Set<Integer> issuesAtCursor) {
+        this.issuesAtCursor = issuesAtCursor;
+    }
+    
+    public LocalDateTime getNewestUpdated() {
+        return newestUpdated;
+    }
+    
+    public void setNewestUpdated(LocalDateTime newestUpdated) {
+        this.newestUpdated = newestUpdated;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+    
+    public void setJournalBytes(long journalBytes) {
+        this.journalBytes = journalBytes;
+    }
+    
+    public Set<Integer> getMergedIssues() {
+        return mergedIssues;
+    }
+    
+    public void setMergedIssues(Set<Integer> mergedIssues) {
+        this.mergedIssues = mergedIssues;
+    }
+    
+    public KnowledgeBase getKnowledgeBase() {
+        return knowledgeBase;
+    }
+    
+    public void setKnowledgeBase(KnowledgeBase knowledgeBase) {
+        this.knowledgeBase = knowledgeBase;
+    }
+    
+    // One line of the journal: an issue merged with its summary, or an issue removed
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Change {
+        private KnowledgeBase.IssueSummary merged;
+        private Integer removed;
+        
+        public Change() {
+        }
+        
+        static Change merged(KnowledgeBase.IssueSummary issue) {
+            Change change = new Change();
+            change.merged = issue;
+            return change;
+        }
+        
+        static Change removed(int number) {
+            Change change = new Change();
+            change.removed = number;
+            return change;
+        }
+        
+        public KnowledgeBase.IssueSummary getMerged() {
+            return merged;
+        }
+        
+        public void setMerged(KnowledgeBase.IssueSummary merged) {
+            this.merged = merged;
+        }
+        
+        public Integer getRemoved() {
+            return removed;
+        }
+        
+        public void setRemoved(Integer removed) {
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.triage.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Texts stored back to back as UTF-8 in large byte arrays and addressed by an int id, instead of
+// one String object each; a text is only decoded when it is read. A knowledge base read from a file
+// starts with the file's mapped string table as a read-only base, and added texts go after it.
+// Texts are never removed; an owner that drops many copies the rest to a new arena. An arena can
+// also be layered over another: it reads the texts the other held when the layer was made and adds
+// its own after them, so a copy of a knowledge base never adds texts to the original's arena.
+public class TextArena {
+    
+    public static final int NULL = -1;
+    static final int CHUNK_BYTES = 1 << 20;
+    
+    private final ByteBuffer base;
+    private final int baseOffsets;
+    private final int baseBlob;
+    private final int baseCount;
+    // The arena this one is layered over, null for none; ids from baseCount up to firstId are its
+    private final TextArena parent;
+    private final int firstId;
+    private final long parentHeapBytes;
+    private final int depth;
+    
+    // Added texts go into fixed-size chunks, so growing never copies them and at most one chunk is
+    // partly empty; a text longer than a chunk gets a chunk of its own
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int openChunk = -1;
+    private int openChunkUsed;
+    // Chunk and position of each added text, and its length in bytes
+    private int[] chunkOf = new int[1 << 8];
+    private int[] startOf = new int[1 << 8];
+    private int[] lengthOf = new int[1 << 8];
+    private int count;
+    private long heapBytes;
+    
+    public TextArena() {
+        this(null, 0, 0);
+    }
+    
+    // Texts 0 to count - 1 are in the buffer: count + 1 int offsets at offsetsOffset, then the blob
+    public TextArena(ByteBuffer base, int offsetsOffset, int count) {
+        this.base = base;
+        this.baseOffsets = offsetsOffset;
+        this.baseBlob = offsetsOffset + (count + 1) * 4;
+        this.baseCount = count;
+        this.parent = null;
+        this.firstId = count;
+        this.parentHeapBytes = 0;
+        this.depth = 0;
+        if (base != null && base.getInt(offsetsOffset + count * 4) + baseBlob > base.limit()) {
+            throw new IndexOutOfBoundsException("Text blob extends past the end of the buffer");
+        }
+    }
+    
+    private TextArena(TextArena parent) {
+        this.base = parent.base;
+        this.baseOffsets = parent.baseOffsets;
+        this.baseBlob = parent.baseBlob;
+        this.baseCount = parent.baseCount;
+        this.parent = parent;
+        synchronized (parent) {
+            this.firstId = parent.firstId + parent.count;
+            this.parentHeapBytes = parent.heapBytes();
+        }
+        this.depth = parent.depth + 1;
+    }
+    
+    // An arena over this one's texts so far that adds its texts to itself
+    public TextArena layer() {
+        return new TextArena(this);
+    }
+    
+    // Arenas layered under this one
+    public int depth() {
+        return depth;
+    }
+    
+    public int add(String text) {
+        return text == null ? NULL : add(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Adds a text of another arena over the same base; texts in the base keep their id
+    public int copy(TextArena source, int id) {
+        return id == NULL || id < baseCount ? id : add(source.heapText(id));
+    }
+    
+    // An arena over the same base, without the added texts of this one or those it is layered over
+    public TextArena withoutAddedTexts() {
+        return new TextArena(base, baseOffsets, baseCount);
+    }
+    
+    // Bytes an added text takes on the heap; none for null or a text in the base
+    public int heapLength(int id) {
+        if (id == NULL || id < baseCount) {
+            return 0;
+        }
+        if (id < firstId) {
+            return parent.heapLength(id);
+        }
+        synchronized (this) {
+            return lengthOf[id - firstId];
+        }
+    }
+    
+    // Including what the arenas this one is layered over held when it was made
+    public synchronized long heapBytes() {
+        return parentHeapBytes + heapBytes;
+    }
+    
+    private synchronized int add(byte[] encoded) {
+        if (count == chunkOf.length) {
+            chunkOf = Arrays.copyOf(chunkOf, count * 2);
+            startOf = Arrays.copyOf(startOf, count * 2);
+            lengthOf = Arrays.copyOf(lengthOf, count * 2);
+        }
+        if (encoded.length > CHUNK_BYTES) {
+            chunks.add(encoded);
+            chunkOf[count] = chunks.size() - 1;
+            startOf[count] = 0;
+        } else {
+            if (openChunk < 0 || openChunkUsed + encoded.length > CHUNK_BYTES) {
+                chunks.add(new byte[CHUNK_BYTES]);
+                openChunk = chunks.size() - 1;
+                openChunkUsed = 0;
+            }
+            System.arraycopy(encoded, 0, chunks.get(openChunk), openChunkUsed, encoded.length);
+            chunkOf[count] = openChunk;
+            startOf[count] = openChunkUsed;
+            openChunkUsed += encoded.length;
+        }
+        lengthOf[count] = encoded.length;
+        heapBytes += encoded.length;
+        return firstId + count++;
+    }
+    
+    public String get(int id) {
+        if (id == NULL) {
+            return null;
+        }
+        if (id < 0) {
+            throw new IndexOutOfBoundsException("Text id " + id);
+        }
+        if (id < baseCount) {
+            int start = base.getInt(baseOffsets + id * 4);
+            int end = base.getInt(baseOffsets + (id + 1) * 4);
+            byte[] text = new byte[end - start];
+            base.get(baseBlob + start, text);
+            return new String(text, StandardCharsets.UTF_8);
+        }
+        if (id < firstId) {
+            return parent.get(id);
+        }
+        synchronized (this) {
+            int index = id - firstId;
+            if (index >= count) {
+                throw new IndexOutOfBoundsException("Text id " + id + " of " + (firstId + count));
+            }
+            return new String(chunks.get(chunkOf[index]), startOf[index], lengthOf[index], StandardCharsets.UTF_8);
+        }
+    }
+    
+    private byte[] heapText(int id) {
+        if (id < firstId) {
+            return parent.heapText(id);
+        }
+        synchronized (this) {
+            int index = id - firstId;
+            int start = startOf[index];
+            return Arrays.copyOfRange(chunks.get(chunkOf[index]), start, start + lengthOf[index]);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.triage.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 
 public class TriageResult {
     
+    public static final String TIER_QUICK = "quick";
+    public static final String TIER_FULL = "full";
+    
     private Long issueNumber;
     private String issueTitle;
     private String issueUrl;
@@ -24,6 +28,18 @@ public class TriageResult {
     
     private boolean flaggedForManualReview;
     
+    private java.util.List<String> incompleteStages; // Stages that timed out or failed, null when complete
+    
+    private String triageTier; // "quick" or "full" in cascade mode, null otherwise
+    
+    private Long knowledgeBaseVersion; // Snapshot the classification read, null when it used no knowledge base
+    
+    // Estimated tokens this classification sent to and received from the model, excluding cached responses
+    @JsonIgnore
+    private long inputTokens;
+    @JsonIgnore
+    private long outputTokens;
+    
     public TriageResult() {
         this.processedAt = LocalDateTime.now();
     }
@@ -153,4 +169,41 @@ public class TriageResult {
     public void setDuplicateReasoning(String duplicateReasoning) {
         this.duplicateReasoning = duplicateReasoning;
     }
+    
+    public java.util.List<String> getIncompleteStages() {
+        return incompleteStages;
+    }
+    
+    public void setIncompleteStages(java.util.List<String> incompleteStages) {
+        this.incompleteStages = incompleteStages;
+    }
+    
+    public String getTriageTier() {
+        return triageTier;
+    }
+    
+    public void setTriageTier(String triageTier) {
+        this.triageTier = triageTier;
+    }
+    
+    public Long getKnowledgeBaseVersion() {
+        return knowledgeBaseVersion;
+    }
+    
+    public void setKnowledgeBaseVersion(Long knowledgeBaseVersion) {
+        this.knowledgeBaseVersion = knowledgeBaseVersion;
+    }
+    
+    public long getInputTokens() {
+        return inputTokens;
+    }
+    
+    public long getOutputTokens() {
+        return outputTokens;
+    }
+    
+    public void addModelTokens(long inputTokens, long outputTokens) {
+        this.inputTokens += inputTokens;
+        this.outputTokens += outputTokens;
+    }
 }
@@ -1,8 +1,11 @@
 package com.example.triage.service;
 
+import com.example.triage.client.BedrockRateLimiter;
+import com.example.triage.client.BedrockResponseCache;
 import com.example.triage.config.TriageConfiguration;
 import com.example.triage.model.GitHubIssue;
 import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
 import com.example.triage.model.TriageResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,26 +13,50 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
 @Service
 public class AIClassificationService {
     
     private static final Logger logger = LoggerFactory.getLogger(AIClassificationService.class);
-    private static final int MAX_BODY_LENGTH = 4000;
+    // Model calls are retried per stage; without a category there is no result, so those stages retry longest
+    private static final String STAGE_SINGLE_PASS = "singlePass";
+    private static final String STAGE_CLASSIFICATION = "classification";
+    private static final String STAGE_RESPONSE_SUGGESTION = "responseSuggestion";
+    private static final String STAGE_REPRODUCIBILITY = "reproducibility";
+    private static final String STAGE_DUPLICATES = "duplicates";
+    private static final Set<String> CRITICAL_STAGES = Set.of(STAGE_SINGLE_PASS, STAGE_CLASSIFICATION);
     
     private final ChatModel chatModel;
     private final TriageConfiguration config;
     private final ObjectMapper objectMapper;
+    private final BedrockRateLimiter bedrockRateLimiter;
+    private final ClassificationStageExecutor stageExecutor;
+    private final BedrockResponseCache responseCache;
+    private final PromptCompactor promptCompactor;
     private KnowledgeBaseService knowledgeBaseService;
     private com.example.triage.client.GitHubClient gitHubClient;
     
-    public AIClassificationService(ChatModel chatModel, TriageConfiguration config) {
+    public AIClassificationService(ChatModel chatModel, TriageConfiguration config,
+                                   BedrockRateLimiter bedrockRateLimiter,
+                                   ClassificationStageExecutor stageExecutor,
+                                   BedrockResponseCache responseCache,
+                                   PromptCompactor promptCompactor) {
         this.chatModel = chatModel;
         this.config = config;
         this.objectMapper = new ObjectMapper();
+        this.bedrockRateLimiter = bedrockRateLimiter;
+        this.stageExecutor = stageExecutor;
+        this.responseCache = responseCache;
+        this.promptCompactor = promptCompactor;
     }
     
     // Setter injection to avoid circular dependency
@@ -41,18 +68,10 @@ public class AIClassificationService {
         this.gitHubClient = gitHubClient;
     }
     
-    @Retryable(
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 2000, multiplier = 2)
-    )
     public TriageResult classifyIssue(GitHubIssue issue) {
         return classifyIssue(issue, null);
     }
     
-    @Retryable(
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 2000, multiplier = 2)
-    )
     public TriageResult classifyIssue(GitHubIssue issue, String modelOverride) {
         // Note: Model override is logged but Spring AI uses configured model
         // To support runtime model switching, would need dynamic ChatModel creation
@@ -65,29 +84,19 @@ public class AIClassificationService {
         result.setIssueTitle(issue.getTitle());
         result.setIssueUrl(issue.getUrl());
         
+        // Every stage reads this one snapshot, so a knowledge base reload mid-classification cannot mix versions
+        KnowledgeBaseSnapshot kb = knowledgeBaseService != null ? knowledgeBaseService.getSnapshot() : null;
+        if (hasKnowledgeBase(kb)) {
+            result.setKnowledgeBaseVersion(kb.getVersion());
+        }
+        
         try {
-            // Get classification
-            String classificationPrompt = buildClassificationPrompt(issue);
-            String classificationResponse = callLLM(classificationPrompt);
-            parseClassificationResponse(classificationResponse, result);
-            
-            // Get response suggestion
-            String responseSuggestionPrompt = buildResponseSuggestionPrompt(issue, result.getCategory());
-            String responseSuggestion = callLLM(responseSuggestionPrompt);
-            result.setResponseSuggestion(responseSuggestion.trim());
-            
-            // Generate suggested labels
-            result.setSuggestedLabels(generateSuggestedLabels(result.getCategory(), issue));
-            
-            // Assess reproducibility for bugs and usability issues
-            if (result.getCategory() == IssueCategory.BUG || 
-                result.getCategory() == IssueCategory.USABILITY) {
-                assessReproducibility(issue, result);
+            if (config.getAi().getClassificationMode() == TriageConfiguration.ClassificationMode.MULTI_CALL) {
+                classifyWithSeparateCalls(issue, result, kb);
+            } else {
+                classifyInSinglePass(issue, result, kb);
             }
             
-            // Check for duplicates using knowledge base
-            checkForDuplicates(issue, result);
-            
             logger.info("Issue #{} classified as {} with confidence {}", 
                 issue.getNumber(), result.getCategory(), result.getConfidence());
             
@@ -99,29 +108,130 @@ public class AIClassificationService {
         }
     }
     
-    private String callLLM(String prompt) {
+    // One call returns every field, so the body and knowledge base context are sent once
+    private void classifyInSinglePass(GitHubIssue issue, TriageResult result, KnowledgeBaseSnapshot kb) {
+        List<SimilarIssue> candidates = duplicateCandidates(issue, kb);
+        String response = callLLM(STAGE_SINGLE_PASS, buildSinglePassPrompt(issue, candidates, kb), result,
+            json -> isClassification(extractJsonObject(json)));
+        parseSinglePassResponse(response, result, candidates);
+        result.setSuggestedLabels(generateSuggestedLabels(result.getCategory(), issue));
+    }
+    
+    private void classifyWithSeparateCalls(GitHubIssue issue, TriageResult result, KnowledgeBaseSnapshot kb) {
+        ClassificationStageExecutor.StageRun run = stageExecutor.newRun(issue.getNumber());
+        
+        // The duplicate check needs only the issue, so it runs alongside the classification
+        CompletableFuture<TriageResult> duplicateCheck = run.start(() -> {
+            TriageResult partial = new TriageResult();
+            checkForDuplicates(issue, partial, kb);
+            return partial;
+        });
+        
+        // Get classification; the remaining stages need the category, so this one is critical
+        IssueCategory category;
+        try {
+            String classificationPrompt = buildClassificationPrompt(issue, kb);
+            String classificationResponse = callLLM(STAGE_CLASSIFICATION, classificationPrompt, result,
+                this::isClassification);
+            parseClassificationResponse(classificationResponse, result);
+            category = result.getCategory();
+        } catch (RuntimeException e) {
+            duplicateCheck.cancel(true);
+            throw e;
+        }
+        
+        // Get response suggestion
+        CompletableFuture<TriageResult> responseSuggestion = run.start(() -> {
+            TriageResult partial = new TriageResult();
+            partial.setResponseSuggestion(
+                callLLM(STAGE_RESPONSE_SUGGESTION, buildResponseSuggestionPrompt(issue, category), partial,
+                    suggestion -> !suggestion.isBlank()).trim());
+            return partial;
+        });
+        
+        // Assess reproducibility for bugs and usability issues
+        CompletableFuture<TriageResult> reproducibility = null;
+        if (category == IssueCategory.BUG || category == IssueCategory.USABILITY) {
+            reproducibility = run.start(() -> {
+                TriageResult partial = new TriageResult();
+                assessReproducibility(issue, partial);
+                return partial;
+            });
+        }
+        
+        // Generate suggested labels
+        result.setSuggestedLabels(generateSuggestedLabels(category, issue));
+        
+        TriageResult suggested = run.await(STAGE_RESPONSE_SUGGESTION, responseSuggestion);
+        if (suggested != null) {
+            result.setResponseSuggestion(suggested.getResponseSuggestion());
+            addModelTokens(result, suggested);
+        }
+        
+        if (reproducibility != null) {
+            TriageResult assessed = run.await(STAGE_REPRODUCIBILITY, reproducibility);
+            if (assessed != null) {
+                result.setReproducibility(assessed.getReproducibility());
+                result.setReproducibilityNotes(assessed.getReproducibilityNotes());
+                addModelTokens(result, assessed);
+            } else {
+                result.setReproducibility("Unknown");
+                result.setReproducibilityNotes("Assessment did not complete");
+            }
+        }
+        
+        TriageResult duplicates = run.await(STAGE_DUPLICATES, duplicateCheck);
+        if (duplicates != null) {
+            result.setDuplicate(duplicates.isDuplicate());
+            result.setDuplicateOf(duplicates.getDuplicateOf());
+            result.setDuplicateReasoning(duplicates.getDuplicateReasoning());
+            addModelTokens(result, duplicates);
+        }
+        
+        if (!run.getIncompleteStages().isEmpty()) {
+            logger.warn("Issue #{} classified without stages {}", issue.getNumber(), run.getIncompleteStages());
+            result.setIncompleteStages(run.getIncompleteStages());
+        }
+    }
+    
+    public Map<String, Object> getStageStatistics() {
+        return stageExecutor.getStatistics();
+    }
+    
+    public Map<String, Object> getPromptStatistics() {
+        return promptCompactor.getStatistics();
+    }
+    
+    // Only this call is retried, so a failure never repeats the stages that already succeeded.
+    // The tokens of each model call are added to the stage's own result. A response is cached
+    // only if the stage's parser can read it.
+    private String callLLM(String stage, String prompt, TriageResult result, Predicate<String> parseable) {
         Prompt chatPrompt = new Prompt(prompt);
-        return chatModel.call(chatPrompt).getResult().getOutput().getContent();
+        Supplier<String> call = () -> responseCache.getOrCompute(prompt, () -> {
+            String response = bedrockRateLimiter.call(() -> chatModel.call(chatPrompt).getResult().getOutput().getContent());
+            result.addModelTokens(PromptCompactor.estimateTokens(prompt), PromptCompactor.estimateTokens(response));
+            return response;
+        }, parseable);
+        return CRITICAL_STAGES.contains(stage)
+            ? stageExecutor.callCritical(stage, call)
+            : stageExecutor.callOptional(stage, call);
     }
     
-    private String buildClassificationPrompt(GitHubIssue issue) {
-        String body = truncateBody(issue.getBody());
+    private String buildClassificationPrompt(GitHubIssue issue, KnowledgeBaseSnapshot kb) {
+        String body = compactBody(issue.getBody());
         
-        // Fetch all comments for this issue
         String allComments = "";
-        if (gitHubClient != null) {
-            String comments = gitHubClient.fetchOrgMemberComments(issue.getNumber(), 20);
-            if (comments != null && !comments.isEmpty()) {
-                allComments = "\n\nISSUE COMMENTS:\n" + comments + 
-                             "\n\nConsider these comments when classifying the issue.\n";
-            }
+        String comments = promptCompactor.compact(issueComments(issue), promptCompactor.commentsBudget());
+        if (comments != null && !comments.isEmpty()) {
+            allComments = "\n\nISSUE COMMENTS:\n" + comments + 
+                         "\n\nConsider these comments when classifying the issue.\n";
         }
         
         // Add knowledge base context if available
         String kbContext = "";
-        if (knowledgeBaseService != null && knowledgeBaseService.hasKnowledgeBase()) {
+        if (hasKnowledgeBase(kb)) {
             kbContext = "\n\nKNOWLEDGE BASE CONTEXT:\n" + 
-                       knowledgeBaseService.getKnowledgeBaseContext() + 
+                       knowledgeBaseContext(issue, kb) + 
                        "\n\nUse this historical context to inform your classification.\n";
         }
         
@@ -146,8 +256,84 @@ public class AIClassificationService {
             """, allComments, kbContext, issue.getTitle(), body, issue.getAuthor());
     }
     
+    private String buildSinglePassPrompt(GitHubIssue issue, List<SimilarIssue> candidates,
+                                         KnowledgeBaseSnapshot kb) {
+        String body = compactBody(issue.getBody());
+        
+        String allComments = "";
+        String comments = promptCompactor.compact(issueComments(issue), promptCompactor.commentsBudget());
+        if (comments != null && !comments.isEmpty()) {
+            allComments = "\n\nISSUE COMMENTS:\n" + comments + "\n";
+        }
+        
+        boolean hasKnowledgeBase = hasKnowledgeBase(kb);
+        String kbContext = "";
+        if (hasKnowledgeBase) {
+            kbContext = "\n\nKNOWLEDGE BASE CONTEXT:\n" + 
+                       knowledgeBaseContext(issue, kb) + "\n";
+        }
+        String duplicateInstructions = candidates.isEmpty()
+            ? "No past issue is similar enough to be a duplicate; set isDuplicate to false."
+            : "Decide whether the issue describes the same problem or request as any of these past issues, " +
+              "found by text similarity. Only list numbers from this list in duplicateOf:\n" + candidateList(candidates);
+        
+        return String.format("""
+            Triage the following GitHub issue.
+            
+            1. Classify it into exactly one category:
+            - Bug: Technical problems, errors, or unexpected behavior
+            - Feature Request: New functionality or enhancement requests
+            - Usability: User experience issues or interface improvements
+            - Question: Requests for information or clarification
+            
+            2. Write a professional response suggestion (2-4 sentences) following the guidelines for its category:
+            - Bug: %s
+            - Feature Request: %s
+            - Usability: %s
+            - Question: %s
+            
+            3. For a Bug or Usability issue, assess how easily it can be reproduced: are reproduction steps,
+            environment details and error messages provided, and is it intermittent or consistent?
+            For other categories set reproducibility and reproducibilityNotes to null.
+            
+            4. %s
+            %s%s
+            
+            Issue Title: %s
+            Issue Body: %s
+            Issue Author: %s
+            
+            Respond with only this JSON object:
+            {
+              "category": "<Bug|Feature Request|Usability|Question>",
+              "confidence": <0-100>,
+              "reasoning": "<explanation>",
+              "responseSuggestion": "<response>",
+              "reproducibility": "<Easy|Moderate|Difficult|Unknown>",
+              "reproducibilityNotes": "<brief explanation>",
+              "isDuplicate": <true|false>,
+              "duplicateOf": [<issue_numbers>],
+              "duplicateReasoning": "<explanation>"
+            }
+            """,
+            guidelineText(IssueCategory.BUG), guidelineText(IssueCategory.FEATURE_REQUEST),
+            guidelineText(IssueCategory.USABILITY), guidelineText(IssueCategory.QUESTION),
+            duplicateInstructions, allComments, kbContext, issue.getTitle(), body, issue.getAuthor());
+    }
+    
+    // Use comments prefetched with the issue, otherwise fetch them
+    private String issueComments(GitHubIssue issue) {
+        String comments = issue.getOrgMemberComments();
+        if (comments == null && gitHubClient != null) {
+            comments = gitHubClient.fetchOrgMemberComments(issue.getNumber(), 20);
+            // Keep them with the issue, so classifying it again does not fetch them again
+            issue.setOrgMemberComments(comments);
+        }
+        return comments;
+    }
+    
     private String buildResponseSuggestionPrompt(GitHubIssue issue, IssueCategory category) {
-        String body = truncateBody(issue.getBody());
+        String body = compactBody(issue.getBody());
         String guidelines = getGuidelinesForCategory(category);
         
         return String.format("""
@@ -163,6 +349,10 @@ public class AIClassificationService {
             """, category.getDisplayName(), issue.getTitle(), body, guidelines);
     }
     
+    private String guidelineText(IssueCategory category) {
+        return getGuidelinesForCategory(category).substring(2);
+    }
+    
     private String getGuidelinesForCategory(IssueCategory category) {
         return switch (category) {
             case BUG -> "- Ask for reproduction steps, environment details, error logs";
@@ -172,7 +362,7 @@ public class AIClassificationService {
         };
     }
     
-    private java.util.List<String> generateSuggestedLabels(IssueCategory category, GitHubIssue issue) {
+    java.util.List<String> generateSuggestedLabels(IssueCategory category, GitHubIssue issue) {
         java.util.List<String> labels = new java.util.ArrayList<>();
         
         // Add category-based label
@@ -213,7 +403,7 @@ public class AIClassificationService {
     
     private void assessReproducibility(GitHubIssue issue, TriageResult result) {
         try {
-            String body = truncateBody(issue.getBody());
+            String body = compactBody(issue.getBody());
             
             String prompt = String.format("""
                 Assess how easily this issue can be reproduced based on the information provided.
@@ -234,7 +424,8 @@ public class AIClassificationService {
                 }
                 """, issue.getTitle(), body);
             
-            String response = callLLM(prompt);
+            String response = callLLM(STAGE_REPRODUCIBILITY, prompt, result,
+                json -> hasFields(json, "reproducibility"));
             parseReproducibilityResponse(response, result);
             
         } catch (Exception e) {
@@ -245,27 +436,35 @@ public class AIClassificationService {
         }
     }
     
-    private void checkForDuplicates(GitHubIssue issue, TriageResult result) {
+    // Candidates come from the similarity index; the model is only asked when there are any
+    private void checkForDuplicates(GitHubIssue issue, TriageResult result, KnowledgeBaseSnapshot kb) {
         try {
-            if (knowledgeBaseService == null || !knowledgeBaseService.hasKnowledgeBase()) {
+            if (!hasKnowledgeBase(kb)) {
                 logger.debug("No knowledge base available for duplicate detection");
                 return;
             }
             
-            String kbContext = knowledgeBaseService.getKnowledgeBaseContext();
-            String body = truncateBody(issue.getBody());
+            List<SimilarIssue> candidates = duplicateCandidates(issue, kb);
+            if (candidates.isEmpty()) {
+                logger.debug("No duplicate candidates for issue #{}", issue.getNumber());
+                result.setDuplicate(false);
+                return;
+            }
+            
+            String body = compactBody(issue.getBody());
             
             String prompt = String.format("""
-                Check if this issue is a duplicate of any existing issues in the knowledge base.
+                Check if this issue is a duplicate of any of the candidate issues below. The candidates
+                were found by text similarity, so sharing words alone does not make an issue a duplicate.
                 
                 Current Issue:
                 Title: %s
                 Body: %s
                 
-                Knowledge Base Context:
+                Candidate Issues:
                 %s
                 
-                Analyze if this issue describes the same problem or request as any existing issues.
+                Analyze if this issue describes the same problem or request as any candidate.
                 Consider:
                 - Similar symptoms or error messages
                 - Same feature requests
@@ -277,10 +476,11 @@ public class AIClassificationService {
                   "duplicateOf": [<issue_numbers>],
                   "reasoning": "<explanation>"
                 }
-                """, issue.getTitle(), body, kbContext.substring(0, Math.min(kbContext.length(), 2000)));
+                """, issue.getTitle(), body, candidateList(candidates));
             
-            String response = callLLM(prompt);
-            parseDuplicateResponse(response, result);
+            String response = callLLM(STAGE_DUPLICATES, prompt, result,
+                json -> hasFields(json, "isDuplicate"));
+            parseDuplicateResponse(response, result, candidates);
             
         } catch (Exception e) {
             logger.warn("Failed to check for duplicates for issue #{}: {}", 
@@ -288,16 +488,141 @@ public class AIClassificationService {
         }
     }
     
-    private void parseDuplicateResponse(String response, TriageResult result) {
+    private static void addModelTokens(TriageResult result, TriageResult stage) {
+        result.addModelTokens(stage.getInputTokens(), stage.getOutputTokens());
+    }
+    
+    private List<SimilarIssue> duplicateCandidates(GitHubIssue issue, KnowledgeBaseSnapshot kb) {
+        if (!hasKnowledgeBase(kb)) {
+            return new ArrayList<>();
+        }
+        return knowledgeBaseService.findDuplicateCandidates(kb, issue);
+    }
+    
+    private static boolean hasKnowledgeBase(KnowledgeBaseSnapshot kb) {
+        return kb != null && !kb.isEmpty();
+    }
+    
+    private String candidateList(List<SimilarIssue> candidates) {
+        StringBuilder list = new StringBuilder();
+        for (SimilarIssue candidate : candidates) {
+            KnowledgeBase.IssueSummary summary = candidate.getIssue();
+            list.append(String.format("- #%d [%s, similarity %.2f]: %s%n",
+                summary.getNumber(), summary.getCategory(), candidate.getScore(), summary.getTitle()));
+            String body = summary.getBody();
+            if (body != null && !body.isBlank()) {
+                String excerpt = body.substring(0, Math.min(body.length(), 300)).replace('\n', ' ');
+                list.append("  ").append(excerpt).append("\n");
+            }
+        }
+        return list.toString();
+    }
+    
+    // The model may only confirm candidates; anything else it names is dropped
+    private List<Integer> confirmedDuplicates(JsonNode duplicateOf, List<SimilarIssue> candidates) {
+        List<Integer> confirmed = new ArrayList<>();
+        if (duplicateOf != null && duplicateOf.isArray()) {
+            duplicateOf.forEach(node -> {
+                int number = node.asInt();
+                if (candidates.stream().anyMatch(candidate -> candidate.getIssue().getNumber() == number)) {
+                    confirmed.add(number);
+                }
+            });
+        }
+        return confirmed;
+    }
+    
+    private void parseSinglePassResponse(String response, TriageResult result,
+                                         List<SimilarIssue> candidates) {
+        JsonNode jsonNode;
+        try {
+            jsonNode = objectMapper.readTree(extractJsonObject(response));
+            
+            result.setCategory(IssueCategory.fromString(jsonNode.get("category").asText()));
+            result.setConfidence(jsonNode.get("confidence").asInt());
+            result.setReasoning(jsonNode.get("reasoning").asText());
+            
+        } catch (Exception e) {
+            logger.warn("Failed to parse LLM response, flagging for manual review: {}", e.getMessage());
+            result.setCategory(IssueCategory.QUESTION);
+            result.setConfidence(0);
+            result.setReasoning("Failed to parse AI response");
+            result.setFlaggedForManualReview(true);
+            return;
+        }
+        
+        result.setResponseSuggestion(jsonNode.path("responseSuggestion").asText("").trim());
+        
+        if (result.getCategory() == IssueCategory.BUG || 
+            result.getCategory() == IssueCategory.USABILITY) {
+            JsonNode reproducibility = jsonNode.path("reproducibility");
+            if (reproducibility.isTextual() && !reproducibility.asText().isBlank()) {
+                result.setReproducibility(reproducibility.asText());
+                result.setReproducibilityNotes(jsonNode.path("reproducibilityNotes").asText(null));
+            } else {
+                result.setReproducibility("Unknown");
+                result.setReproducibilityNotes("Unable to parse assessment");
+            }
+        }
+        
+        // Without candidates the model had nothing to compare against
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<Integer> duplicateOf = jsonNode.path("isDuplicate").asBoolean(false)
+            ? confirmedDuplicates(jsonNode.get("duplicateOf"), candidates) : new ArrayList<>();
+        result.setDuplicate(!duplicateOf.isEmpty());
+        if (!duplicateOf.isEmpty()) {
+            result.setDuplicateOf(duplicateOf);
+        }
+        if (jsonNode.hasNonNull("duplicateReasoning")) {
+            result.setDuplicateReasoning(jsonNode.get("duplicateReasoning").asText());
+        }
+    }
+    
+    // Whether parseClassificationResponse can read the object without falling back to manual review
+    private boolean isClassification(String json) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(json);
+            IssueCategory.fromString(jsonNode.get("category").asText());
+            return jsonNode.hasNonNull("confidence") && jsonNode.hasNonNull("reasoning");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    private boolean hasFields(String json, String... fields) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(json);
+            for (String field : fields) {
+                if (!jsonNode.hasNonNull(field)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    // Models sometimes wrap the object in a code fence or a sentence of prose
+    private String extractJsonObject(String response) {
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        return start >= 0 && end > start ? response.substring(start, end + 1) : response;
+    }
+    
+    private void parseDuplicateResponse(String response, TriageResult result,
+                                        List<SimilarIssue> candidates) {
         try {
             JsonNode jsonNode = objectMapper.readTree(response);
             
             boolean isDuplicate = jsonNode.get("isDuplicate").asBoolean();
-            result.setDuplicate(isDuplicate);
+            List<Integer> duplicateOf = isDuplicate
+                ? confirmedDuplicates(jsonNode.get("duplicateOf"), candidates) : new ArrayList<>();
+            result.setDuplicate(!duplicateOf.isEmpty());
             
-            if (isDuplicate && jsonNode.has("duplicateOf")) {
-                java.util.List<Integer> duplicateOf = new java.util.ArrayList<>();
-                jsonNode.get("duplicateOf").forEach(node -> duplicateOf.add(node.asInt()));
+            if (!duplicateOf.isEmpty()) {
                 result.setDuplicateOf(duplicateOf);
             }
             
@@ -354,13 +679,12 @@ public class AIClassificationService {
         }
     }
     
-    private String truncateBody(String body) {
-        if (body == null) {
-            return "";
-        }
-        if (body.length() > MAX_BODY_LENGTH) {
-            return body.substring(0, MAX_BODY_LENGTH) + "... [truncated]";
-        }
-        return body;
+    // Long logs and stack traces are cut to their head and tail instead of at a fixed length
+    private String compactBody(String body) {
+        return promptCompactor.compact(body, promptCompactor.bodyBudget());
+    }
+    
+    private String knowledgeBaseContext(GitHubIssue issue, KnowledgeBaseSnapshot kb) {
+        return promptCompactor.compact(knowledgeBaseService.getKnowledgeBaseContext(kb, issue), promptCompactor.contextBudget());
     }
 }
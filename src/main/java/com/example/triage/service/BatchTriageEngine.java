@@ -0,0 +1,203 @@
+package com.example.triage.service;
+
+import com.example.triage.client.BedrockRateLimiter;
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import com.example.triage.model.TriageResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Classifies a batch of issues on a bounded worker pool. The number of issues in flight follows
+// AIMD: it grows by one per window of successful classifications and halves when Bedrock throttles
+// or an issue takes much longer than usual, so a run uses the headroom Bedrock actually has.
+@Component
+public class BatchTriageEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchTriageEngine.class);
+    
+    // Faster issues were answered from the response cache and say nothing about Bedrock load
+    private static final long MIN_SPIKE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double LATENCY_SMOOTHING = 0.2;
+    
+    private final TriageConfiguration.Batch settings;
+    private final BedrockRateLimiter bedrockRateLimiter;
+    private final ExecutorService workers;
+    
+    private volatile Map<String, Object> lastRunSummary = new HashMap<>();
+    
+    public BatchTriageEngine(TriageConfiguration config, BedrockRateLimiter bedrockRateLimiter) {
+        this.settings = config.getBatch();
+        this.bedrockRateLimiter = bedrockRateLimiter;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, settings.getMaxConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "batch-triage");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Results are in the order of the issues; issues that failed are left out
+    public List<TriageResult> classifyAll(List<GitHubIssue> issues, Function<GitHubIssue, TriageResult> classifier) {
+        if (issues.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        ConcurrencyLimit limit = new ConcurrencyLimit();
+        TriageResult[] results = new TriageResult[issues.size()];
+        long[] latencies = new long[issues.size()];
+        CountDownLatch done = new CountDownLatch(issues.size());
+        long startedAt = System.nanoTime();
+        
+        try {
+            for (int i = 0; i < issues.size(); i++) {
+                GitHubIssue issue = issues.get(i);
+                int slot = i;
+                limit.acquire();
+                workers.execute(() -> {
+                    long issueStartedAt = System.nanoTime();
+                    boolean throttled = false;
+                    try {
+                        results[slot] = classifier.apply(issue);
+                    } catch (Exception e) {
+                        throttled = BedrockRateLimiter.isThrottling(e);
+                        logger.error("Failed to process issue #{}: {}", issue.getNumber(), e.getMessage());
+                    } finally {
+                        long latency = System.nanoTime() - issueStartedAt;
+                        latencies[slot] = latency;
+                        limit.release(issueStartedAt, latency, results[slot] != null, throttled);
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Batch triage interrupted with {} issues outstanding", done.getCount());
+        }
+        
+        List<TriageResult> completed = new ArrayList<>();
+        Arrays.stream(results).filter(Objects::nonNull).forEach(completed::add);
+        lastRunSummary = summarize(issues.size(), completed.size(), System.nanoTime() - startedAt, latencies, limit);
+        logger.info("Batch triage summary: {}", lastRunSummary);
+        return completed;
+    }
+    
+    public Map<String, Object> getLastRunSummary() {
+        return lastRunSummary;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+    
+    private Map<String, Object> summarize(int issues, int succeeded, long elapsedNanos, long[] latencies,
+                                          ConcurrencyLimit limit) {
+        long[] sorted = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+        double elapsedSeconds = elapsedNanos / 1e9;
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("issues", issues);
+        summary.put("succeeded", succeeded);
+        summary.put("failed", issues - succeeded);
+        summary.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        summary.put("issuesPerMinute", elapsedSeconds == 0 ? 0.0 : succeeded * 60 / elapsedSeconds);
+        summary.put("latencyP50Ms", percentileMillis(sorted, 0.50));
+        summary.put("latencyP90Ms", percentileMillis(sorted, 0.90));
+        summary.put("latencyP99Ms", percentileMillis(sorted, 0.99));
+        summary.put("latencyMaxMs", sorted.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(sorted[sorted.length - 1]));
+        synchronized (limit) {
+            summary.put("peakInFlight", limit.peakInFlight);
+            summary.put("avgInFlight", elapsedNanos == 0 ? 0.0 : limit.inFlightNanos / (double) elapsedNanos);
+            summary.put("finalConcurrencyLimit", (int) limit.limit);
+            summary.put("maxConcurrencyLimit", (int) limit.highestLimit);
+            summary.put("decreases", limit.decreases);
+        }
+        return summary;
+    }
+    
+    // Nearest-rank percentile
+    private static long percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, rank - 1)]);
+    }
+    
+    private class ConcurrencyLimit {
+        private double limit = Math.max(1, Math.min(settings.getInitialConcurrency(), settings.getMaxConcurrency()));
+        private double highestLimit = limit;
+        private int inFlight;
+        private int peakInFlight;
+        private int decreases;
+        
+        // Time-weighted in-flight count, for the average
+        private long inFlightNanos;
+        private long lastChangeNanos = System.nanoTime();
+        
+        private double baselineLatencyNanos;
+        private long lastDecreaseNanos = System.nanoTime();
+        private long lastThrottleCount = bedrockRateLimiter.getThrottleCount();
+        
+        synchronized void acquire() throws InterruptedException {
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+            track();
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+        }
+        
+        synchronized void release(long startedAt, long latencyNanos, boolean succeeded, boolean throttled) {
+            track();
+            inFlight--;
+            
+            // Throttled calls that were retried still count as a congestion signal
+            long throttleCount = bedrockRateLimiter.getThrottleCount();
+            boolean congested = throttled || throttleCount > lastThrottleCount || isLatencySpike(latencyNanos);
+            lastThrottleCount = throttleCount;
+            
+            // One decrease per congestion episode: issues started before the last decrease saw the old limit
+            if (congested && startedAt - lastDecreaseNanos > 0) {
+                limit = Math.max(1, limit / 2);
+                lastDecreaseNanos = System.nanoTime();
+                decreases++;
+                logger.info("Batch triage concurrency lowered to {}", (int) limit);
+            } else if (succeeded && !congested) {
+                limit = Math.min(settings.getMaxConcurrency(), limit + 1 / limit);
+                highestLimit = Math.max(highestLimit, limit);
+            }
+            
+            if (succeeded && latencyNanos >= MIN_SPIKE_NANOS) {
+                baselineLatencyNanos = baselineLatencyNanos == 0 ? latencyNanos
+                    : baselineLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - baselineLatencyNanos);
+            }
+            notifyAll();
+        }
+        
+        private boolean isLatencySpike(long latencyNanos) {
+            return baselineLatencyNanos > 0 && latencyNanos >= MIN_SPIKE_NANOS
+                && latencyNanos > baselineLatencyNanos * settings.getLatencySpikeFactor();
+        }
+        
+        private void track() {
+            long now = System.nanoTime();
+            inFlightNanos += inFlight * (now - lastChangeNanos);
+            lastChangeNanos = now;
+        }
+    }
+}
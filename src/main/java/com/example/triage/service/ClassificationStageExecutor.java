@@ -0,0 +1,220 @@
+package com.example.triage.service;
+
+import com.example.triage.config.TriageConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Runs the independent model calls of a classification concurrently. Every stage has its own
+// deadline counted from when it started, so an issue waits for its slowest stage, not the sum.
+// Each model call is retried on its own, so a failing stage never repeats the ones that succeeded.
+// A stage past its deadline is interrupted and makes no further attempts, so it frees its thread
+// instead of retrying for a result nobody waits for.
+@Component
+public class ClassificationStageExecutor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ClassificationStageExecutor.class);
+    // Stages an issue may run at once: duplicates, response suggestion and reproducibility
+    private static final int STAGES_PER_ISSUE = 3;
+    
+    // Deadline, in System.nanoTime(), of the stage running on this thread; unset outside stages
+    private static final ThreadLocal<Long> STAGE_DEADLINE = new ThreadLocal<>();
+    
+    private final ExecutorService executor;
+    private final long stageTimeoutMs;
+    
+    private final RetryTemplate criticalRetry;
+    private final RetryTemplate optionalRetry;
+    private final Map<String, StageCounters> stageCounters = new ConcurrentHashMap<>();
+    
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    
+    public ClassificationStageExecutor(TriageConfiguration config) {
+        this.stageTimeoutMs = config.getAi().getStageTimeoutMs();
+        
+        // The category is required, so its call gets the full retry budget; the other stages
+        // only enrich the result and give up sooner
+        this.criticalRetry = RetryTemplate.builder()
+            .maxAttempts(Math.max(1, config.getAi().getMaxRetries()))
+            .exponentialBackoff(2000, 2, 10000)
+            .notRetryOn(StageDeadlineException.class)
+            .build();
+        this.optionalRetry = RetryTemplate.builder()
+            .maxAttempts(2)
+            .fixedBackoff(1000)
+            .notRetryOn(StageDeadlineException.class)
+            .build();
+        
+        // Stages block on model calls; the Bedrock rate limiter bounds how many call the model, and
+        // the pool how many threads wait for it. Enough for every stage of a full batch of issues.
+        int threads = Math.max(1, config.getBatch().getMaxConcurrency()) * STAGES_PER_ISSUE;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "classification-stage");
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+    
+    public StageRun newRun(Long issueNumber) {
+        return new StageRun(issueNumber);
+    }
+    
+    public <T> T callCritical(String stage, Supplier<T> call) {
+        return call(criticalRetry, stage, call);
+    }
+    
+    public <T> T callOptional(String stage, Supplier<T> call) {
+        return call(optionalRetry, stage, call);
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("stageTimeoutMs", stageTimeoutMs);
+        stats.put("completed", completed.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("failed", failed.get());
+        
+        Map<String, Object> byStage = new HashMap<>();
+        stageCounters.forEach((stage, counters) -> byStage.put(stage, counters.toMap()));
+        stats.put("byStage", byStage);
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private <T> T call(RetryTemplate retry, String stage, Supplier<T> call) {
+        StageCounters counters = stageCounters.computeIfAbsent(stage, name -> new StageCounters());
+        counters.calls.incrementAndGet();
+        try {
+            return retry.execute(context -> {
+                if (context.getRetryCount() > 0) {
+                    Long deadline = STAGE_DEADLINE.get();
+                    if (Thread.currentThread().isInterrupted() ||
+                            (deadline != null && System.nanoTime() - deadline > 0)) {
+                        throw new StageDeadlineException(stage + " passed its deadline after " +
+                            context.getRetryCount() + " attempts");
+                    }
+                    counters.retries.incrementAndGet();
+                    logger.warn("Retrying {} (attempt {}) after: {}", stage, context.getRetryCount() + 1,
+                        context.getLastThrowable().getMessage());
+                }
+                return call.get();
+            });
+        } catch (RuntimeException e) {
+            counters.failures.incrementAndGet();
+            throw e;
+        }
+    }
+    
+    // The stages of one issue. Stages return their values instead of writing to a shared
+    // result, so a stage that finishes after its deadline cannot change what was returned.
+    public class StageRun {
+        
+        private final Long issueNumber;
+        private final List<String> incompleteStages = Collections.synchronizedList(new ArrayList<>());
+        
+        private StageRun(Long issueNumber) {
+            this.issueNumber = issueNumber;
+        }
+        
+        // The stage's thread is interrupted when the stage times out or is cancelled, which stops
+        // a retry backoff, and its retries check the deadline before every further attempt. The
+        // deadline starts when a thread picks the stage up, so time spent queued behind the stages
+        // of other issues does not count against it.
+        public <T> CompletableFuture<T> start(Supplier<T> stage) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            Future<?> task = executor.submit(() -> {
+                STAGE_DEADLINE.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stageTimeoutMs));
+                result.orTimeout(stageTimeoutMs, TimeUnit.MILLISECONDS);
+                try {
+                    result.complete(stage.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    STAGE_DEADLINE.remove();
+                }
+            });
+            result.whenComplete((value, error) -> {
+                if (error instanceof TimeoutException || error instanceof CancellationException) {
+                    task.cancel(true);
+                }
+            });
+            return result;
+        }
+        
+        // Waits for a non-critical stage; returns null and records the stage if it timed out or failed
+        public <T> T await(String name, CompletableFuture<T> stage) {
+            try {
+                T value = stage.get();
+                completed.incrementAndGet();
+                return value;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                incompleteStages.add(name);
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    timedOut.incrementAndGet();
+                    logger.warn("Stage {} of issue #{} timed out after {} ms", name, issueNumber, stageTimeoutMs);
+                } else {
+                    failed.incrementAndGet();
+                    logger.warn("Stage {} of issue #{} failed: {}", name, issueNumber, e.getCause().getMessage());
+                }
+                incompleteStages.add(name);
+                return null;
+            }
+        }
+        
+        public List<String> getIncompleteStages() {
+            return new ArrayList<>(incompleteStages);
+        }
+    }
+    
+    private static class StageDeadlineException extends RuntimeException {
+        StageDeadlineException(String message) {
+            super(message);
+        }
+    }
+    
+    private static class StageCounters {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("calls", calls.get());
+            map.put("retries", retries.get());
+            map.put("failures", failures.get());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.example.triage.service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+// Approximate nearest neighbour search over issue embeddings with an HNSW graph. Vectors are
+// normalised, so similarity is their dot product. All vectors live in one float buffer: a heap
+// array while the index is built, or a read-only mapping of the saved file after a restart, so a
+// large knowledge base costs no heap for its vectors until an issue is added.
+public class HnswVectorIndex {
+    
+    private static final int MAGIC = 0x4b42564e; // "KBVN"
+    private static final int VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+    // Replaced and removed entries stay in the graph so searches can pass through them, until they
+    // are a quarter of all nodes; then the graph is rebuilt from the live vectors
+    private static final int DELETED = -1;
+    
+    private final int dimensions;
+    private final int m;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final String embedder;
+    // Same graph for the same insertion order
+    private final Random random = new Random(42);
+    
+    private FloatBuffer vectors;
+    private float[] heapVectors;
+    private boolean mapped;
+    
+    private int[] numbers = new int[16];
+    private int[] levels = new int[16];
+    // Per node: level 0 links, then each higher level; each block starts with its link count
+    private int[][] links = new int[16][];
+    private int count;
+    private final Map<Integer, Integer> nodeByNumber = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    
+    // Vectors are copied out of the buffer in bulk; a dot product over two arrays is much faster
+    // than one buffer read per dimension. Guarded by this, like everything else.
+    private final float[] scratchA;
+    private final float[] scratchB;
+    
+    public HnswVectorIndex(int dimensions, int m, int efConstruction, String embedder) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxLinksLevel0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+        this.embedder = embedder;
+        this.heapVectors = new float[16 * dimensions];
+        this.vectors = FloatBuffer.wrap(heapVectors);
+        this.scratchA = new float[dimensions];
+        this.scratchB = new float[dimensions];
+    }
+    
+    // An index with the same graph that changes independently of this one, so a refresh can update
+    // it while searches of the published snapshot go on using this one. Mapped vectors are shared
+    // until the copy first changes.
+    public synchronized HnswVectorIndex copy() {
+        HnswVectorIndex copy = new HnswVectorIndex(dimensions, m, efConstruction, embedder);
+        if (mapped) {
+            copy.vectors = vectors.duplicate();
+            copy.heapVectors = null;
+            copy.mapped = true;
+        } else {
+            copy.heapVectors = heapVectors.clone();
+            copy.vectors = FloatBuffer.wrap(copy.heapVectors);
+        }
+        copy.numbers = numbers.clone();
+        copy.levels = levels.clone();
+        // Links are changed in place as neighbours are added
+        copy.links = new int[links.length][];
+        for (int node = 0; node < count; node++) {
+            copy.links[node] = links[node].clone();
+        }
+        copy.count = count;
+        copy.nodeByNumber.putAll(nodeByNumber);
+        copy.entryPoint = entryPoint;
+        copy.maxLevel = maxLevel;
+        return copy;
+    }
+    
+    // Adding an issue number that is already indexed replaces the earlier vector
+    public synchronized void add(int number, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        Integer existing = nodeByNumber.remove(number);
+        if (existing != null) {
+            numbers[existing] = DELETED;
+            compactIfMostlyDeleted();
+        }
+        insert(number, normalize(vector));
+    }
+    
+    private void insert(int number, float[] normalized) {
+        int node = count;
+        ensureCapacity(node + 1);
+        vectors.put(node * dimensions, normalized);
+        int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelFactor));
+        numbers[node] = number;
+        levels[node] = level;
+        links[node] = new int[linkOffset(level + 1)];
+        nodeByNumber.put(number, node);
+        count++;
+        
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        
+        int closest = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            closest = greedyClosest(normalized, closest, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(normalized, closest, efConstruction, l);
+            List<Candidate> neighbours = selectNeighbours(candidates, maxLinks(l));
+            for (Candidate neighbour : neighbours) {
+                addLink(node, neighbour.node, l);
+                connect(neighbour.node, node, l);
+            }
+            closest = candidates.get(0).node;
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+    
+    public synchronized boolean remove(int number) {
+        Integer node = nodeByNumber.remove(number);
+        if (node == null) {
+            return false;
+        }
+        numbers[node] = DELETED;
+        compactIfMostlyDeleted();
+        return true;
+    }
+    
+    // Inserts the live vectors, in their order, into an empty graph. Their vectors are normalised
+    // already and need not be embedded again.
+    private void compactIfMostlyDeleted() {
+        int live = nodeByNumber.size();
+        if (count - live <= count / 4) {
+            return;
+        }
+        int[] liveNumbers = new int[live];
+        float[][] liveVectors = new float[live][];
+        int next = 0;
+        for (int node = 0; node < count; node++) {
+            if (numbers[node] != DELETED) {
+                liveNumbers[next] = numbers[node];
+                liveVectors[next] = new float[dimensions];
+                vectors.get(node * dimensions, liveVectors[next], 0, dimensions);
+                next++;
+            }
+        }
+        
+        int capacity = Math.max(16, live);
+        heapVectors = new float[capacity * dimensions];
+        vectors = FloatBuffer.wrap(heapVectors);
+        mapped = false;
+        numbers = new int[capacity];
+        levels = new int[capacity];
+        links = new int[capacity][];
+        count = 0;
+        nodeByNumber.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+        for (int i = 0; i < live; i++) {
+            insert(liveNumbers[i], liveVectors[i]);
+        }
+    }
+    
+    // The closest issues, most similar first; excludeNumber skips the issue itself
+    public synchronized List<Match> search(float[] query, int limit, int efSearch, Integer excludeNumber) {
+        if (nodeByNumber.isEmpty() || limit <= 0 || query.length != dimensions) {
+            return new ArrayList<>();
+        }
+        float[] normalized = normalize(query);
+        int closest = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            closest = greedyClosest(normalized, closest, l);
+        }
+        
+        List<Match> matches = new ArrayList<>();
+        for (Candidate candidate : searchLayer(normalized, closest, Math.max(efSearch, limit + 1), 0)) {
+            int number = numbers[candidate.node];
+            if (number == DELETED || (excludeNumber != null && number == excludeNumber)) {
+                continue;
+            }
+            matches.add(new Match(number, candidate.similarity));
+            if (matches.size() == limit) {
+                break;
+            }
+        }
+        return matches;
+    }
+    
+    public synchronized boolean contains(int number) {
+        return nodeByNumber.containsKey(number);
+    }
+    
+    public synchronized int size() {
+        return nodeByNumber.size();
+    }
+    
+    public synchronized boolean isMapped() {
+        return mapped;
+    }
+    
+    // Written to a temporary file and renamed, so a reader never maps a partial index. Little-endian,
+    // the byte order of the machines this runs on, so mapped vectors are read without swapping bytes.
+    public synchronized void save(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] embedderBytes = embedder.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(dimensions).putInt(m)
+                .putInt(count).putInt(entryPoint).putInt(maxLevel).putInt(embedderBytes.length);
+            buffer.put(embedderBytes);
+            // Keep the vectors 4-byte aligned
+            buffer.put(new byte[(4 - embedderBytes.length % 4) % 4]);
+            for (int node = 0; node < count; node++) {
+                buffer = writeInt(channel, buffer, numbers[node]);
+            }
+            for (int node = 0; node < count; node++) {
+                buffer = writeInt(channel, buffer, levels[node]);
+            }
+            for (int i = 0; i < count * dimensions; i++) {
+                if (buffer.remaining() < 4) {
+                    flush(channel, buffer);
+                }
+                buffer.putFloat(vectors.get(i));
+            }
+            for (int node = 0; node < count; node++) {
+                for (int link : links[node]) {
+                    buffer = writeInt(channel, buffer, link);
+                }
+            }
+            flush(channel, buffer);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Maps a saved index; null if there is none or it was built with other settings or another embedder
+    public static HnswVectorIndex load(Path file, int dimensions, int m, int efConstruction, String embedder)
+            throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        // A private copy, like the knowledge base file, so replacing the file cannot break the mapping
+        ByteBuffer buffer = KnowledgeBaseFile.mapCopy(file);
+        if (buffer == null) {
+            return null;
+        }
+        
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION ||
+                buffer.getInt() != dimensions || buffer.getInt() != m) {
+                return null;
+            }
+            int count = buffer.getInt();
+            int entryPoint = buffer.getInt();
+            int maxLevel = buffer.getInt();
+            byte[] embedderBytes = new byte[buffer.getInt()];
+            buffer.get(embedderBytes);
+            if (!embedder.equals(new String(embedderBytes, StandardCharsets.UTF_8))) {
+                return null;
+            }
+            buffer.position(buffer.position() + (4 - embedderBytes.length % 4) % 4);
+            
+            HnswVectorIndex index = new HnswVectorIndex(dimensions, m, efConstruction, embedder);
+            index.numbers = new int[Math.max(16, count)];
+            index.levels = new int[Math.max(16, count)];
+            index.links = new int[Math.max(16, count)][];
+            buffer.asIntBuffer().get(index.numbers, 0, count);
+            buffer.position(buffer.position() + count * 4);
+            buffer.asIntBuffer().get(index.levels, 0, count);
+            buffer.position(buffer.position() + count * 4);
+            
+            int vectorBytes = count * dimensions * 4;
+            index.vectors = buffer.slice(buffer.position(), vectorBytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            index.heapVectors = null;
+            index.mapped = true;
+            buffer.position(buffer.position() + vectorBytes);
+            
+            for (int node = 0; node < count; node++) {
+                int[] nodeLinks = new int[index.linkOffset(index.levels[node] + 1)];
+                buffer.asIntBuffer().get(nodeLinks);
+                buffer.position(buffer.position() + nodeLinks.length * 4);
+                index.links[node] = nodeLinks;
+                if (index.numbers[node] != DELETED) {
+                    index.nodeByNumber.put(index.numbers[node], node);
+                }
+            }
+            index.count = count;
+            index.entryPoint = entryPoint;
+            index.maxLevel = maxLevel;
+            return index;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            // Truncated or damaged file
+            return null;
+        }
+    }
+    
+    private int greedyClosest(float[] query, int start, int level) {
+        int closest = start;
+        float best = similarity(query, closest);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] nodeLinks = links[closest];
+            int offset = linkOffset(level);
+            for (int i = 1; i <= nodeLinks[offset]; i++) {
+                int neighbour = nodeLinks[offset + i];
+                float similarity = similarity(query, neighbour);
+                if (similarity > best) {
+                    best = similarity;
+                    closest = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return closest;
+    }
+    
+    // Beam search of one level; returns up to ef nodes, most similar first
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(count);
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(Comparator.comparingDouble(Candidate::negated));
+        PriorityQueue<Candidate> found = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity));
+        Candidate first = new Candidate(start, similarity(query, start));
+        visited.set(start);
+        toVisit.add(first);
+        found.add(first);
+        
+        while (!toVisit.isEmpty()) {
+            Candidate current = toVisit.poll();
+            if (found.size() >= ef && current.similarity < found.peek().similarity) {
+                break;
+            }
+            int[] nodeLinks = links[current.node];
+            int offset = linkOffset(level);
+            for (int i = 1; i <= nodeLinks[offset]; i++) {
+                int neighbour = nodeLinks[offset + i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float similarity = similarity(query, neighbour);
+                if (found.size() < ef || similarity > found.peek().similarity) {
+                    Candidate candidate = new Candidate(neighbour, similarity);
+                    toVisit.add(candidate);
+                    found.add(candidate);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort(Comparator.comparingDouble(Candidate::negated));
+        return result;
+    }
+    
+    // Prefers neighbours in different directions over a cluster of near-identical ones, which keeps
+    // the graph navigable; the closest skipped candidates fill any remaining slots
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int max) {
+        List<Candidate> selected = new ArrayList<>();
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == max) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (similarity(candidate.node, chosen.node) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : skipped).add(candidate);
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+    
+    // Links node to target, pruning node's links at this level when they are full
+    private void connect(int node, int target, int level) {
+        int[] nodeLinks = links[node];
+        int offset = linkOffset(level);
+        if (nodeLinks[offset] < maxLinks(level)) {
+            addLink(node, target, level);
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate(target, similarity(node, target)));
+        for (int i = 1; i <= nodeLinks[offset]; i++) {
+            candidates.add(new Candidate(nodeLinks[offset + i], similarity(node, nodeLinks[offset + i])));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::negated));
+        List<Candidate> kept = selectNeighbours(candidates, maxLinks(level));
+        nodeLinks[offset] = kept.size();
+        for (int i = 0; i < kept.size(); i++) {
+            nodeLinks[offset + 1 + i] = kept.get(i).node;
+        }
+    }
+    
+    private void addLink(int node, int target, int level) {
+        int[] nodeLinks = links[node];
+        int offset = linkOffset(level);
+        nodeLinks[offset]++;
+        nodeLinks[offset + nodeLinks[offset]] = target;
+    }
+    
+    private int maxLinks(int level) {
+        return level == 0 ? maxLinksLevel0 : m;
+    }
+    
+    private int linkOffset(int level) {
+        return level == 0 ? 0 : 1 + maxLinksLevel0 + (level - 1) * (1 + m);
+    }
+    
+    private float similarity(float[] query, int node) {
+        vectors.get(node * dimensions, scratchA, 0, dimensions);
+        return dot(query, scratchA);
+    }
+    
+    private float similarity(int a, int b) {
+        vectors.get(a * dimensions, scratchA, 0, dimensions);
+        vectors.get(b * dimensions, scratchB, 0, dimensions);
+        return dot(scratchA, scratchB);
+    }
+    
+    private float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+    
+    private static ByteBuffer writeInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        return buffer.putInt(value);
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    // A mapped index is copied to the heap the first time it changes
+    private void ensureCapacity(int nodes) {
+        if (mapped || heapVectors.length < nodes * dimensions) {
+            float[] grown = new float[Math.max(nodes, numbers.length) * 2 * dimensions];
+            vectors.get(0, grown, 0, count * dimensions);
+            heapVectors = grown;
+            vectors = FloatBuffer.wrap(heapVectors);
+            mapped = false;
+        }
+        if (numbers.length < nodes) {
+            numbers = Arrays.copyOf(numbers, nodes * 2);
+            levels = Arrays.copyOf(levels, nodes * 2);
+            links = Arrays.copyOf(links, nodes * 2);
+        }
+    }
+    
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+    
+    private static class Candidate {
+        private final int node;
+        private final float similarity;
+        
+        Candidate(int node, float similarity) {
+            this.node = node;
+            this.similarity = similarity;
+        }
+        
+        float similarity() {
+            return similarity;
+        }
+        
+        float negated() {
+            return -similarity;
+        }
+    }
+    
+    public static class Match {
+        private final int number;
+        private final double score;
+        
+        Match(int number, double score) {
+            this.number = number;
+            this.score = score;
+        }
+        
+        public int getNumber() {
+            return number;
+        }
+        
+        public double getScore() {
+            return score;
+        }
+    }
+}
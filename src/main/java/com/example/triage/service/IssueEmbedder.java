@@ -0,0 +1,109 @@
+package com.example.triage.service;
+
+import com.example.triage.config.TriageConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Turns an issue's title and body into a vector for the semantic knowledge base index. The
+// default hashing embedder needs no model or network: words and word pairs are hashed into a
+// fixed number of signed buckets. With the model embedder, vectors come from the Spring AI
+// EmbeddingModel the Bedrock starter provides when an embedding model is enabled.
+@Component
+public class IssueEmbedder {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IssueEmbedder.class);
+    
+    // Enough of a body to carry its error messages and key terms
+    private static final int BODY_CHARS = 2000;
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float BODY_WEIGHT = 1f;
+    // Word pairs keep some phrase information, such as "token refresh" versus either word alone
+    private static final float PAIR_WEIGHT = 0.5f;
+    
+    private final EmbeddingModel embeddingModel;
+    private final int dimensions;
+    private final String id;
+    
+    public IssueEmbedder(TriageConfiguration config, ObjectProvider<EmbeddingModel> embeddingModels) {
+        EmbeddingModel model = null;
+        int modelDimensions = 0;
+        if (config.getKnowledgeBase().getEmbedder() == TriageConfiguration.EmbedderType.MODEL) {
+            model = embeddingModels.getIfAvailable();
+            if (model == null) {
+                logger.warn("No embedding model is configured, using the hashing embedder");
+            } else {
+                try {
+                    modelDimensions = model.dimensions();
+                } catch (RuntimeException e) {
+                    logger.warn("Embedding model unavailable, using the hashing embedder: {}", e.getMessage());
+                    model = null;
+                }
+            }
+        }
+        
+        this.embeddingModel = model;
+        if (model != null) {
+            this.dimensions = modelDimensions;
+            this.id = "model:" + model.getClass().getSimpleName() + ":" + modelDimensions;
+        } else {
+            this.dimensions = config.getKnowledgeBase().getEmbeddingDimensions();
+            this.id = "hashing-v1:" + dimensions;
+        }
+        logger.info("Issue embedder: {}", id);
+    }
+    
+    public float[] embed(String title, String body) {
+        String truncatedBody = body == null ? "" : body.substring(0, Math.min(body.length(), BODY_CHARS));
+        if (embeddingModel != null) {
+            return embeddingModel.embed((title == null ? "" : title) + "\n\n" + truncatedBody);
+        }
+        float[] vector = new float[dimensions];
+        addFeatures(vector, IssueSimilarityIndex.tokens(title), TITLE_WEIGHT);
+        addFeatures(vector, IssueSimilarityIndex.tokens(truncatedBody), BODY_WEIGHT);
+        // Sublinear, so a term repeated throughout a pasted log does not dominate
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = Math.signum(vector[i]) * (float) Math.log1p(Math.abs(vector[i]));
+        }
+        return vector;
+    }
+    
+    public int getDimensions() {
+        return dimensions;
+    }
+    
+    // Identifies the vector space; an index built by another embedder is rebuilt
+    public String getId() {
+        return id;
+    }
+    
+    private void addFeatures(float[] vector, List<String> tokens, float weight) {
+        for (int i = 0; i < tokens.size(); i++) {
+            addFeature(vector, tokens.get(i), weight);
+            if (i > 0) {
+                addFeature(vector, tokens.get(i - 1) + " " + tokens.get(i), weight * PAIR_WEIGHT);
+            }
+        }
+    }
+    
+    // String.hashCode is specified, so vectors are the same on every JVM and after restarts
+    private void addFeature(float[] vector, String feature, float weight) {
+        int hash = mix(feature.hashCode());
+        int bucket = Math.floorMod(hash, dimensions);
+        vector[bucket] += (hash >>> 31) == 0 ? weight : -weight;
+    }
+    
+    // MurmurHash3 finaliser: spreads similar strings over different buckets and signs
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.triage.service;
+
+import com.example.triage.client.GitHubClient;
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class IssueMirrorService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IssueMirrorService.class);
+    private static final String PENDING_TRIAGE_LABEL = "pending-triage";
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+    
+    private static final Comparator<GitHubIssue> NEWEST_FIRST = Comparator
+        .comparing(GitHubIssue::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(GitHubIssue::getNumber, Comparator.reverseOrder());
+    
+    private final GitHubClient gitHubClient;
+    private final TriageConfiguration config;
+    // Open pending-triage issues; loaded once, then kept current with the issues API since= parameter
+    private final Map<Long, GitHubIssue> issues = new ConcurrentHashMap<>();
+    private final Object syncLock = new Object();
+    
+    // Sorted, immutable view handed out to readers; rebuilt after every change
+    private volatile List<GitHubIssue> snapshot = List.of();
+    // Set once the first load is published; readers check it without the lock. In UTC, like
+    // GitHub's updated_at, and so is lastSyncedAt.
+    private volatile LocalDateTime highWaterMark;
+    private volatile LocalDateTime lastSyncedAt;
+    
+    public IssueMirrorService(GitHubClient gitHubClient, TriageConfiguration config) {
+        this.gitHubClient = gitHubClient;
+        this.config = config;
+    }
+    
+    public List<GitHubIssue> getPendingIssues() {
+        if (!config.getMirror().isEnabled()) {
+            return gitHubClient.fetchPendingTriageIssues(Integer.MAX_VALUE);
+        }
+        ensureLoaded();
+        return snapshot;
+    }
+    
+    public Optional<GitHubIssue> findPendingIssue(long issueNumber) {
+        if (!config.getMirror().isEnabled()) {
+            return getPendingIssues().stream()
+                .filter(issue -> issue.getNumber() == issueNumber)
+                .findFirst();
+        }
+        ensureLoaded();
+        return Optional.ofNullable(issues.get(issueNumber));
+    }
+    
+    public void removeIssue(long issueNumber) {
+        synchronized (syncLock) {
+            if (issues.remove(issueNumber) != null) {
+                rebuildSnapshot();
+                logger.debug("Removed issue #{} from mirror", issueNumber);
+            }
+        }
+    }
+    
+    // Applies a freshly fetched issue, e.g. from a webhook, without waiting for the next sync
+    public void refreshIssue(GitHubIssue issue) {
+        synchronized (syncLock) {
+            if (highWaterMark == null) {
+                return; // Not loaded yet; the first load will include it
+            }
+            apply(issue);
+            rebuildSnapshot();
+        }
+    }
+    
+    public LocalDateTime getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+    
+    @Scheduled(
+        fixedDelayString = "${triage.mirror.sync-interval-ms:60000}",
+        initialDelayString = "${triage.mirror.sync-interval-ms:60000}"
+    )
+    public void scheduledSync() {
+        // Only keep an already loaded mirror fresh; the first load happens on demand
+        if (!config.getMirror().isEnabled() || highWaterMark == null) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            logger.warn("Issue mirror sync failed, will retry on next interval: {}", e.getMessage());
+        }
+    }
+    
+    public void sync() {
+        synchronized (syncLock) {
+            if (highWaterMark == null) {
+                loadAll();
+                return;
+            }
+            
+            LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC);
+            // Changed issues are applied as they are decoded, without collecting them first
+            LocalDateTime[] newMark = {highWaterMark};
+            int changed = gitHubClient.forEachIssueUpdatedSince(highWaterMark, issue -> {
+                apply(issue);
+                if (issue.getUpdatedAt() != null && issue.getUpdatedAt().isAfter(newMark[0])) {
+                    newMark[0] = issue.getUpdatedAt();
+                }
+            });
+            
+            // An issue updated while its pages are fetched moves to the end of the listing and shifts
+            // the later pages, so one on a page boundary can be missed. The next sync starts from
+            // before this one did and fetches it again; applying an issue twice changes nothing.
+            LocalDateTime overlapStart = startedAt.minusSeconds(SYNC_OVERLAP_SECONDS);
+            if (newMark[0].isAfter(overlapStart)) {
+                newMark[0] = overlapStart.isAfter(highWaterMark) ? overlapStart : highWaterMark;
+            }
+            highWaterMark = newMark[0];
+            lastSyncedAt = LocalDateTime.now(ZoneOffset.UTC);
+            if (changed > 0) {
+                rebuildSnapshot();
+            }
+            logger.info("Issue mirror synced: {} changed issues, {} pending-triage", changed, issues.size());
+        }
+    }
+    
+    private void ensureLoaded() {
+        if (highWaterMark == null) {
+            sync();
+        }
+    }
+    
+    private void loadAll() {
+        // Anything updated while the listing runs is picked up by the next incremental sync
+        LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC).minusSeconds(SYNC_OVERLAP_SECONDS);
+        
+        issues.clear();
+        gitHubClient.forEachPendingTriageIssue(Integer.MAX_VALUE, issue -> issues.put(issue.getNumber(), issue));
+        
+        rebuildSnapshot();
+        lastSyncedAt = LocalDateTime.now(ZoneOffset.UTC);
+        // Last, so a reader that sees the mirror loaded also sees its snapshot
+        highWaterMark = startedAt;
+        logger.info("Issue mirror loaded with {} pending-triage issues", issues.size());
+    }
+    
+    private void apply(GitHubIssue issue) {
+        boolean open = issue.getState() == null || "open".equalsIgnoreCase(issue.getState());
+        boolean pending = issue.getLabels() != null && issue.getLabels().stream()
+            .anyMatch(label -> PENDING_TRIAGE_LABEL.equals(label.getName()));
+        
+        if (open && pending) {
+            issues.put(issue.getNumber(), issue);
+        } else {
+            issues.remove(issue.getNumber());
+        }
+    }
+    
+    private void rebuildSnapshot() {
+        List<GitHubIssue> sorted = new ArrayList<>(issues.values());
+        sorted.sort(NEWEST_FIRST);
+        snapshot = List.copyOf(sorted);
+    }
+}
@@ -0,0 +1,457 @@
+package com.example.triage.service;
+
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// TF-IDF inverted index over knowledge base issues: title, body, key terms and team comments.
+// A query only touches the posting lists of its own terms, and issues can be added or replaced
+// one at a time, so lookups stay well under a millisecond while the knowledge base grows.
+public class IssueSimilarityIndex {
+    
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+        "the", "and", "for", "with", "this", "that", "when", "from", "not", "are", "was", "but",
+        "have", "has", "can", "does", "doesn", "don", "into", "after", "before", "there", "then",
+        "than", "what", "why", "how", "which", "while", "would", "should", "could", "get", "use",
+        "using", "issue", "please", "thanks", "also", "just", "still", "all", "any", "you", "our");
+    
+    // A title states the problem; its terms count double
+    private static final float TITLE_WEIGHT = 2f;
+    private static final float TEXT_WEIGHT = 1f;
+    // Enough of a body to carry its error messages and key terms
+    private static final int BODY_CHARS = 2000;
+    
+    // Each term once, by id, with the documents that contain it and how many of them are live
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private int[] documentFrequency = new int[256];
+    // Per document: the issue number and its term ids. Summaries are not kept; callers look them
+    // up in the knowledge base by number.
+    private int[] numbers = new int[16];
+    private int[][] documentTerms = new int[16][];
+    private int documents;
+    private final BitSet removed = new BitSet();
+    private final Map<Integer, Integer> documentByNumber = new HashMap<>();
+    private int liveDocuments;
+    
+    // Searches share the read lock; adding and removing take the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Vector lengths depend on every document's idf, so after a change they are all recomputed by
+    // the next search
+    private double[] norms = new double[16];
+    private boolean normsStale;
+    // Score arrays of finished searches, reused so a search allocates nothing the size of the index
+    private final Queue<Scores> scores = new ConcurrentLinkedQueue<>();
+    
+    // Summaries are built one at a time from the knowledge base's columns and not kept
+    public static IssueSimilarityIndex of(KnowledgeBase kb) {
+        IssueSimilarityIndex index = new IssueSimilarityIndex();
+        for (IssueCategory category : IssueCategory.values()) {
+            kb.getIssuesByCategory(category).forEach(index::add);
+        }
+        return index;
+    }
+    
+    // An index with the same entries that changes independently of this one, so a refresh can update
+    // it while searches of the published snapshot go on using this one
+    public IssueSimilarityIndex copy() {
+        lock.readLock().lock();
+        try {
+            IssueSimilarityIndex copy = new IssueSimilarityIndex();
+            copy.termIds.putAll(termIds);
+            for (PostingList list : postings) {
+                copy.postings.add(list.copy());
+            }
+            copy.documentFrequency = documentFrequency.clone();
+            copy.numbers = numbers.clone();
+            // Compaction renumbers a document's term ids in place
+            copy.documentTerms = new int[documentTerms.length][];
+            for (int id = 0; id < documents; id++) {
+                copy.documentTerms[id] = documentTerms[id] != null ? documentTerms[id].clone() : null;
+            }
+            copy.documents = documents;
+            copy.removed.or(removed);
+            copy.documentByNumber.putAll(documentByNumber);
+            copy.liveDocuments = liveDocuments;
+            copy.norms = norms.clone();
+            copy.normsStale = normsStale;
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Adding an issue number that is already indexed replaces the earlier entry
+    public void add(KnowledgeBase.IssueSummary issue) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, issue.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, truncate(issue.getBody()), TEXT_WEIGHT);
+        addTerms(terms, issue.getKeyTerms(), TEXT_WEIGHT);
+        addTerms(terms, issue.getOrgMemberComments(), TEXT_WEIGHT);
+        
+        lock.writeLock().lock();
+        try {
+            Integer existing = documentByNumber.get(issue.getNumber());
+            if (existing != null) {
+                removeDocument(existing);
+            }
+            
+            int id = documents;
+            ensureCapacity(id + 1);
+            int[] ids = new int[terms.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                int termId = termIds.computeIfAbsent(term.getKey(), t -> {
+                    postings.add(new PostingList());
+                    return postings.size() - 1;
+                });
+                if (termId == documentFrequency.length) {
+                    documentFrequency = Arrays.copyOf(documentFrequency, termId * 2);
+                }
+                ids[i++] = termId;
+                postings.get(termId).add(id, (float) tf(term.getValue()));
+                documentFrequency[termId]++;
+            }
+            numbers[id] = issue.getNumber();
+            documentTerms[id] = ids;
+            documentByNumber.put(issue.getNumber(), id);
+            documents++;
+            liveDocuments++;
+            normsStale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean remove(int number) {
+        lock.writeLock().lock();
+        try {
+            Integer id = documentByNumber.get(number);
+            if (id == null) {
+                return false;
+            }
+            removeDocument(id);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean contains(int number) {
+        lock.readLock().lock();
+        try {
+            return documentByNumber.containsKey(number);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Cosine similarity of TF-IDF vectors, highest first; excludeNumber skips the issue itself
+    public List<Match> search(String title, String body, int limit, Integer excludeNumber) {
+        Map<String, Float> query = new HashMap<>();
+        addTerms(query, title, TITLE_WEIGHT);
+        addTerms(query, truncate(body), TEXT_WEIGHT);
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        
+        lockForSearch();
+        try {
+            return liveDocuments == 0 ? new ArrayList<>() : search(query, limit, excludeNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Takes the read lock, first bringing the norms up to date under the write lock if a change made
+    // them stale
+    private void lockForSearch() {
+        lock.readLock().lock();
+        if (!normsStale) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (normsStale) {
+                computeNorms();
+                normsStale = false;
+            }
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private List<Match> search(Map<String, Float> query, int limit, Integer excludeNumber) {
+        // Scores accumulate in an array indexed by document; touched lists the documents that have one
+        Scores scratch = scores.poll();
+        if (scratch == null || scratch.dotProducts.length < documents) {
+            scratch = new Scores(numbers.length);
+        }
+        double[] dotProducts = scratch.dotProducts;
+        int[] touched = scratch.touched;
+        int touchedCount = 0;
+        double queryNorm = 0;
+        for (Map.Entry<String, Float> entry : query.entrySet()) {
+            Integer termId = termIds.get(entry.getKey());
+            if (termId == null || documentFrequency[termId] == 0) {
+                continue;
+            }
+            double idf = idf(documentFrequency[termId]);
+            double queryWeight = tf(entry.getValue()) * idf;
+            queryNorm += queryWeight * queryWeight;
+            PostingList list = postings.get(termId);
+            for (int p = 0; p < list.size; p++) {
+                int document = list.documents[p];
+                if (removed.get(document)) {
+                    continue;
+                }
+                if (dotProducts[document] == 0) {
+                    touched[touchedCount++] = document;
+                }
+                dotProducts[document] += queryWeight * list.weights[p] * idf;
+            }
+        }
+        
+        double queryLength = Math.sqrt(queryNorm);
+        PriorityQueue<Match> top = new PriorityQueue<>(Comparator.comparingDouble(Match::getScore));
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            double dotProduct = dotProducts[id];
+            dotProducts[id] = 0;
+            if (excludeNumber != null && numbers[id] == excludeNumber) {
+                continue;
+            }
+            top.add(new Match(numbers[id], dotProduct / (queryLength * norms[id])));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        scores.offer(scratch);
+        
+        List<Match> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(Match::getScore).reversed());
+        return ranked;
+    }
+    
+    private void removeDocument(int id) {
+        removed.set(id, true);
+        documentByNumber.remove(numbers[id]);
+        for (int termId : documentTerms[id]) {
+            documentFrequency[termId]--;
+        }
+        documentTerms[id] = null;
+        liveDocuments--;
+        normsStale = true;
+        if (documents - liveDocuments > documents / 4) {
+            compact();
+        }
+    }
+    
+    // One pass over the posting lists; each posting adds its squared weight to its document's norm
+    private void computeNorms() {
+        Arrays.fill(norms, 0, documents, 0);
+        for (int termId = 0; termId < postings.size(); termId++) {
+            if (documentFrequency[termId] == 0) {
+                continue;
+            }
+            double idf = idf(documentFrequency[termId]);
+            PostingList list = postings.get(termId);
+            for (int p = 0; p < list.size; p++) {
+                double weight = list.weights[p] * idf;
+                norms[list.documents[p]] += weight * weight;
+            }
+        }
+        for (int id = 0; id < documents; id++) {
+            norms[id] = Math.sqrt(norms[id]);
+        }
+    }
+    
+    // Once removed documents are a quarter of all, they are dropped from the posting lists and the
+    // remaining documents and terms are numbered again, so the cost is spread over the removals
+    private void compact() {
+        int[] newDocumentIds = new int[documents];
+        int live = 0;
+        for (int id = 0; id < documents; id++) {
+            if (removed.get(id)) {
+                newDocumentIds[id] = -1;
+                continue;
+            }
+            newDocumentIds[id] = live;
+            numbers[live] = numbers[id];
+            documentTerms[live] = documentTerms[id];
+            documentByNumber.put(numbers[live], live);
+            live++;
+        }
+        Arrays.fill(documentTerms, live, documents, null);
+        
+        int[] newTermIds = new int[postings.size()];
+        List<PostingList> livePostings = new ArrayList<>();
+        for (int termId = 0; termId < postings.size(); termId++) {
+            if (documentFrequency[termId] == 0) {
+                newTermIds[termId] = -1;
+                continue;
+            }
+            newTermIds[termId] = livePostings.size();
+            documentFrequency[livePostings.size()] = documentFrequency[termId];
+            livePostings.add(postings.get(termId).compact(newDocumentIds));
+        }
+        Arrays.fill(documentFrequency, livePostings.size(), postings.size(), 0);
+        termIds.entrySet().removeIf(term -> newTermIds[term.getValue()] < 0);
+        termIds.replaceAll((term, termId) -> newTermIds[termId]);
+        postings.clear();
+        postings.addAll(livePostings);
+        for (int id = 0; id < live; id++) {
+            int[] ids = documentTerms[id];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = newTermIds[ids[i]];
+            }
+        }
+        
+        removed.clear();
+        documents = live;
+    }
+    
+    private void ensureCapacity(int size) {
+        if (numbers.length < size) {
+            int capacity = Math.max(size, numbers.length * 2);
+            numbers = Arrays.copyOf(numbers, capacity);
+            documentTerms = Arrays.copyOf(documentTerms, capacity);
+            norms = Arrays.copyOf(norms, capacity);
+        }
+    }
+    
+    private double idf(int frequency) {
+        return Math.log((double) (liveDocuments + 1) / frequency) + 1;
+    }
+    
+    // Sublinear, so a term repeated throughout a pasted log does not dominate
+    private static double tf(float frequency) {
+        return 1 + Math.log(frequency);
+    }
+    
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokens(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+    
+    // Lower-cased words of three or more letters, without stop words; shared with IssueEmbedder
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        for (String token : NON_WORD.split(text.toLowerCase())) {
+            if (token.length() >= 3 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
+    private static String truncate(String body) {
+        return body == null || body.length() <= BODY_CHARS ? body : body.substring(0, BODY_CHARS);
+    }
+    
+    // The documents that contain one term, with the term's weight in each before idf, which
+    // changes as documents are added
+    private static class PostingList {
+        private int[] documents = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+        
+        void add(int document, float weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+        }
+        
+        PostingList copy() {
+            PostingList copy = new PostingList();
+            copy.documents = Arrays.copyOf(documents, Math.max(size, 1));
+            copy.weights = Arrays.copyOf(weights, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+        
+        // A list without the postings of removed documents, with the documents' new ids
+        PostingList compact(int[] newDocumentIds) {
+            PostingList compacted = new PostingList();
+            int live = 0;
+            for (int p = 0; p < size; p++) {
+                if (newDocumentIds[documents[p]] >= 0) {
+                    live++;
+                }
+            }
+            compacted.documents = new int[Math.max(live, 1)];
+            compacted.weights = new float[Math.max(live, 1)];
+            for (int p = 0; p < size; p++) {
+                int document = newDocumentIds[documents[p]];
+                if (document >= 0) {
+                    compacted.documents[compacted.size] = document;
+                    compacted.weights[compacted.size] = weights[p];
+                    compacted.size++;
+                }
+            }
+            return compacted;
+        }
+    }
+    
+    // Per-search score arrays, sized for the documents of the index when they were made
+    private static class Scores {
+        private final double[] dotProducts;
+        private final int[] touched;
+        
+        Scores(int documents) {
+            this.dotProducts = new double[documents];
+            this.touched = new int[documents];
+        }
+    }
+    
+    public static class Match {
+        private final int number;
+        private final double score;
+        
+        Match(int number, double score) {
+            this.number = number;
+            this.score = score;
+        }
+        
+        public int getNumber() {
+            return number;
+        }
+        
+        public double getScore() {
+            return score;
+        }
+    }
+}
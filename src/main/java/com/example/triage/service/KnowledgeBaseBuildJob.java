@@ -0,0 +1,168 @@
+package com.example.triage.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One knowledge base build and its progress. KnowledgeBaseService reports into it as it goes and
+// stops at the next batch once cancellation is requested; a cancelled build keeps its checkpoint,
+// so the next build carries on from there.
+public class KnowledgeBaseBuildJob {
+    
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        // Stopped on request; the checkpoint is kept
+        CANCELLED,
+        FAILED
+    }
+    
+    private final String id = UUID.randomUUID().toString();
+    private final int maxIssues;
+    private final boolean fullBuild;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    
+    private volatile State state = State.QUEUED;
+    private volatile String phase = "queued";
+    private volatile boolean cancelRequested;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile long expectedIssues = -1;
+    private volatile int resumedIssues;
+    private volatile Integer totalIssuesAnalyzed;
+    private volatile String error;
+    
+    private final AtomicInteger fetchedIssues = new AtomicInteger();
+    private final AtomicInteger processedIssues = new AtomicInteger();
+    
+    public KnowledgeBaseBuildJob(int maxIssues, boolean fullBuild) {
+        this.maxIssues = maxIssues;
+        this.fullBuild = fullBuild;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public int getMaxIssues() {
+        return maxIssues;
+    }
+    
+    public boolean isFullBuild() {
+        return fullBuild;
+    }
+    
+    public State getState() {
+        return state;
+    }
+    
+    public boolean isFinished() {
+        return state != State.QUEUED && state != State.RUNNING;
+    }
+    
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+    
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+    
+    // Progress reported by KnowledgeBaseService
+    void setPhase(String phase) {
+        this.phase = phase;
+    }
+    
+    // Issues a resumed build had already merged before it was interrupted
+    void setResumedIssues(int resumedIssues) {
+        this.resumedIssues = resumedIssues;
+    }
+    
+    // How many issues the build is expected to merge in total, or -1 while unknown
+    long getExpectedIssues() {
+        return expectedIssues;
+    }
+    
+    void setExpectedIssues(long expectedIssues) {
+        this.expectedIssues = expectedIssues;
+    }
+    
+    void addFetched(int issues) {
+        fetchedIssues.addAndGet(issues);
+    }
+    
+    void addProcessed(int issues) {
+        processedIssues.addAndGet(issues);
+    }
+    
+    void started() {
+        startedAt = LocalDateTime.now();
+        startedNanos = System.nanoTime();
+        state = State.RUNNING;
+        phase = "starting";
+    }
+    
+    void completed(int totalIssuesAnalyzed) {
+        this.totalIssuesAnalyzed = totalIssuesAnalyzed;
+        finish(State.COMPLETED, null);
+    }
+    
+    void cancelled() {
+        finish(State.CANCELLED, null);
+    }
+    
+    void failed(String error) {
+        finish(State.FAILED, error);
+    }
+    
+    private void finish(State finalState, String finalError) {
+        finishedAt = LocalDateTime.now();
+        finishedNanos = System.nanoTime();
+        error = finalError;
+        phase = finalState.name().toLowerCase();
+        state = finalState;
+    }
+    
+    public Map<String, Object> toMap() {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("jobId", id);
+        progress.put("state", state);
+        progress.put("phase", phase);
+        progress.put("maxIssues", maxIssues);
+        progress.put("fullBuild", fullBuild);
+        progress.put("cancelRequested", cancelRequested);
+        progress.put("submittedAt", submittedAt);
+        progress.put("startedAt", startedAt);
+        progress.put("finishedAt", finishedAt);
+        progress.put("fetched", fetchedIssues.get());
+        progress.put("processed", resumedIssues + processedIssues.get());
+        if (expectedIssues >= 0) {
+            progress.put("expected", expectedIssues);
+        }
+        if (totalIssuesAnalyzed != null) {
+            progress.put("totalIssuesAnalyzed", totalIssuesAnalyzed);
+        }
+        if (error != null) {
+            progress.put("error", error);
+        }
+        
+        // Rate over this run only; issues merged before a resume took no time here
+        if (startedAt != null) {
+            long elapsedNanos = (isFinished() ? finishedNanos : System.nanoTime()) - startedNanos;
+            double seconds = elapsedNanos / 1e9;
+            double rate = seconds > 0 ? processedIssues.get() / seconds : 0;
+            progress.put("elapsedSeconds", Math.round(seconds));
+            progress.put("issuesPerSecond", Math.round(rate * 100) / 100.0);
+            if (!isFinished() && rate > 0 && expectedIssues >= 0) {
+                long remaining = Math.max(0, expectedIssues - resumedIssues - processedIssues.get());
+                progress.put("etaSeconds", Math.round(remaining / rate));
+            }
+        }
+        return progress;
+    }
+}
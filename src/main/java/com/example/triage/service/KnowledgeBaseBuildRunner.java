@@ -0,0 +1,114 @@
+package com.example.triage.service;
+
+import com.example.triage.model.KnowledgeBase;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs knowledge base builds as background jobs, one at a time, on a thread of their own. A build
+// can take many minutes, so the request that starts it returns at once with a job to poll.
+@Service
+public class KnowledgeBaseBuildRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseBuildRunner.class);
+    
+    // Finished jobs kept for their progress endpoint
+    private static final int FINISHED_JOBS_KEPT = 20;
+    
+    private final KnowledgeBaseService knowledgeBaseService;
+    private final ExecutorService executor;
+    
+    // Guarded by this; in submission order
+    private final Map<String, KnowledgeBaseBuildJob> jobs = new LinkedHashMap<>();
+    private KnowledgeBaseBuildJob activeJob;
+    
+    public KnowledgeBaseBuildRunner(KnowledgeBaseService knowledgeBaseService) {
+        this.knowledgeBaseService = knowledgeBaseService;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "knowledge-base-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Throws IllegalStateException while another build is queued or running
+    public synchronized KnowledgeBaseBuildJob start(int maxIssues, boolean fullBuild) {
+        if (activeJob != null && !activeJob.isFinished()) {
+            throw new IllegalStateException("Knowledge base build " + activeJob.getId() + " is already running");
+        }
+        KnowledgeBaseBuildJob job = new KnowledgeBaseBuildJob(maxIssues, fullBuild);
+        activeJob = job;
+        jobs.put(job.getId(), job);
+        pruneFinishedJobs();
+        executor.execute(() -> run(job));
+        logger.info("Queued knowledge base build {} (maxIssues: {}, full: {})", job.getId(), maxIssues, fullBuild);
+        return job;
+    }
+    
+    public synchronized KnowledgeBaseBuildJob getJob(String id) {
+        return jobs.get(id);
+    }
+    
+    // Null when no build is queued or running
+    public synchronized KnowledgeBaseBuildJob getActiveJob() {
+        return activeJob != null && !activeJob.isFinished() ? activeJob : null;
+    }
+    
+    // The build stops at its next batch; false if there is no such job or it has already finished
+    public synchronized boolean cancel(String id) {
+        KnowledgeBaseBuildJob job = jobs.get(id);
+        if (job == null || job.isFinished()) {
+            return false;
+        }
+        job.requestCancel();
+        logger.info("Cancellation requested for knowledge base build {}", id);
+        return true;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        KnowledgeBaseBuildJob job = getActiveJob();
+        if (job != null) {
+            job.requestCancel();
+        }
+        executor.shutdownNow();
+    }
+    
+    private void run(KnowledgeBaseBuildJob job) {
+        if (job.isCancelRequested()) {
+            job.cancelled();
+            return;
+        }
+        job.started();
+        try {
+            KnowledgeBase kb = knowledgeBaseService.buildKnowledgeBase(job);
+            job.completed(kb.getTotalIssuesAnalyzed());
+            logger.info("Knowledge base build {} completed with {} issues", job.getId(), kb.getTotalIssuesAnalyzed());
+        } catch (CancellationException e) {
+            job.cancelled();
+        } catch (Exception e) {
+            String cause = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            job.failed(cause);
+            logger.error("Knowledge base build {} failed: {}", job.getId(), cause);
+        }
+    }
+    
+    private void pruneFinishedJobs() {
+        int finished = (int) jobs.values().stream().filter(KnowledgeBaseBuildJob::isFinished).count();
+        Iterator<KnowledgeBaseBuildJob> oldestFirst = jobs.values().iterator();
+        while (finished > FINISHED_JOBS_KEPT && oldestFirst.hasNext()) {
+            if (oldestFirst.next().isFinished()) {
+                oldestFirst.remove();
+                finished--;
+            }
+        }
+    }
+}
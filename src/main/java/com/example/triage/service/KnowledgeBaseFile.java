@@ -0,0 +1,345 @@
+package com.example.triage.service;
+
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
+import com.example.triage.model.TextArena;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binary knowledge base file. It is memory-mapped on load: the issue records fill the knowledge
+// base's int columns, and its string table becomes the text arena, so titles, bodies and comments
+// stay in the mapping and are only decoded when read. Every string is stored once in the string
+// table; labels and category names repeat.
+//
+// Layout, little-endian ints:
+//   header       magic, version, total issues, category count, string count, strings offset,
+//                then createdAt, lastUpdated and issuesUpdatedThrough as (epoch second: long, nano: int)
+//   categories   per category: name, issue count, offset of its records, offset of its label ids
+//   patterns     count, string ids
+//   labels       count, then (string id, frequency) pairs
+//   issues       per category: its records, then the label string ids they point into;
+//                a record is number, title, key terms, body, comments, first label, label count
+//   strings      count + 1 byte offsets into the blob, then the UTF-8 blob
+// A string id of -1 is null. Offsets are ints, which limits a file to 2 GB.
+public final class KnowledgeBaseFile {
+    
+    private static final int MAGIC = 0x4b42494e; // "KBIN"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * 4 + 3 * 12;
+    private static final int RECORD_INTS = 7;
+    private static final int NULL_STRING = -1;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    
+    private KnowledgeBaseFile() {
+    }
+    
+    // Written to a temporary file and renamed, so a reader never maps a partial file
+    public static void write(KnowledgeBase kb, Path file) throws IOException {
+        StringTable strings = new StringTable();
+        List<IssueCategory> categories = new ArrayList<>(kb.getCategorizedIssues().keySet());
+        
+        // Everything but the string blob is ints, built in memory first to know the offsets
+        IntList directory = new IntList();
+        IntList patterns = new IntList();
+        IntList labels = new IntList();
+        List<IntList> records = new ArrayList<>();
+        List<IntList> labelIds = new ArrayList<>();
+        
+        List<String> commonPatterns = kb.getCommonPatterns() != null ? kb.getCommonPatterns() : List.of();
+        patterns.add(commonPatterns.size());
+        commonPatterns.forEach(pattern -> patterns.add(strings.id(pattern)));
+        Map<String, Integer> labelFrequency = kb.getLabelFrequency() != null ? kb.getLabelFrequency() : Map.of();
+        labels.add(labelFrequency.size());
+        labelFrequency.forEach((label, frequency) -> {
+            labels.add(strings.id(label));
+            labels.add(frequency);
+        });
+        
+        for (IssueCategory category : categories) {
+            IntList categoryRecords = new IntList();
+            IntList categoryLabels = new IntList();
+            for (KnowledgeBase.IssueSummary issue : kb.getIssuesByCategory(category)) {
+                List<String> issueLabels = issue.getLabels() != null ? issue.getLabels() : List.of();
+                categoryRecords.add(issue.getNumber());
+                categoryRecords.add(strings.id(issue.getTitle()));
+                categoryRecords.add(strings.id(issue.getKeyTerms()));
+                categoryRecords.add(strings.id(issue.getBody()));
+                categoryRecords.add(strings.id(issue.getOrgMemberComments()));
+                categoryRecords.add(categoryLabels.size());
+                categoryRecords.add(issueLabels.size());
+                issueLabels.forEach(label -> categoryLabels.add(strings.id(label)));
+            }
+            records.add(categoryRecords);
+            labelIds.add(categoryLabels);
+        }
+        
+        long offset = HEADER_BYTES + categories.size() * 4L * 4 + patterns.size() * 4L + labels.size() * 4L;
+        for (int i = 0; i < categories.size(); i++) {
+            directory.add(strings.id(categories.get(i).name()));
+            directory.add(records.get(i).size() / RECORD_INTS);
+            directory.add((int) offset);
+            offset += records.get(i).size() * 4L;
+            directory.add((int) offset);
+            offset += labelIds.get(i).size() * 4L;
+        }
+        if (offset + (strings.size() + 1) * 4L + strings.blobSize() > Integer.MAX_VALUE) {
+            throw new IOException("Knowledge base is too large for the binary format");
+        }
+        
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(kb.getTotalIssuesAnalyzed())
+                .putInt(categories.size()).putInt(strings.size()).putInt((int) offset);
+            putTime(buffer, kb.getCreatedAt());
+            putTime(buffer, kb.getLastUpdated());
+            putTime(buffer, kb.getIssuesUpdatedThrough());
+            
+            buffer = directory.writeTo(channel, buffer);
+            buffer = patterns.writeTo(channel, buffer);
+            buffer = labels.writeTo(channel, buffer);
+            for (int i = 0; i < categories.size(); i++) {
+                buffer = records.get(i).writeTo(channel, buffer);
+                buffer = labelIds.get(i).writeTo(channel, buffer);
+            }
+            
+            int blobOffset = 0;
+            for (byte[] bytes : strings.bytes) {
+                buffer = writeInt(channel, buffer, blobOffset);
+                blobOffset += bytes.length;
+            }
+            buffer = writeInt(channel, buffer, blobOffset);
+            for (byte[] bytes : strings.bytes) {
+                for (int written = 0; written < bytes.length; ) {
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer);
+                    }
+                    int chunk = Math.min(buffer.remaining(), bytes.length - written);
+                    buffer.put(bytes, written, chunk);
+                    written += chunk;
+                }
+            }
+            flush(channel, buffer);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Maps a saved knowledge base; null if the file is missing, of another version or damaged
+    public static KnowledgeBase read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer = mapCopy(file);
+        if (buffer == null || buffer.capacity() < HEADER_BYTES) {
+            return null;
+        }
+        
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            int totalIssues = buffer.getInt();
+            int categoryCount = buffer.getInt();
+            int stringCount = buffer.getInt();
+            int stringsOffset = buffer.getInt();
+            LocalDateTime createdAt = getTime(buffer);
+            LocalDateTime lastUpdated = getTime(buffer);
+            LocalDateTime issuesUpdatedThrough = getTime(buffer);
+            
+            int[] directory = new int[categoryCount * 4];
+            buffer.asIntBuffer().get(directory);
+            buffer.position(buffer.position() + directory.length * 4);
+            // The label frequencies are recounted as the issues are added
+            int patternCount = buffer.getInt();
+            int[] patternIds = new int[patternCount];
+            buffer.asIntBuffer().get(patternIds);
+            
+            TextArena text = new TextArena(buffer, stringsOffset, stringCount);
+            List<String> commonPatterns = new ArrayList<>();
+            for (int id : patternIds) {
+                commonPatterns.add(text.get(id));
+            }
+            KnowledgeBase kb = new KnowledgeBase(createdAt, lastUpdated, commonPatterns, issuesUpdatedThrough, text);
+            
+            Map<Integer, String> labelNames = new HashMap<>();
+            for (int i = 0; i < directory.length; i += 4) {
+                IssueCategory category = IssueCategory.valueOf(requiredText(text, directory[i]));
+                int count = directory[i + 1];
+                int recordsOffset = directory[i + 2];
+                int labelsOffset = directory[i + 3];
+                for (int issue = 0; issue < count; issue++) {
+                    int record = recordsOffset + issue * RECORD_INTS * 4;
+                    int firstLabel = buffer.getInt(record + 5 * 4);
+                    int labelCount = buffer.getInt(record + 6 * 4);
+                    List<String> labels = new ArrayList<>(labelCount);
+                    for (int label = 0; label < labelCount; label++) {
+                        labels.add(labelNames.computeIfAbsent(
+                            buffer.getInt(labelsOffset + (firstLabel + label) * 4), id -> requiredText(text, id)));
+                    }
+                    kb.appendIssue(category, buffer.getInt(record), textId(buffer, record + 4, stringCount),
+                        textId(buffer, record + 2 * 4, stringCount), textId(buffer, record + 3 * 4, stringCount),
+                        textId(buffer, record + 4 * 4, stringCount), labels);
+                }
+            }
+            if (kb.getTotalIssuesAnalyzed() != totalIssues) {
+                return null;
+            }
+            return kb;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // Truncated or damaged file, or a category this version does not know
+            return null;
+        }
+    }
+    
+    // Writes the knowledge base in a JSON file in the binary format; null if there is no JSON file
+    public static KnowledgeBase convert(Path jsonFile, Path file, ObjectMapper objectMapper) throws IOException {
+        if (!Files.exists(jsonFile)) {
+            return null;
+        }
+        KnowledgeBase kb = objectMapper.readValue(jsonFile.toFile(), KnowledgeBase.class);
+        write(kb, file);
+        return kb;
+    }
+    
+    // Texts are decoded later, so their ids are checked now
+    private static int textId(ByteBuffer buffer, int offset, int stringCount) {
+        int id = buffer.getInt(offset);
+        if (id != NULL_STRING && (id < 0 || id >= stringCount)) {
+            throw new IndexOutOfBoundsException("String id " + id + " of " + stringCount);
+        }
+        return id;
+    }
+    
+    // Category and label names are never null; a null one means a damaged entry
+    private static String requiredText(TextArena text, int id) {
+        String value = text.get(id);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing string for a category or label name");
+        }
+        return value;
+    }
+    
+    private static void putTime(ByteBuffer buffer, LocalDateTime time) {
+        if (time == null) {
+            buffer.putLong(NULL_TIME).putInt(0);
+        } else {
+            buffer.putLong(time.toEpochSecond(ZoneOffset.UTC)).putInt(time.getNano());
+        }
+    }
+    
+    // Maps a private copy of the file, made next to it and deleted once mapped; null if the file is
+    // too large to map. Replacing a mapped file by renaming leaves the mapping as it was, but copying
+    // over it rewrites the pages under the mapping, and a read of a truncated page crashes the JVM.
+    // Mapping a copy nobody else can open keeps the loaded knowledge base intact however the file
+    // is replaced. Shared with HnswVectorIndex.
+    static ByteBuffer mapCopy(Path file) throws IOException {
+        Path copy = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".live");
+        try {
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    return null;
+                }
+                // The mapping stays valid after the channel is closed and the copy deleted
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(copy);
+            } catch (IOException e) {
+                // Where a mapped file cannot be deleted, as on Windows
+                copy.toFile().deleteOnExit();
+            }
+        }
+    }
+    
+    private static LocalDateTime getTime(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        return seconds == NULL_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+    
+    private static ByteBuffer writeInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        return buffer.putInt(value);
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private static class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> bytes = new ArrayList<>();
+        private long blobSize;
+        
+        int id(String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            return ids.computeIfAbsent(value, v -> {
+                byte[] encoded = v.getBytes(StandardCharsets.UTF_8);
+                bytes.add(encoded);
+                blobSize += encoded.length;
+                return bytes.size() - 1;
+            });
+        }
+        
+        int size() {
+            return bytes.size();
+        }
+        
+        long blobSize() {
+            return blobSize;
+        }
+    }
+    
+    private static class IntList {
+        private int[] values = new int[64];
+        private int size;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        ByteBuffer writeTo(FileChannel channel, ByteBuffer buffer) throws IOException {
+            for (int i = 0; i < size; i++) {
+                buffer = writeInt(channel, buffer, values[i]);
+            }
+            return buffer;
+        }
+    }
+}
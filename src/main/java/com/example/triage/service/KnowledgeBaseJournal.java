@@ -0,0 +1,64 @@
+package com.example.triage.service;
+
+import com.example.triage.model.KnowledgeBaseCheckpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Journal of a knowledge base build: the issues each batch merged and removed, one JSON change
+// per line. A checkpoint records how many bytes of the journal it covers; lines after those are
+// from a batch that was interrupted before its checkpoint was written.
+public final class KnowledgeBaseJournal {
+    
+    private KnowledgeBaseJournal() {
+    }
+    
+    // Appends the changes since the last save after the bytes the checkpoint covers, cutting off any
+    // left there by an interrupted batch or an earlier build, and records the journal's new length
+    public static void append(KnowledgeBaseCheckpoint checkpoint, Path journal, ObjectMapper objectMapper)
+            throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (KnowledgeBaseCheckpoint.Change change : checkpoint.takePendingChanges()) {
+            lines.append(objectMapper.writeValueAsString(change)).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = checkpoint.getJournalBytes();
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            channel.truncate(position);
+            channel.force(false);
+            checkpoint.setJournalBytes(position);
+        }
+    }
+    
+    // Cuts the journal back to the bytes the checkpoint covers and replays them onto the checkpoint's
+    // knowledge base. False, with nothing replayed, when the journal is missing or shorter than that.
+    public static boolean replay(KnowledgeBaseCheckpoint checkpoint, Path journal, ObjectMapper objectMapper)
+            throws IOException {
+        if (!Files.exists(journal)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            if (channel.size() < checkpoint.getJournalBytes()) {
+                return false;
+            }
+            channel.truncate(checkpoint.getJournalBytes());
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                checkpoint.replay(objectMapper.readValue(line, KnowledgeBaseCheckpoint.Change.class));
+            }
+        }
+        return true;
+    }
+}
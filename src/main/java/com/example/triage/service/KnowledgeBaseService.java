@@ -1,9 +1,12 @@
 package com.example.triage.service;
 
 import com.example.triage.client.GitHubClient;
+import com.example.triage.config.TriageConfiguration;
 import com.example.triage.model.GitHubIssue;
 import com.example.triage.model.IssueCategory;
+import com.example.triage.model.IssueSearchResult;
 import com.example.triage.model.KnowledgeBase;
+import com.example.triage.model.KnowledgeBaseCheckpoint;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,94 +14,369 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
 public class KnowledgeBaseService {
     
     private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseService.class);
-    private static final String KB_FILE_PATH = "./knowledge-base.json";
+    static final Path KB_FILE_PATH = Paths.get("./knowledge-base.bin");
+    // Knowledge bases saved before the binary format, or by an older build elsewhere; converted when loaded
+    static final Path KB_JSON_FILE_PATH = Paths.get("./knowledge-base.json");
+    private static final Path VECTOR_INDEX_PATH = Paths.get("./knowledge-base.vectors");
+    private static final String CHECKPOINT_FILE_PATH = "./knowledge-base.checkpoint.json";
+    // Issues merged and removed by the checkpointed build, one JSON change per line
+    private static final Path JOURNAL_FILE_PATH = Paths.get("./knowledge-base.checkpoint.journal");
+    private static final String PENDING_TRIAGE_LABEL = "pending-triage";
+    
+    // Every label inferCategoryFromLabels maps to a category
+    private static final List<String> CATEGORY_LABELS = List.of(
+        "bug", "defect", "feature", "enhancement", "feature-request",
+        "question", "help wanted", "usability", "ux", "ui");
+    
+    // Kept with each entry for similarity search; the rest of a long body adds little
+    private static final int SUMMARY_BODY_CHARS = 2000;
+    // Issues fetched between checkpoints; one search page
+    private static final int CHECKPOINT_INTERVAL = 100;
+    // Batches fetched but not yet merged, while their comments are requested
+    private static final int PIPELINE_DEPTH = 2;
+    // The next refresh starts this long before a build did, for the issues its listings missed
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
     
     private final GitHubClient gitHubClient;
     private final AIClassificationService classificationService;
     private final ObjectMapper objectMapper;
-    private KnowledgeBase knowledgeBase;
+    private final IssueEmbedder embedder;
+    private final TriageConfiguration.KnowledgeBase settings;
+    private final int similarIssues;
+    private final int duplicateCandidates;
+    private final double duplicateThreshold;
+    private final boolean searchEnabled;
+    // Readers take the current snapshot without locking; builds and reloads swap in a new one
+    private final AtomicReference<KnowledgeBaseSnapshot> snapshot = new AtomicReference<>();
     
     public KnowledgeBaseService(GitHubClient gitHubClient, 
                                AIClassificationService classificationService,
-                               ObjectMapper objectMapper) {
+                               ObjectMapper objectMapper,
+                               IssueEmbedder embedder,
+                               TriageConfiguration config) {
         this.gitHubClient = gitHubClient;
         this.classificationService = classificationService;
         this.objectMapper = objectMapper;
-        this.knowledgeBase = loadKnowledgeBase();
+        this.embedder = embedder;
+        this.settings = config.getKnowledgeBase();
+        this.similarIssues = config.getKnowledgeBase().getSimilarIssues();
+        this.duplicateCandidates = config.getKnowledgeBase().getDuplicateCandidates();
+        this.duplicateThreshold = config.getKnowledgeBase().getDuplicateThreshold();
+        this.searchEnabled = config.getGithub().isSearchEnabled();
+        KnowledgeBase kb = loadKnowledgeBase();
+        publish(kb, null, openVectorIndex(kb));
     }
     
+    // Refreshes the knowledge base with the issues changed since the last build, or builds it from
+    // scratch when there is none. Resumes an interrupted build from its checkpoint.
     public KnowledgeBase buildKnowledgeBase(int maxIssues) {
-        logger.info("Building knowledge base from up to {} triaged issues (without pending-triage label)", maxIssues);
-        
-        KnowledgeBase kb = new KnowledgeBase();
+        return buildKnowledgeBase(maxIssues, false);
+    }
+    
+    public KnowledgeBase buildKnowledgeBase(int maxIssues, boolean fullBuild) {
+        return buildKnowledgeBase(new KnowledgeBaseBuildJob(maxIssues, fullBuild));
+    }
+    
+    // Reports progress to the job and stops with a CancellationException, keeping the checkpoint,
+    // when the job is cancelled
+    public synchronized KnowledgeBase buildKnowledgeBase(KnowledgeBaseBuildJob job) {
+        KnowledgeBaseSnapshot current = snapshot.get();
+        KnowledgeBaseCheckpoint checkpoint = resumableCheckpoint(job.isFullBuild(), current.getKnowledgeBase());
+        if (checkpoint != null && !replayJournal(checkpoint, current.getKnowledgeBase())) {
+            checkpoint = null;
+        }
+        if (checkpoint != null) {
+            logger.info("Resuming knowledge base build after {} issues, at issues updated before {}",
+                checkpoint.getFetchedIssues(), checkpoint.getCursor());
+            job.setResumedIssues(checkpoint.getFetchedIssues());
+        } else {
+            LocalDateTime since = job.isFullBuild() ? null : current.getKnowledgeBase().getIssuesUpdatedThrough();
+            if (since == null) {
+                logger.info("Building knowledge base from up to {} triaged issues (without pending-triage label)",
+                    job.getMaxIssues());
+                checkpoint = new KnowledgeBaseCheckpoint(true, job.getMaxIssues(), null, new KnowledgeBase());
+            } else {
+                // Every change since the last build is merged, however many there are
+                logger.info("Refreshing knowledge base with issues updated since {}", since);
+                checkpoint = new KnowledgeBaseCheckpoint(false, Integer.MAX_VALUE, since,
+                    current.getKnowledgeBase().copy());
+            }
+        }
         
         try {
-            // Fetch all triaged issues (both open and closed, excluding pending-triage)
-            List<GitHubIssue> triagedIssues = gitHubClient.fetchTriagedIssues(maxIssues);
-            logger.info("Fetched {} triaged issues for knowledge base", triagedIssues.size());
-            
-            int processed = 0;
-            for (GitHubIssue issue : triagedIssues) {
-                try {
-                    // Determine category from labels
-                    IssueCategory category = inferCategoryFromLabels(issue);
-                    
-                    if (category != null) {
-                        List<String> labelNames = issue.getLabels().stream()
-                            .map(label -> label.getName())
-                            .collect(Collectors.toList());
-                        
-                        // Fetch org member comments for this issue
-                        String orgComments = gitHubClient.fetchOrgMemberComments(issue.getNumber(), 10);
-                        
-                        KnowledgeBase.IssueSummary summary = new KnowledgeBase.IssueSummary(
-                            issue.getNumber().intValue(),
-                            issue.getTitle(),
-                            category,
-                            labelNames,
-                            orgComments
-                        );
-                        
-                        kb.addIssue(summary);
-                        processed++;
-                        
-                        if (processed % 50 == 0) {
-                            logger.info("Processed {} issues for knowledge base", processed);
-                        }
-                    }
-                    
-                    // Rate limiting
-                    if (processed % 10 == 0) {
-                        Thread.sleep(1000);
-                    }
-                    
-                } catch (Exception e) {
-                    logger.warn("Error processing issue #{}: {}", issue.getNumber(), e.getMessage());
-                }
+            if (!checkpoint.isFullBuild() && !checkpoint.isRemovalsApplied()) {
+                job.setPhase("removing");
+                removeUntriagedIssues(checkpoint);
+                checkpoint.setRemovalsApplied(true);
+                saveCheckpoint(checkpoint);
             }
+            job.setPhase("fetching");
+            fetchTriagedIssues(checkpoint, job);
             
+            KnowledgeBase kb = checkpoint.getKnowledgeBase();
+            LocalDateTime updatedThrough = refreshedThrough(checkpoint);
+            if (updatedThrough != null && (checkpoint.getUpdatedAfter() == null ||
+                    updatedThrough.isAfter(checkpoint.getUpdatedAfter()))) {
+                kb.setIssuesUpdatedThrough(updatedThrough);
+            } else {
+                kb.setIssuesUpdatedThrough(checkpoint.getUpdatedAfter());
+            }
             logger.info("Knowledge base built with {} issues", kb.getTotalIssuesAnalyzed());
             
             // Save knowledge base
+            job.setPhase("indexing");
             saveKnowledgeBase(kb);
-            this.knowledgeBase = kb;
+            if (checkpoint.isFullBuild()) {
+                publish(kb, IssueSimilarityIndex.of(kb), buildVectorIndex(kb.getAllIssues()));
+            } else {
+                // The published indexes are searched while the copies are updated
+                IssueSimilarityIndex similarityIndex = current.getBuiltSimilarityIndex();
+                similarityIndex = similarityIndex != null ? similarityIndex.copy() : null;
+                publish(kb, similarityIndex, updateIndexes(current, kb, similarityIndex, checkpoint.getMergedIssues()));
+            }
+            deleteCheckpoint();
             
             return kb;
             
+        } catch (CancellationException e) {
+            logger.info("Knowledge base build cancelled after {} issues; the next build resumes from there",
+                checkpoint.getFetchedIssues());
+            throw e;
         } catch (Exception e) {
             logger.error("Error building knowledge base: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to build knowledge base", e);
         }
     }
     
+    // The newest updated_at the build saw, but no later than shortly before it started. An issue
+    // updated during the build moves in the page-numbered listing removeUntriagedIssues reads and
+    // shifts the later pages, so one on a page boundary can be missed; the next refresh then fetches
+    // it again, and merging or removing an issue twice changes nothing.
+    private static LocalDateTime refreshedThrough(KnowledgeBaseCheckpoint checkpoint) {
+        LocalDateTime newest = checkpoint.getNewestUpdated();
+        if (newest == null || checkpoint.getStartedAt() == null) {
+            return newest;
+        }
+        LocalDateTime overlapStart = checkpoint.getStartedAt().minusSeconds(REFRESH_OVERLAP_SECONDS);
+        return newest.isAfter(overlapStart) ? overlapStart : newest;
+    }
+    
+    // A saved checkpoint, unless a full build was asked for and it is a refresh, or the knowledge
+    // base it refreshes has been rebuilt since
+    private KnowledgeBaseCheckpoint resumableCheckpoint(boolean fullBuild, KnowledgeBase current) {
+        File file = new File(CHECKPOINT_FILE_PATH);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            KnowledgeBaseCheckpoint checkpoint = objectMapper.readValue(file, KnowledgeBaseCheckpoint.class);
+            if (checkpoint.isFullBuild() || (!fullBuild &&
+                    Objects.equals(checkpoint.getUpdatedAfter(), current.getIssuesUpdatedThrough()))) {
+                return checkpoint;
+            }
+            logger.info("Discarding knowledge base build checkpoint that no longer applies");
+        } catch (IOException e) {
+            logger.warn("Failed to load knowledge base build checkpoint, starting over: {}", e.getMessage());
+        }
+        return null;
+    }
+    
+    // Rebuilds the checkpointed build's knowledge base from the one it started from and the changes
+    // journaled up to the checkpoint. False when the journal does not cover the checkpoint.
+    private boolean replayJournal(KnowledgeBaseCheckpoint checkpoint, KnowledgeBase current) {
+        checkpoint.setKnowledgeBase(checkpoint.isFullBuild() ? new KnowledgeBase() : current.copy());
+        try {
+            if (!KnowledgeBaseJournal.replay(checkpoint, JOURNAL_FILE_PATH, objectMapper)) {
+                logger.warn("Knowledge base build journal is missing or shorter than its checkpoint, starting over");
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to replay knowledge base build journal, starting over: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    // Issues changed since the last build that lost their category label or went back to pending
+    // triage. Search only returns the issues that still qualify, so these come from the issue listing.
+    private void removeUntriagedIssues(KnowledgeBaseCheckpoint checkpoint) {
+        KnowledgeBase kb = checkpoint.getKnowledgeBase();
+        int[] removed = {0};
+        gitHubClient.forEachIssueUpdatedSince(checkpoint.getUpdatedAfter(), issue -> {
+            boolean pendingTriage = issue.getLabels().stream()
+                .anyMatch(label -> PENDING_TRIAGE_LABEL.equals(label.getName()));
+            if ((pendingTriage || inferCategoryFromLabels(issue) == null) && kb.removeIssue(issue.getNumber().intValue())) {
+                checkpoint.recordRemoved(issue.getNumber().intValue());
+                removed[0]++;
+            }
+        });
+        logger.info("Removed {} issues that are no longer triaged from the knowledge base", removed[0]);
+    }
+    
+    // Triaged issues (both open and closed, excluding pending-triage) that carry a category label,
+    // together with their org member comments, newest first and checkpointed after every batch.
+    // Fetching runs up to PIPELINE_DEPTH batches ahead: while the comments of one batch are being
+    // requested, the next batch is searched, and batches are merged in order as their comments arrive.
+    private void fetchTriagedIssues(KnowledgeBaseCheckpoint checkpoint, KnowledgeBaseBuildJob job) throws IOException {
+        // Without the search API the client lists every issue on each call, so there is a single batch
+        int batchSize = searchEnabled ? CHECKPOINT_INTERVAL : checkpoint.getMaxIssues();
+        int remaining = checkpoint.getMaxIssues() - checkpoint.getFetchedIssues();
+        // The fetching side runs ahead of the checkpoint, with its own cursor
+        LocalDateTime fetchCursor = checkpoint.getCursor();
+        Set<Integer> fetched = new HashSet<>(checkpoint.getIssuesAtCursor());
+        boolean exhausted = remaining <= 0;
+        Deque<CompletableFuture<List<GitHubIssue>>> inFlight = new ArrayDeque<>();
+        
+        while (!exhausted || !inFlight.isEmpty()) {
+            if (job.isCancelRequested()) {
+                saveCheckpoint(checkpoint);
+                throw new CancellationException("Knowledge base build cancelled");
+            }
+            
+            if (!exhausted && inFlight.size() < PIPELINE_DEPTH) {
+                int requested = Math.min(batchSize, remaining);
+                IssueSearchResult searchResult = gitHubClient.searchTriagedIssuesDeferringComments(
+                    requested, 10, CATEGORY_LABELS, checkpoint.getUpdatedAfter(), fetchCursor);
+                if (job.getExpectedIssues() < 0) {
+                    job.setExpectedIssues(checkpoint.getFetchedIssues() + Math.min(searchResult.getTotalCount(), remaining));
+                }
+                
+                // Issues on the batch boundary come back again and are dropped
+                List<GitHubIssue> batch = new ArrayList<>();
+                for (GitHubIssue issue : searchResult.getIssues()) {
+                    if (fetched.add(issue.getNumber().intValue())) {
+                        batch.add(issue);
+                    }
+                    if (issue.getUpdatedAt() != null && (fetchCursor == null || issue.getUpdatedAt().isBefore(fetchCursor))) {
+                        fetchCursor = issue.getUpdatedAt();
+                    }
+                }
+                remaining -= batch.size();
+                job.addFetched(batch.size());
+                
+                if (searchResult.getIssues().size() < requested || remaining <= 0) {
+                    exhausted = true; // Every matching issue has been fetched
+                } else if (batch.isEmpty()) {
+                    logger.warn("More than {} issues were updated at {}, stopping at {} issues",
+                        requested, fetchCursor, checkpoint.getFetchedIssues() + fetched.size());
+                    exhausted = true;
+                }
+                if (!batch.isEmpty()) {
+                    inFlight.add(gitHubClient.attachMissingOrgMemberComments(batch, 10));
+                }
+                continue;
+            }
+            
+            int merged = 0;
+            for (GitHubIssue issue : inFlight.poll().join()) {
+                if (!checkpoint.recordFetched(issue.getNumber().intValue(), issue.getUpdatedAt())) {
+                    continue; // Merged by the build this one resumes
+                }
+                try {
+                    KnowledgeBase.IssueSummary summary = mergeIssue(checkpoint.getKnowledgeBase(), issue);
+                    if (summary != null) {
+                        checkpoint.recordMerged(summary);
+                    }
+                } catch (Exception e) {
+                    logger.warn("Error processing issue #{}: {}", issue.getNumber(), e.getMessage());
+                }
+                merged++;
+            }
+            job.addProcessed(merged);
+            saveCheckpoint(checkpoint);
+            logger.info("Processed {} issues for knowledge base", checkpoint.getFetchedIssues());
+        }
+    }
+    
+    // The summary merged, or null when the issue has no category label
+    private KnowledgeBase.IssueSummary mergeIssue(KnowledgeBase kb, GitHubIssue issue) {
+        // Determine category from labels
+        IssueCategory category = inferCategoryFromLabels(issue);
+        if (category == null) {
+            return null;
+        }
+        
+        List<String> labelNames = issue.getLabels().stream()
+            .map(label -> label.getName())
+            .collect(Collectors.toList());
+        
+        KnowledgeBase.IssueSummary summary = new KnowledgeBase.IssueSummary(
+            issue.getNumber().intValue(),
+            issue.getTitle(),
+            category,
+            labelNames,
+            issue.getOrgMemberComments()
+        );
+        String body = issue.getBody();
+        if (body != null) {
+            summary.setBody(body.substring(0, Math.min(body.length(), SUMMARY_BODY_CHARS)));
+        }
+        kb.addIssue(summary);
+        return summary;
+    }
+    
+    // Applies a refresh to copies of the current snapshot's indexes: removed issues are dropped,
+    // merged ones re-indexed. The similarity index is null when the current one was never built; the
+    // new snapshot then builds it when first searched. Returns the semantic index for the refreshed
+    // knowledge base, null if there is none.
+    private HnswVectorIndex updateIndexes(KnowledgeBaseSnapshot current, KnowledgeBase kb,
+                                          IssueSimilarityIndex similarityIndex, Set<Integer> mergedIssues) {
+        List<Integer> removed = current.getKnowledgeBase().getIssueNumbers().stream()
+            .filter(number -> !kb.containsIssue(number))
+            .collect(Collectors.toList());
+        List<KnowledgeBase.IssueSummary> merged = mergedIssues.stream()
+            .map(kb::getIssue)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        logger.info("Updating indexes: {} issues merged, {} removed", merged.size(), removed.size());
+        
+        if (similarityIndex != null) {
+            removed.forEach(similarityIndex::remove);
+            merged.forEach(similarityIndex::add);
+        }
+        
+        HnswVectorIndex vectors = current.getVectorIndex();
+        if (vectors == null) {
+            return buildVectorIndex(kb.getAllIssues());
+        }
+        vectors = vectors.copy();
+        try {
+            removed.forEach(vectors::remove);
+            for (KnowledgeBase.IssueSummary issue : merged) {
+                vectors.add(issue.getNumber(), embedder.embed(issue.getTitle(), issue.getBody()));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update semantic index, using term similarity only: {}", e.getMessage());
+            return null;
+        }
+        saveVectorIndex(vectors);
+        return vectors;
+    }
+    
     private IssueCategory inferCategoryFromLabels(GitHubIssue issue) {
         List<String> labelNames = issue.getLabels().stream()
             .map(label -> label.getName().toLowerCase())
@@ -123,47 +401,261 @@ public class KnowledgeBaseService {
     }
     
     public KnowledgeBase getKnowledgeBase() {
-        if (knowledgeBase == null || knowledgeBase.getTotalIssuesAnalyzed() == 0) {
-            logger.info("Knowledge base is empty, loading from file");
-            knowledgeBase = loadKnowledgeBase();
+        return snapshot.get().getKnowledgeBase();
+    }
+    
+    // The current snapshot; a caller that queries the knowledge base several times for one issue
+    // passes it to each query, so a reload in between cannot mix two versions
+    public KnowledgeBaseSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+    
+    // Re-reads the saved knowledge base after its file changed and publishes it when it differs
+    // from the current one, e.g. after a build on another instance. A changed JSON file is converted
+    // to the binary file first. Classifications keep reading the current snapshot until the new one
+    // and its indexes are ready. False when the file is unchanged or cannot be read.
+    public synchronized boolean reloadKnowledgeBase(Path changedFile) {
+        KnowledgeBase kb;
+        try {
+            kb = changedFile.equals(KB_JSON_FILE_PATH)
+                ? KnowledgeBaseFile.convert(KB_JSON_FILE_PATH, KB_FILE_PATH, objectMapper)
+                : KnowledgeBaseFile.read(KB_FILE_PATH);
+        } catch (IOException e) {
+            logger.warn("Failed to reload knowledge base from {}: {}", changedFile, e.getMessage());
+            return false;
         }
-        return knowledgeBase;
+        if (kb == null) {
+            logger.warn("Not reloading {}: missing, damaged or of another version", changedFile);
+            return false;
+        }
+        
+        KnowledgeBase current = snapshot.get().getKnowledgeBase();
+        // Also how a file this service has just saved itself is recognised
+        if (Objects.equals(kb.getLastUpdated(), current.getLastUpdated()) &&
+                kb.getTotalIssuesAnalyzed() == current.getTotalIssuesAnalyzed()) {
+            return false;
+        }
+        KnowledgeBaseSnapshot published = publish(kb, null, openVectorIndex(kb));
+        logger.info("Reloaded knowledge base with {} issues from {} as version {}",
+            kb.getTotalIssuesAnalyzed(), changedFile, published.getVersion());
+        return true;
     }
     
     public String getKnowledgeBaseContext() {
         KnowledgeBase kb = getKnowledgeBase();
-        if (kb == null || kb.getTotalIssuesAnalyzed() == 0) {
+        if (kb.getTotalIssuesAnalyzed() == 0) {
             return "No knowledge base available. Build one first by analyzing closed issues.";
         }
         return kb.generateContextSummary();
     }
     
+    // Context for one issue: the knowledge base entries most similar to it
+    public String getKnowledgeBaseContext(GitHubIssue issue) {
+        return getKnowledgeBaseContext(snapshot.get(), issue);
+    }
+    
+    public String getKnowledgeBaseContext(KnowledgeBaseSnapshot kb, GitHubIssue issue) {
+        if (kb.isEmpty()) {
+            return "No knowledge base available. Build one first by analyzing closed issues.";
+        }
+        return kb.getKnowledgeBase().generateContextSummary(findSimilarIssues(kb, issue, similarIssues));
+    }
+    
+    // Nearest issues by meaning from the semantic index, by shared terms when there is none
+    public List<KnowledgeBase.IssueSummary> findSimilarIssues(GitHubIssue issue, int limit) {
+        return findSimilarIssues(snapshot.get(), issue, limit);
+    }
+    
+    private List<KnowledgeBase.IssueSummary> findSimilarIssues(KnowledgeBaseSnapshot kb, GitHubIssue issue, int limit) {
+        try {
+            List<HnswVectorIndex.Match> matches = findSemanticallySimilar(kb, issue, limit);
+            if (matches != null) {
+                return matches.stream()
+                    .map(match -> kb.getKnowledgeBase().getIssue(match.getNumber()))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Semantic search failed for issue #{}, using term similarity: {}", issue.getNumber(), e.getMessage());
+        }
+        return findSimilar(kb, issue, limit).stream()
+            .map(SimilarIssue::getIssue)
+            .collect(Collectors.toList());
+    }
+    
+    // Null when there is no semantic index
+    public List<HnswVectorIndex.Match> findSemanticallySimilar(GitHubIssue issue, int limit) {
+        return findSemanticallySimilar(snapshot.get(), issue, limit);
+    }
+    
+    private List<HnswVectorIndex.Match> findSemanticallySimilar(KnowledgeBaseSnapshot kb, GitHubIssue issue, int limit) {
+        HnswVectorIndex vectors = kb.getVectorIndex();
+        if (vectors == null) {
+            return null;
+        }
+        Integer number = issue.getNumber() == null ? null : issue.getNumber().intValue();
+        return vectors.search(embedder.embed(issue.getTitle(), issue.getBody()), limit, settings.getHnswEfSearch(), number);
+    }
+    
+    public KnowledgeBase.IssueSummary getIssueSummary(int number) {
+        return snapshot.get().getKnowledgeBase().getIssue(number);
+    }
+    
+    public Map<String, Object> getSemanticIndexStatus() {
+        HnswVectorIndex vectors = snapshot.get().getVectorIndex();
+        Map<String, Object> status = new HashMap<>();
+        status.put("available", vectors != null);
+        status.put("embedder", embedder.getId());
+        status.put("dimensions", embedder.getDimensions());
+        if (vectors != null) {
+            status.put("issues", vectors.size());
+            status.put("memoryMapped", vectors.isMapped());
+        }
+        return status;
+    }
+    
+    // Past issues similar enough to be duplicates, most similar first; the model only confirms these
+    public List<SimilarIssue> findDuplicateCandidates(GitHubIssue issue) {
+        return findDuplicateCandidates(snapshot.get(), issue);
+    }
+    
+    public List<SimilarIssue> findDuplicateCandidates(KnowledgeBaseSnapshot kb, GitHubIssue issue) {
+        return findSimilar(kb, issue, duplicateCandidates).stream()
+            .filter(match -> match.getScore() >= duplicateThreshold)
+            .collect(Collectors.toList());
+    }
+    
+    public List<SimilarIssue> findSimilar(GitHubIssue issue, int limit) {
+        return findSimilar(snapshot.get(), issue, limit);
+    }
+    
+    // The index holds issue numbers only; the summaries of the matches come from the knowledge base
+    private List<SimilarIssue> findSimilar(KnowledgeBaseSnapshot kb, GitHubIssue issue, int limit) {
+        Integer number = issue.getNumber() == null ? null : issue.getNumber().intValue();
+        List<SimilarIssue> similar = new ArrayList<>();
+        for (IssueSimilarityIndex.Match match : kb.getSimilarityIndex().search(issue.getTitle(), issue.getBody(), limit, number)) {
+            KnowledgeBase.IssueSummary summary = kb.getKnowledgeBase().getIssue(match.getNumber());
+            if (summary != null) {
+                similar.add(new SimilarIssue(summary, match.getScore()));
+            }
+        }
+        return similar;
+    }
+    
+    // Maps the saved vectors when they match the knowledge base, otherwise embeds every issue again.
+    // Matching needs only the issue numbers, so no summary is built.
+    private HnswVectorIndex openVectorIndex(KnowledgeBase kb) {
+        List<Integer> numbers = kb.getIssueNumbers();
+        try {
+            HnswVectorIndex saved = HnswVectorIndex.load(VECTOR_INDEX_PATH, embedder.getDimensions(),
+                settings.getHnswM(), settings.getHnswEfConstruction(), embedder.getId());
+            if (saved != null && saved.size() == numbers.size() && numbers.stream().allMatch(saved::contains)) {
+                logger.info("Mapped semantic index of {} issues from {}", saved.size(), VECTOR_INDEX_PATH);
+                return saved;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load semantic index: {}", e.getMessage());
+        }
+        
+        return buildVectorIndex(kb.getAllIssues());
+    }
+    
+    private HnswVectorIndex buildVectorIndex(List<KnowledgeBase.IssueSummary> issues) {
+        HnswVectorIndex index = newVectorIndex();
+        if (issues.isEmpty()) {
+            return index;
+        }
+        logger.info("Building semantic index of {} issues with {}", issues.size(), embedder.getId());
+        try {
+            for (KnowledgeBase.IssueSummary issue : issues) {
+                index.add(issue.getNumber(), embedder.embed(issue.getTitle(), issue.getBody()));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to build semantic index, using term similarity only: {}", e.getMessage());
+            return null;
+        }
+        saveVectorIndex(index);
+        return index;
+    }
+    
+    private HnswVectorIndex newVectorIndex() {
+        return new HnswVectorIndex(embedder.getDimensions(), settings.getHnswM(),
+            settings.getHnswEfConstruction(), embedder.getId());
+    }
+    
+    private void saveVectorIndex(HnswVectorIndex index) {
+        try {
+            index.save(VECTOR_INDEX_PATH);
+            logger.info("Semantic index saved to {}", VECTOR_INDEX_PATH);
+        } catch (IOException e) {
+            logger.error("Failed to save semantic index: {}", e.getMessage());
+        }
+    }
+    
     private void saveKnowledgeBase(KnowledgeBase kb) {
         try {
-            objectMapper.writerWithDefaultPrettyPrinter()
-                .writeValue(new File(KB_FILE_PATH), kb);
+            KnowledgeBaseFile.write(kb, KB_FILE_PATH);
             logger.info("Knowledge base saved to {}", KB_FILE_PATH);
         } catch (IOException e) {
             logger.error("Failed to save knowledge base: {}", e.getMessage());
         }
     }
     
+    // Appends the changes since the last save to the journal, then writes the checkpoint to a
+    // temporary file and renames it, so an interrupted save leaves the previous checkpoint and the
+    // journal lines it covers
+    private void saveCheckpoint(KnowledgeBaseCheckpoint checkpoint) throws IOException {
+        KnowledgeBaseJournal.append(checkpoint, JOURNAL_FILE_PATH, objectMapper);
+        
+        Path file = Paths.get(CHECKPOINT_FILE_PATH);
+        Path temporary = Paths.get(CHECKPOINT_FILE_PATH + ".tmp");
+        objectMapper.writeValue(temporary.toFile(), checkpoint);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(Paths.get(CHECKPOINT_FILE_PATH));
+            Files.deleteIfExists(JOURNAL_FILE_PATH);
+        } catch (IOException e) {
+            logger.warn("Failed to delete knowledge base build checkpoint: {}", e.getMessage());
+        }
+    }
+    
+    // Maps the binary file; a JSON knowledge base from before the binary format is converted once
     private KnowledgeBase loadKnowledgeBase() {
-        File kbFile = new File(KB_FILE_PATH);
-        if (kbFile.exists()) {
-            try {
-                KnowledgeBase kb = objectMapper.readValue(kbFile, KnowledgeBase.class);
-                logger.info("Loaded knowledge base with {} issues", kb.getTotalIssuesAnalyzed());
+        try {
+            KnowledgeBase kb = KnowledgeBaseFile.read(KB_FILE_PATH);
+            if (kb != null) {
+                logger.info("Mapped knowledge base with {} issues from {}", kb.getTotalIssuesAnalyzed(), KB_FILE_PATH);
                 return kb;
-            } catch (IOException e) {
-                logger.warn("Failed to load knowledge base: {}", e.getMessage());
             }
+            if (Files.exists(KB_FILE_PATH)) {
+                logger.warn("Ignoring {}: not a knowledge base file of this version", KB_FILE_PATH);
+            }
+            kb = KnowledgeBaseFile.convert(KB_JSON_FILE_PATH, KB_FILE_PATH, objectMapper);
+            if (kb != null) {
+                logger.info("Converted knowledge base with {} issues from {} to {}",
+                    kb.getTotalIssuesAnalyzed(), KB_JSON_FILE_PATH, KB_FILE_PATH);
+                return kb;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load knowledge base: {}", e.getMessage());
         }
         logger.info("No existing knowledge base found, creating new one");
         return new KnowledgeBase();
     }
     
     public boolean hasKnowledgeBase() {
-        return knowledgeBase != null && knowledgeBase.getTotalIssuesAnalyzed() > 0;
+        return !snapshot.get().isEmpty();
+    }
+    
+    // Each snapshot's version is above the last one's, so a result records which knowledge base it used
+    private KnowledgeBaseSnapshot publish(KnowledgeBase kb, IssueSimilarityIndex similarityIndex,
+                                          HnswVectorIndex vectorIndex) {
+        long updated = kb.getLastUpdated() != null
+            ? kb.getLastUpdated().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        return snapshot.updateAndGet(current -> new KnowledgeBaseSnapshot(
+            current != null ? Math.max(current.getVersion() + 1, updated) : updated, kb, similarityIndex, vectorIndex));
     }
 }
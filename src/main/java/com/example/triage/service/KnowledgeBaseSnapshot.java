@@ -0,0 +1,62 @@
+package com.example.triage.service;
+
+import com.example.triage.model.KnowledgeBase;
+
+// One published version of the knowledge base, with the indexes built from it. A snapshot is
+// never changed once published: builds work on a copy and reloads read a new file, and either
+// publishes a new snapshot, so a classification that holds one sees a single version throughout.
+// The same goes for its indexes: an incremental refresh updates copies of them for the next snapshot.
+public class KnowledgeBaseSnapshot {
+    
+    private final long version;
+    private final KnowledgeBase knowledgeBase;
+    // Built on first use, which decodes every text of a mapped knowledge base
+    private volatile IssueSimilarityIndex similarityIndex;
+    // Null when the issues could not be embedded; similar issues then come from the TF-IDF index
+    private final HnswVectorIndex vectorIndex;
+    
+    KnowledgeBaseSnapshot(long version, KnowledgeBase knowledgeBase, IssueSimilarityIndex similarityIndex,
+                          HnswVectorIndex vectorIndex) {
+        this.version = version;
+        this.knowledgeBase = knowledgeBase;
+        this.similarityIndex = similarityIndex;
+        this.vectorIndex = vectorIndex;
+    }
+    
+    // Increases with every snapshot published; starts from the knowledge base's last update time in
+    // epoch milliseconds, so the same saved knowledge base has the same version after a restart
+    public long getVersion() {
+        return version;
+    }
+    
+    public KnowledgeBase getKnowledgeBase() {
+        return knowledgeBase;
+    }
+    
+    public boolean isEmpty() {
+        return knowledgeBase.getTotalIssuesAnalyzed() == 0;
+    }
+    
+    public IssueSimilarityIndex getSimilarityIndex() {
+        IssueSimilarityIndex index = similarityIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = similarityIndex;
+                if (index == null) {
+                    index = IssueSimilarityIndex.of(knowledgeBase);
+                    similarityIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+    
+    // The similarity index if it has been built, without building it
+    IssueSimilarityIndex getBuiltSimilarityIndex() {
+        return similarityIndex;
+    }
+    
+    public HnswVectorIndex getVectorIndex() {
+        return vectorIndex;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.triage.service;
+
+import com.example.triage.config.TriageConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Reloads the knowledge base in the background when its file is replaced, e.g. by a build on
+// another instance or a copied-in file. The watch runs on a thread of its own and the service
+// swaps in the new snapshot once it is loaded, so classifications are never blocked.
+@Service
+public class KnowledgeBaseWatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(KnowledgeBaseWatcher.class);
+    
+    // A file is often written in several steps; it is reloaded once no event has come for this long
+    private static final long QUIET_PERIOD_MS = 500;
+    
+    private final KnowledgeBaseService knowledgeBaseService;
+    private final WatchService watchService;
+    private final ExecutorService executor;
+    
+    public KnowledgeBaseWatcher(KnowledgeBaseService knowledgeBaseService, TriageConfiguration config) {
+        this.knowledgeBaseService = knowledgeBaseService;
+        if (!config.getKnowledgeBase().isHotReload()) {
+            this.watchService = null;
+            this.executor = null;
+            return;
+        }
+        
+        WatchService service = null;
+        Path directory = KnowledgeBaseService.KB_FILE_PATH.toAbsolutePath().normalize().getParent();
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Knowledge base hot reload disabled, cannot watch {}: {}", directory, e.getMessage());
+            closeQuietly(service);
+            service = null;
+        }
+        this.watchService = service;
+        if (service == null) {
+            this.executor = null;
+            return;
+        }
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "knowledge-base-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::watch);
+        logger.info("Watching {} for knowledge base changes", directory);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            closeQuietly(watchService);
+            executor.shutdownNow();
+        }
+    }
+    
+    private void watch() {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collectChanges(key, changed);
+                    key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                }
+                // A converted JSON file rewrites the binary one, which then reads as unchanged
+                for (Path file : changed) {
+                    try {
+                        knowledgeBaseService.reloadKnowledgeBase(file);
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to reload knowledge base from {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+    
+    private void collectChanges(WatchKey key, Set<Path> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.add(KnowledgeBaseService.KB_FILE_PATH); // Events were lost; unchanged files are skipped
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (name.equals(KnowledgeBaseService.KB_JSON_FILE_PATH.getFileName())) {
+                changed.add(KnowledgeBaseService.KB_JSON_FILE_PATH);
+            } else if (name.equals(KnowledgeBaseService.KB_FILE_PATH.getFileName())) {
+                changed.add(KnowledgeBaseService.KB_FILE_PATH);
+            }
+        }
+        key.reset();
+    }
+    
+    private static void closeQuietly(WatchService service) {
+        if (service == null) {
+            return;
+        }
+        try {
+            service.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close knowledge base watch service: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.triage.service;
+
+import com.example.triage.config.TriageConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// Keeps prompt sections within a token budget. Text over its budget first loses consecutive
+// repeated lines, then long code fences, stack traces and log runs are cut down to their head and
+// tail, and only what is still too long is truncated. Text within budget is sent unchanged.
+@Component
+public class PromptCompactor {
+    
+    // Rough average for English prose and code; errs towards overestimating
+    private static final double CHARS_PER_TOKEN = 3.5;
+    
+    private static final int BLOCK_HEAD_LINES = 12;
+    private static final int BLOCK_TAIL_LINES = 6;
+    private static final int MIN_COLLAPSE_LINES = BLOCK_HEAD_LINES + BLOCK_TAIL_LINES + 4;
+    
+    // Stack frames (Java, Python, JS, native) and timestamped or levelled log lines
+    private static final Pattern TRACE_OR_LOG_LINE = Pattern.compile(
+        "^\\s*(at\\s+\\S+|Caused by:|\\.\\.\\.\\s*\\d+\\s+more|File \".*\", line \\d+|Traceback \\(most recent call last\\)|#\\d+\\s+0x\\p{XDigit}+)" +
+        "|^\\s*\\[?\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}" +
+        "|^\\s*\\[?(TRACE|DEBUG|INFO|WARN|WARNING|ERROR|FATAL)\\]?[\\s:]");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    
+    private final int promptTokenBudget;
+    
+    private final AtomicLong sections = new AtomicLong();
+    private final AtomicLong compacted = new AtomicLong();
+    private final AtomicLong tokensIn = new AtomicLong();
+    private final AtomicLong tokensOut = new AtomicLong();
+    
+    public PromptCompactor(TriageConfiguration config) {
+        this.promptTokenBudget = config.getAi().getPromptTokenBudget();
+    }
+    
+    // Shares of the prompt budget; the rest is left for instructions and the response schema
+    public int bodyBudget() {
+        return promptTokenBudget * 30 / 100;
+    }
+    
+    public int commentsBudget() {
+        return promptTokenBudget * 20 / 100;
+    }
+    
+    public int contextBudget() {
+        return promptTokenBudget * 40 / 100;
+    }
+    
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (int) Math.ceil(text.length() / CHARS_PER_TOKEN);
+    }
+    
+    public String compact(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        
+        int before = estimateTokens(text);
+        sections.incrementAndGet();
+        tokensIn.addAndGet(before);
+        if (before <= maxTokens) {
+            tokensOut.addAndGet(before);
+            return text;
+        }
+        
+        List<String> lines = List.of(text.replace("\r\n", "\n").split("\n", -1));
+        String result = String.join("\n", collapseBlocks(dedupeRepeatedLines(lines)));
+        if (estimateTokens(result) > maxTokens) {
+            result = truncate(result, maxTokens);
+        }
+        
+        compacted.incrementAndGet();
+        tokensOut.addAndGet(estimateTokens(result));
+        return result;
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("promptTokenBudget", promptTokenBudget);
+        stats.put("sections", sections.get());
+        stats.put("compacted", compacted.get());
+        stats.put("estimatedTokensIn", tokensIn.get());
+        stats.put("estimatedTokensOut", tokensOut.get());
+        return stats;
+    }
+    
+    // Lines that differ only in numbers (timestamps, counters, ids) count as repeats
+    private List<String> dedupeRepeatedLines(List<String> lines) {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        while (i < lines.size()) {
+            String line = lines.get(i);
+            String key = DIGITS.matcher(line.trim()).replaceAll("0");
+            int end = i + 1;
+            while (!key.isEmpty() && end < lines.size() &&
+                   key.equals(DIGITS.matcher(lines.get(end).trim()).replaceAll("0"))) {
+                end++;
+            }
+            result.add(line);
+            if (end - i > 1) {
+                result.add("... [previous line repeated " + (end - i - 1) + " more times]");
+            }
+            i = end;
+        }
+        return result;
+    }
+    
+    private List<String> collapseBlocks(List<String> lines) {
+        List<String> result = new ArrayList<>();
+        int i = 0;
+        while (i < lines.size()) {
+            String line = lines.get(i);
+            
+            if (line.trim().startsWith("```")) {
+                // Keep the fences, shorten what is between them
+                int close = i + 1;
+                while (close < lines.size() && !lines.get(close).trim().startsWith("```")) {
+                    close++;
+                }
+                result.add(line);
+                result.addAll(headAndTail(lines.subList(i + 1, close)));
+                if (close < lines.size()) {
+                    result.add(lines.get(close));
+                }
+                i = close + 1;
+                continue;
+            }
+            
+            if (TRACE_OR_LOG_LINE.matcher(line).find()) {
+                int end = i + 1;
+                while (end < lines.size() && TRACE_OR_LOG_LINE.matcher(lines.get(end)).find()) {
+                    end++;
+                }
+                result.addAll(headAndTail(lines.subList(i, end)));
+                i = end;
+                continue;
+            }
+            
+            result.add(line);
+            i++;
+        }
+        return result;
+    }
+    
+    // The first frames name the failure and the last ones its origin; the middle rarely matters
+    private List<String> headAndTail(List<String> block) {
+        if (block.size() < MIN_COLLAPSE_LINES) {
+            return block;
+        }
+        List<String> result = new ArrayList<>(block.subList(0, BLOCK_HEAD_LINES));
+        result.add("... [" + (block.size() - BLOCK_HEAD_LINES - BLOCK_TAIL_LINES) + " lines omitted] ...");
+        result.addAll(block.subList(block.size() - BLOCK_TAIL_LINES, block.size()));
+        return result;
+    }
+    
+    private String truncate(String text, int maxTokens) {
+        int maxChars = (int) (maxTokens * CHARS_PER_TOKEN);
+        String marker = "\n... [truncated " + (text.length() - maxChars) + " characters] ...\n";
+        int head = maxChars * 3 / 4;
+        int tail = maxChars - head - marker.length();
+        if (tail <= 0) {
+            return text.substring(0, safeCut(text, maxChars)) + "... [truncated]";
+        }
+        // Prefer whole lines when a line break is close to the cut
+        int headEnd = text.lastIndexOf('\n', head);
+        if (headEnd < head / 2) {
+            headEnd = safeCut(text, head);
+        }
+        int tailStart = text.indexOf('\n', text.length() - tail);
+        if (tailStart < 0 || tailStart > text.length() - tail / 2) {
+            tailStart = safeCut(text, text.length() - tail);
+        } else {
+            tailStart++;
+        }
+        return text.substring(0, headEnd) + "\n... [truncated " + (tailStart - headEnd) + " characters] ...\n" +
+               text.substring(tailStart);
+    }
+    
+    // Never split a surrogate pair
+    private static int safeCut(String text, int index) {
+        if (index > 0 && index < text.length() && Character.isLowSurrogate(text.charAt(index))) {
+            return index - 1;
+        }
+        return index;
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.triage.service;
 
+import com.example.triage.client.BedrockRateLimiter;
+import com.example.triage.client.BedrockResponseCache;
 import com.example.triage.client.GitHubClient;
 import com.example.triage.model.GitHubIssue;
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.TriageResult;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class QuickTriageService {
@@ -28,15 +34,24 @@ public class QuickTriageService {
     private static final Logger logger = LoggerFactory.getLogger(QuickTriageService.class);
     private static final String QUICK_TRIAGE_FILE = "quick-triage.md";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Set<String> QUICK_CATEGORIES = Set.of("BUG", "FEATURE", "QUESTION", "USABILITY");
     
     private final GitHubClient gitHubClient;
     private final ChatClient chatClient;
     private final ObjectMapper objectMapper;
+    private final BedrockRateLimiter bedrockRateLimiter;
+    private final BedrockResponseCache responseCache;
+    private final PromptCompactor promptCompactor;
     
-    public QuickTriageService(GitHubClient gitHubClient, ChatClient.Builder chatClientBuilder) {
+    public QuickTriageService(GitHubClient gitHubClient, ChatClient.Builder chatClientBuilder,
+                              BedrockRateLimiter bedrockRateLimiter, BedrockResponseCache responseCache,
+                              PromptCompactor promptCompactor) {
         this.gitHubClient = gitHubClient;
         this.chatClient = chatClientBuilder.build();
         this.objectMapper = new ObjectMapper();
+        this.bedrockRateLimiter = bedrockRateLimiter;
+        this.responseCache = responseCache;
+        this.promptCompactor = promptCompactor;
     }
     
     public List<QuickTriageResult> quickTriageAllPendingIssues(int limit) {
@@ -95,12 +110,16 @@ public class QuickTriageService {
         
         Map<String, Object> model = new HashMap<>();
         model.put("title", issue.getTitle());
-        model.put("description", issue.getBody() != null ? issue.getBody() : "No description provided");
+        model.put("description", issue.getBody() != null
+            ? promptCompactor.compact(issue.getBody(), promptCompactor.bodyBudget())
+            : "No description provided");
         
         PromptTemplate promptTemplate = new PromptTemplate(prompt, model);
         Prompt aiPrompt = promptTemplate.create();
         
-        String response = chatClient.prompt(aiPrompt).call().content();
+        String response = responseCache.getOrCompute(aiPrompt.getContents(), () ->
+            bedrockRateLimiter.call(() -> chatClient.prompt(aiPrompt).call().content()),
+            QuickTriageService::isCategoryAndReason);
         
         // Parse response
         QuickTriageResult result = new QuickTriageResult();
@@ -117,8 +136,7 @@ public class QuickTriageService {
             String reason = parts[1].trim();
             
             // Validate category
-            if (category.equals("BUG") || category.equals("FEATURE") || 
-                category.equals("QUESTION") || category.equals("USABILITY")) {
+            if (QUICK_CATEGORIES.contains(category)) {
                 result.setCategory(category);
                 result.setReason(reason);
             } else {
@@ -134,6 +152,82 @@ public class QuickTriageService {
         return result;
     }
     
+    // First tier of cascade triage: title and a shortened description only, no comments or
+    // knowledge base context. The result carries a confidence so the caller can decide to escalate.
+    public TriageResult classifyQuickly(GitHubIssue issue) {
+        String description = issue.getBody() != null
+            ? promptCompactor.compact(issue.getBody(), promptCompactor.bodyBudget() / 4)
+            : "No description provided";
+        String prompt = String.format("""
+            Triage this GitHub issue from its title and description.
+            Categories:
+            - Bug: Technical problems, errors, or unexpected behavior
+            - Feature Request: New functionality or enhancement requests
+            - Usability: User experience issues or interface improvements
+            - Question: Requests for information or clarification
+            
+            Title: %s
+            Description: %s
+            
+            Give a low confidence when the category is unclear from this much information.
+            Respond with only this JSON object:
+            {
+              "category": "<Bug|Feature Request|Usability|Question>",
+              "confidence": <0-100>,
+              "reasoning": "<one sentence>",
+              "responseSuggestion": "<2-3 sentence professional response to the author>"
+            }
+            """, issue.getTitle(), description);
+        
+        TriageResult result = new TriageResult();
+        result.setIssueNumber(issue.getNumber());
+        result.setIssueTitle(issue.getTitle());
+        result.setIssueUrl(issue.getUrl());
+        
+        String response = responseCache.getOrCompute(prompt, () -> {
+            String content = bedrockRateLimiter.call(() -> chatClient.prompt(new Prompt(prompt)).call().content());
+            result.addModelTokens(PromptCompactor.estimateTokens(prompt), PromptCompactor.estimateTokens(content));
+            return content;
+        }, this::isQuickClassification);
+        try {
+            JsonNode json = objectMapper.readTree(jsonObject(response));
+            result.setCategory(IssueCategory.fromString(json.get("category").asText()));
+            result.setConfidence(json.get("confidence").asInt());
+            result.setReasoning(json.path("reasoning").asText(""));
+            result.setResponseSuggestion(json.path("responseSuggestion").asText("").trim());
+        } catch (Exception e) {
+            logger.warn("Failed to parse quick classification of issue #{}: {}", issue.getNumber(), e.getMessage());
+            result.setCategory(IssueCategory.QUESTION);
+            result.setConfidence(0);
+            result.setReasoning("Failed to parse AI response");
+            result.setFlaggedForManualReview(true);
+        }
+        return result;
+    }
+    
+    // Whether the "CATEGORY: reason" line names one of the categories, as triageIssue expects
+    private static boolean isCategoryAndReason(String response) {
+        String[] parts = response.split(":", 2);
+        return parts.length == 2 && QUICK_CATEGORIES.contains(parts[0].trim().toUpperCase());
+    }
+    
+    // Whether classifyQuickly can read the object without flagging the issue for manual review
+    private boolean isQuickClassification(String response) {
+        try {
+            JsonNode json = objectMapper.readTree(jsonObject(response));
+            IssueCategory.fromString(json.get("category").asText());
+            return json.hasNonNull("confidence");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    private static String jsonObject(String response) {
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        return start >= 0 && end > start ? response.substring(start, end + 1) : response;
+    }
+    
     private void saveQuickTriageResults(List<QuickTriageResult> results) {
         try {
             Path filePath = Paths.get(QUICK_TRIAGE_FILE);
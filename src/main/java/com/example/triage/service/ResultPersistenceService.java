@@ -3,6 +3,8 @@ package com.example.triage.service;
 import com.example.triage.config.TriageConfiguration;
 import com.example.triage.model.IssueCategory;
 import com.example.triage.model.TriageResult;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -12,9 +14,15 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +33,8 @@ public class ResultPersistenceService {
     
     private final TriageConfiguration config;
     private final ObjectMapper objectMapper;
+    // Held for a whole save or merge, so a merge's read and write never interleave with another write
+    private final Object fileLock = new Object();
     
     public ResultPersistenceService(TriageConfiguration config) {
         this.config = config;
@@ -34,6 +44,12 @@ public class ResultPersistenceService {
     }
     
     public void saveResults(List<TriageResult> results) {
+        synchronized (fileLock) {
+            writeResults(results);
+        }
+    }
+    
+    private void writeResults(List<TriageResult> results) {
         String outputPath = config.getOutputPath();
         
         try {
@@ -58,6 +74,38 @@ public class ResultPersistenceService {
         }
     }
     
+    // Replaces the results of the same issues in the existing output and keeps the rest,
+    // for runs that only re-triage a few issues
+    public void mergeResults(List<TriageResult> results) {
+        synchronized (fileLock) {
+            Map<Long, TriageResult> merged = new LinkedHashMap<>();
+            for (TriageResult previous : loadResults()) {
+                merged.put(previous.getIssueNumber(), previous);
+            }
+            for (TriageResult result : results) {
+                merged.put(result.getIssueNumber(), result);
+            }
+            writeResults(new ArrayList<>(merged.values()));
+        }
+    }
+    
+    private List<TriageResult> loadResults() {
+        File file = new File(config.getOutputPath());
+        if (!file.exists()) {
+            return List.of();
+        }
+        try {
+            JsonNode results = objectMapper.readTree(file).path("results");
+            return objectMapper.readerForListOf(TriageResult.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(results);
+        } catch (IOException e) {
+            logger.warn("Could not read previous results from {}, starting fresh: {}", 
+                config.getOutputPath(), e.getMessage());
+            return List.of();
+        }
+    }
+    
     private Map<String, Object> formatAsJson(List<TriageResult> results) {
         Map<String, Object> output = new HashMap<>();
         
@@ -85,15 +133,23 @@ public class ResultPersistenceService {
         return summary;
     }
     
+    // Written to a temporary file and renamed, so a reader of the output never sees a partial file
     private void writeToFile(String path, Map<String, Object> data) throws IOException {
-        File file = new File(path);
-        File parentDir = file.getParentFile();
+        Path file = Paths.get(path).toAbsolutePath();
+        File parentDir = file.getParent().toFile();
         
-        if (parentDir != null && !parentDir.exists()) {
+        if (!parentDir.exists()) {
             parentDir.mkdirs();
         }
         
-        objectMapper.writeValue(file, data);
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
     }
     
     private String generateFallbackPath() {
@@ -0,0 +1,23 @@
+package com.example.triage.service;
+
+import com.example.triage.model.KnowledgeBase;
+
+// A knowledge base issue found for the issue being triaged, with how similar the two are
+public class SimilarIssue {
+    
+    private final KnowledgeBase.IssueSummary issue;
+    private final double score;
+    
+    SimilarIssue(KnowledgeBase.IssueSummary issue, double score) {
+        this.issue = issue;
+        this.score = score;
+    }
+    
+    public KnowledgeBase.IssueSummary getIssue() {
+        return issue;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+}
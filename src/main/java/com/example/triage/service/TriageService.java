@@ -2,6 +2,7 @@ package com.example.triage.service;
 
 import com.example.triage.client.GitHubApiException;
 import com.example.triage.client.GitHubClient;
+import com.example.triage.config.TriageConfiguration;
 import com.example.triage.model.GitHubIssue;
 import com.example.triage.model.IssueCategory;
 import com.example.triage.model.TriageResult;
@@ -9,9 +10,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,14 +26,28 @@ public class TriageService {
     private final GitHubClient gitHubClient;
     private final AIClassificationService aiClassificationService;
     private final ResultPersistenceService resultPersistenceService;
+    private final BatchTriageEngine batchTriageEngine;
+    private final QuickTriageService quickTriageService;
+    private final KnowledgeBaseService knowledgeBaseService;
+    private final TriageConfiguration.Cascade cascade;
+    
+    private volatile Map<String, Object> lastCascadeSummary = new HashMap<>();
     
     public TriageService(
             GitHubClient gitHubClient,
             AIClassificationService aiClassificationService,
-            ResultPersistenceService resultPersistenceService) {
+            ResultPersistenceService resultPersistenceService,
+            BatchTriageEngine batchTriageEngine,
+            QuickTriageService quickTriageService,
+            KnowledgeBaseService knowledgeBaseService,
+            TriageConfiguration config) {
         this.gitHubClient = gitHubClient;
         this.aiClassificationService = aiClassificationService;
         this.resultPersistenceService = resultPersistenceService;
+        this.batchTriageEngine = batchTriageEngine;
+        this.quickTriageService = quickTriageService;
+        this.knowledgeBaseService = knowledgeBaseService;
+        this.cascade = config.getCascade();
     }
     
     public int processAllPendingIssues() {
@@ -40,37 +58,16 @@ public class TriageService {
         logger.info("Starting triage process for pending issues (limit: {})", limit);
         
         try {
-            // Fetch issues
-            List<GitHubIssue> issues = gitHubClient.fetchPendingTriageIssues(limit);
+            // Fetch issues with their org member comments so classification needs no extra calls
+            List<GitHubIssue> issues = gitHubClient.fetchPendingTriageIssuesWithComments(limit, 20);
             
             if (issues.isEmpty()) {
                 logger.info("No pending-triage issues found. Triage process completed successfully.");
                 return 0;
             }
             
-            // Process each issue with delay to avoid rate limiting
-            List<TriageResult> results = new ArrayList<>();
-            int failedCount = 0;
-            
-            for (int i = 0; i < issues.size(); i++) {
-                GitHubIssue issue = issues.get(i);
-                try {
-                    TriageResult result = processIssue(issue);
-                    results.add(result);
-                    
-                    // Add delay between requests to avoid rate limiting (except for last issue)
-                    if (i < issues.size() - 1) {
-                        logger.info("Waiting 10 seconds before processing next issue to avoid rate limiting...");
-                        Thread.sleep(10000); // 10 second delay between requests
-                    }
-                } catch (InterruptedException e) {
-                    logger.warn("Sleep interrupted: {}", e.getMessage());
-                    Thread.currentThread().interrupt();
-                } catch (Exception e) {
-                    logger.error("Failed to process issue #{}: {}", issue.getNumber(), e.getMessage());
-                    failedCount++;
-                }
-            }
+            List<TriageResult> results = classifyAll(issues);
+            int failedCount = issues.size() - results.size();
             
             // Persist results
             if (!results.isEmpty()) {
@@ -92,11 +89,163 @@ public class TriageService {
         }
     }
     
+    // Event-driven triage of a few issues; their results are merged into the existing output
+    public int processIssues(List<GitHubIssue> issues) {
+        List<TriageResult> results = classifyAll(issues);
+        if (!results.isEmpty()) {
+            resultPersistenceService.mergeResults(results);
+        }
+        logger.info("Triaged {} issues, {} failed", results.size(), issues.size() - results.size());
+        return results.size();
+    }
+    
     public TriageResult processIssue(GitHubIssue issue) {
         logger.debug("Processing issue #{}: {}", issue.getNumber(), issue.getTitle());
         return aiClassificationService.classifyIssue(issue);
     }
     
+    public Map<String, Object> getLastCascadeSummary() {
+        return lastCascadeSummary;
+    }
+    
+    // Issues are classified concurrently; Bedrock calls are paced by the shared rate limiter
+    private List<TriageResult> classifyAll(List<GitHubIssue> issues) {
+        if (!cascade.isEnabled()) {
+            return batchTriageEngine.classifyAll(issues, this::processIssue);
+        }
+        CascadeRun run = new CascadeRun();
+        List<TriageResult> results = batchTriageEngine.classifyAll(issues, issue -> processInCascade(issue, run));
+        lastCascadeSummary = run.summarize(issues.size());
+        logger.info("Cascade triage summary: {}", lastCascadeSummary);
+        return results;
+    }
+    
+    // A quick result is kept only when it is confident and nothing needs the full pipeline
+    private TriageResult processInCascade(GitHubIssue issue, CascadeRun run) {
+        String reason;
+        try {
+            TriageResult quick = quickTriageService.classifyQuickly(issue);
+            run.quickInputTokens.add(quick.getInputTokens());
+            run.quickOutputTokens.add(quick.getOutputTokens());
+            reason = escalationReason(issue, quick);
+            if (reason == null) {
+                quick.setSuggestedLabels(aiClassificationService.generateSuggestedLabels(quick.getCategory(), issue));
+                quick.setTriageTier(TriageResult.TIER_QUICK);
+                run.quickResolved.computeIfAbsent(quick.getCategory(), key -> new AtomicInteger()).incrementAndGet();
+                return quick;
+            }
+        } catch (Exception e) {
+            logger.warn("Quick classification of issue #{} failed, using the full pipeline: {}",
+                issue.getNumber(), e.getMessage());
+            reason = "quickFailed";
+        }
+        
+        logger.debug("Escalating issue #{} to the full pipeline: {}", issue.getNumber(), reason);
+        run.escalations.computeIfAbsent(reason, key -> new AtomicInteger()).incrementAndGet();
+        TriageResult result = aiClassificationService.classifyIssue(issue);
+        result.setTriageTier(TriageResult.TIER_FULL);
+        if (result.getInputTokens() > 0) {
+            FullTierTokens tokens = run.fullTokens.computeIfAbsent(result.getCategory(), key -> new FullTierTokens());
+            tokens.input.add(result.getInputTokens());
+            tokens.output.add(result.getOutputTokens());
+            tokens.issues.increment();
+        }
+        return result;
+    }
+    
+    private String escalationReason(GitHubIssue issue, TriageResult quick) {
+        if (quick.isFlaggedForManualReview() || quick.getConfidence() < cascade.getConfidenceThreshold()) {
+            return "lowConfidence";
+        }
+        // Reproducibility is only assessed by the full pipeline
+        if (cascade.getEscalateCategories().contains(quick.getCategory())) {
+            return "category";
+        }
+        KnowledgeBaseSnapshot kb = knowledgeBaseService.getSnapshot();
+        if (!kb.isEmpty() && !knowledgeBaseService.findDuplicateCandidates(kb, issue).isEmpty()) {
+            return "duplicateCandidates";
+        }
+        return null;
+    }
+    
+    // Per-tier counts and token use of one cascade run, from the tokens recorded with each of its
+    // results, so a run that overlaps another (a webhook batch during the sweep) counts only its own
+    private class CascadeRun {
+        private final Map<IssueCategory, AtomicInteger> quickResolved = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> escalations = new ConcurrentHashMap<>();
+        private final LongAdder quickInputTokens = new LongAdder();
+        private final LongAdder quickOutputTokens = new LongAdder();
+        // By the category the full pipeline gave, for escalated issues that called the model
+        // rather than hitting the cache
+        private final Map<IssueCategory, FullTierTokens> fullTokens = new ConcurrentHashMap<>();
+        
+        Map<String, Object> summarize(int issues) {
+            long quickInput = quickInputTokens.sum();
+            long quickOutput = quickOutputTokens.sum();
+            FullTierTokens full = new FullTierTokens();
+            fullTokens.values().forEach(tokens -> tokens.addTo(full));
+            long fullInput = full.input.sum();
+            long fullOutput = full.output.sum();
+            int escalated = escalations.values().stream().mapToInt(AtomicInteger::get).sum();
+            double cost = tokenCost(quickInput + fullInput, quickOutput + fullOutput);
+            
+            Map<String, Object> byReason = new HashMap<>();
+            escalations.forEach((reason, count) -> byReason.put(reason, count.get()));
+            
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("issues", issues);
+            summary.put("quickResolved", quickResolved.values().stream().mapToInt(AtomicInteger::get).sum());
+            summary.put("escalated", escalated);
+            summary.put("escalationReasons", byReason);
+            summary.put("quickTierTokens", quickInput + quickOutput);
+            summary.put("fullTierTokens", fullInput + fullOutput);
+            summary.put("estimatedCost", cost);
+            // Compared with also sending the quick-resolved issues through the full pipeline, each at what
+            // the escalated issues of its category took there, or of all categories when none of its
+            // category were escalated; unknown when no escalated issue called the model. An upper bound:
+            // escalated issues include those with duplicate candidates, whose prompts carry them, and the
+            // low-confidence ones, which tend to be the longer and harder issues.
+            if (full.issues.sum() > 0) {
+                long baselineInput = fullInput;
+                long baselineOutput = fullOutput;
+                for (Map.Entry<IssueCategory, AtomicInteger> resolved : quickResolved.entrySet()) {
+                    FullTierTokens estimate = fullTokens.getOrDefault(resolved.getKey(), full);
+                    baselineInput += Math.round(estimate.averageInput() * resolved.getValue().get());
+                    baselineOutput += Math.round(estimate.averageOutput() * resolved.getValue().get());
+                }
+                summary.put("estimatedTokensSavedUpperBound",
+                    baselineInput + baselineOutput - quickInput - quickOutput - fullInput - fullOutput);
+                summary.put("estimatedCostSavedUpperBound", tokenCost(baselineInput, baselineOutput) - cost);
+            }
+            return summary;
+        }
+        
+        private double tokenCost(long inputTokens, long outputTokens) {
+            return inputTokens / 1000.0 * cascade.getCostPer1kInputTokens() +
+                outputTokens / 1000.0 * cascade.getCostPer1kOutputTokens();
+        }
+    }
+    
+    private static class FullTierTokens {
+        private final LongAdder input = new LongAdder();
+        private final LongAdder output = new LongAdder();
+        private final LongAdder issues = new LongAdder();
+        
+        double averageInput() {
+            return (double) input.sum() / issues.sum();
+        }
+        
+        double averageOutput() {
+            return (double) output.sum() / issues.sum();
+        }
+        
+        void addTo(FullTierTokens total) {
+            total.input.add(input.sum());
+            total.output.add(output.sum());
+            total.issues.add(issues.sum());
+        }
+    }
+    
     private void logSummary(List<TriageResult> results, int failedCount) {
         Map<IssueCategory, Long> categoryCounts = results.stream()
             .collect(Collectors.groupingBy(TriageResult::getCategory, Collectors.counting()));
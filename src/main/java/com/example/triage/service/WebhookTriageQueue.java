@@ -0,0 +1,151 @@
+package com.example.triage.service;
+
+import com.example.triage.client.GitHubClient;
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Issue numbers reported by webhooks, waiting to be triaged. Repeated events for the same
+// issue within the debounce window collapse into one entry, so a burst of edits or comments
+// costs a single classification once the issue has settled.
+@Service
+public class WebhookTriageQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WebhookTriageQueue.class);
+    private static final String PENDING_TRIAGE_LABEL = "pending-triage";
+    
+    private final GitHubClient gitHubClient;
+    private final TriageService triageService;
+    private final IssueMirrorService issueMirrorService;
+    private final TriageConfiguration.Webhook settings;
+    
+    private final Map<Long, PendingIssue> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker;
+    
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong triaged = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    
+    public WebhookTriageQueue(GitHubClient gitHubClient, TriageService triageService,
+                              IssueMirrorService issueMirrorService, TriageConfiguration config) {
+        this.gitHubClient = gitHubClient;
+        this.triageService = triageService;
+        this.issueMirrorService = issueMirrorService;
+        this.settings = config.getWebhook();
+        
+        // Own thread so classification never holds up the shared @Scheduled pool
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-triage");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, settings.getDrainIntervalMs());
+        this.worker.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    public void enqueue(long issueNumber) {
+        received.incrementAndGet();
+        long now = System.nanoTime();
+        pending.merge(issueNumber, new PendingIssue(now, now), (existing, update) -> {
+            coalesced.incrementAndGet();
+            return new PendingIssue(existing.firstSeenNanos, now);
+        });
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", pending.size());
+        stats.put("received", received.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("triaged", triaged.get());
+        stats.put("skipped", skipped.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+    
+    private void drain() {
+        try {
+            List<GitHubIssue> toTriage = new ArrayList<>();
+            for (Long issueNumber : takeSettled()) {
+                try {
+                    // Always act on the current state, not on the event payload
+                    GitHubIssue issue = gitHubClient.fetchIssueById(issueNumber.intValue());
+                    issueMirrorService.refreshIssue(issue);
+                    if (isPendingTriage(issue)) {
+                        toTriage.add(issue);
+                    } else {
+                        skipped.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    logger.warn("Could not refresh issue #{} from webhook: {}", issueNumber, e.getMessage());
+                }
+            }
+            
+            if (!toTriage.isEmpty()) {
+                logger.info("Triaging {} issues from webhook events", toTriage.size());
+                int processed = triageService.processIssues(toTriage);
+                triaged.addAndGet(processed);
+                failed.addAndGet(toTriage.size() - processed);
+            }
+        } catch (Exception e) {
+            logger.error("Webhook triage drain failed: {}", e.getMessage(), e);
+        }
+    }
+    
+    // Removes issues that had no new event for the debounce window, or that have
+    // been waiting longer than the maximum delay while events kept arriving
+    private List<Long> takeSettled() {
+        long now = System.nanoTime();
+        long debounce = TimeUnit.MILLISECONDS.toNanos(settings.getDebounceMs());
+        long maxDelay = TimeUnit.MILLISECONDS.toNanos(settings.getMaxDelayMs());
+        
+        List<Long> settled = new ArrayList<>();
+        for (Map.Entry<Long, PendingIssue> entry : pending.entrySet()) {
+            PendingIssue issue = entry.getValue();
+            if (now - issue.lastSeenNanos >= debounce || now - issue.firstSeenNanos >= maxDelay) {
+                // Only remove the exact entry we looked at; a newer event keeps it queued
+                if (pending.remove(entry.getKey(), issue)) {
+                    settled.add(entry.getKey());
+                }
+            }
+        }
+        return settled;
+    }
+    
+    private boolean isPendingTriage(GitHubIssue issue) {
+        boolean open = issue.getState() == null || "open".equalsIgnoreCase(issue.getState());
+        return open && issue.getLabels() != null && issue.getLabels().stream()
+            .anyMatch(label -> PENDING_TRIAGE_LABEL.equals(label.getName()));
+    }
+    
+    private static class PendingIssue {
+        private final long firstSeenNanos;
+        private final long lastSeenNanos;
+        
+        PendingIssue(long firstSeenNanos, long lastSeenNanos) {
+            this.firstSeenNanos = firstSeenNanos;
+            this.lastSeenNanos = lastSeenNanos;
+        }
+    }
+}
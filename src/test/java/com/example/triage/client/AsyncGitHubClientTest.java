@@ -0,0 +1,290 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the client against a local HTTP server standing in for the GitHub API
+class AsyncGitHubClientTest {
+    
+    private static final int MAX_IN_FLIGHT = 2;
+    
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private volatile Handler handler;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private GitHubResponseCache responseCache;
+    private AsyncGitHubClient client;
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            try {
+                requests.add(exchange.getRequestURI().toString());
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        
+        TriageConfiguration config = new TriageConfiguration();
+        TriageConfiguration.GitHub github = new TriageConfiguration.GitHub();
+        github.setApiBaseUrl("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        github.setOwner("owner");
+        github.setRepo("repo");
+        github.setToken("token");
+        github.setAsyncMaxInFlight(MAX_IN_FLIGHT);
+        config.setGithub(github);
+        config.getRateLimit().setGithubMaxRequestsPerSecond(1000);
+        responseCache = new GitHubResponseCache(config);
+        client = new AsyncGitHubClient(config, responseCache, new GitHubRateLimiter(config));
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+    
+    @Test
+    void fetchesThePagesAnnouncedByTheLinkHeaderInOrder() throws Exception {
+        handler = exchange -> {
+            int page = Integer.parseInt(queryParameter(exchange, "page"));
+            // 250 issues, newest first: 100 on each of the first two pages, 50 on the last
+            int first = 250 - (page - 1) * 100;
+            int last = Math.max(1, first - 99);
+            exchange.getResponseHeaders().add("Link", "<" + "http://localhost/repos/owner/repo/issues?page=" +
+                (page + 1) + ">; rel=\"next\", <http://localhost/repos/owner/repo/issues?page=3>; rel=\"last\"");
+            respond(exchange, 200, issuesJson(first, last));
+        };
+        
+        List<GitHubIssue> issues = client.fetchPendingTriageIssues(Integer.MAX_VALUE).get(10, TimeUnit.SECONDS);
+        
+        assertEquals(IntStream.iterate(250, n -> n - 1).limit(250).boxed().collect(Collectors.toList()), numbers(issues));
+        assertEquals(List.of("1", "2", "3"), requestedPages());
+    }
+    
+    @Test
+    void stopsAtThePagesTheLimitNeeds() throws Exception {
+        handler = exchange -> {
+            int page = Integer.parseInt(queryParameter(exchange, "page"));
+            int first = 1000 - (page - 1) * 100;
+            exchange.getResponseHeaders().add("Link", "<http://localhost/repos/owner/repo/issues?page=10>; rel=\"last\"");
+            respond(exchange, 200, issuesJson(first, first - 99));
+        };
+        
+        List<GitHubIssue> issues = client.fetchPendingTriageIssues(150).get(10, TimeUnit.SECONDS);
+        
+        assertEquals(150, issues.size());
+        assertEquals(1000, issues.get(0).getNumber().intValue());
+        assertEquals(851, issues.get(149).getNumber().intValue());
+        assertEquals(List.of("1", "2"), requestedPages());
+    }
+    
+    @Test
+    void notModifiedReturnsTheCachedIssue() throws Exception {
+        List<String> conditions = Collections.synchronizedList(new ArrayList<>());
+        handler = exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            conditions.add(String.valueOf(ifNoneMatch));
+            if ("\"v1\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            respond(exchange, 200, issueJson(7));
+        };
+        
+        GitHubIssue fetched = client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        GitHubIssue revalidated = client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        
+        assertEquals(List.of("null", "\"v1\""), conditions);
+        assertEquals(7, revalidated.getNumber().intValue());
+        assertEquals(fetched.getTitle(), revalidated.getTitle());
+        assertEquals(1L, responseCache.getStatistics().get("unconditionalRequests"));
+        assertEquals(1L, responseCache.getStatistics().get("conditionalRequests"));
+        assertEquals(1L, responseCache.getStatistics().get("notModified"));
+    }
+    
+    @Test
+    void aChangedIssueIsAConditionalRequestWithoutA304() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        handler = exchange -> {
+            exchange.getResponseHeaders().add("ETag", "\"v" + version.incrementAndGet() + "\"");
+            respond(exchange, 200, issueJson(7));
+        };
+        
+        client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        
+        assertEquals(1L, responseCache.getStatistics().get("unconditionalRequests"));
+        assertEquals(2L, responseCache.getStatistics().get("conditionalRequests"));
+        assertEquals(0L, responseCache.getStatistics().get("notModified"));
+    }
+    
+    @Test
+    void changesToAReturnedIssueDoNotReachTheCache() throws Exception {
+        handler = exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            respond(exchange, 200, issueJson(7));
+        };
+        
+        GitHubIssue fetched = client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        fetched.setOrgMemberComments("[maintainer]: Stale\n");
+        fetched.getLabels().clear();
+        GitHubIssue revalidated = client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        revalidated.setOrgMemberComments("[maintainer]: Also stale\n");
+        GitHubIssue again = client.fetchIssueById(7).get(10, TimeUnit.SECONDS);
+        
+        assertNull(again.getOrgMemberComments());
+        assertEquals(1, again.getLabels().size());
+        assertEquals(2L, responseCache.getStatistics().get("notModified"));
+    }
+    
+    @Test
+    void failedRequestsCompleteExceptionallyAndCommentsWithNothing() throws Exception {
+        handler = exchange -> respond(exchange, 404, "{\"message\":\"Not Found\"}");
+        
+        CompletableFuture<GitHubIssue> issue = client.fetchIssueById(404);
+        
+        Throwable error = issue.handle((value, e) -> e instanceof CompletionException ? e.getCause() : e)
+            .get(10, TimeUnit.SECONDS);
+        assertTrue(error instanceof GitHubApiException, String.valueOf(error));
+        assertEquals("", client.fetchOrgMemberComments(404, 10).get(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void concurrentRequestsAreCappedAtTheConfiguredLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        handler = exchange -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            respond(exchange, 200, "[{\"author_association\":\"MEMBER\",\"user\":{\"login\":\"maintainer\"}," +
+                "\"body\":\"Looking into it\"}]");
+        };
+        
+        List<CompletableFuture<String>> comments = new ArrayList<>();
+        for (int number = 1; number <= 8; number++) {
+            comments.add(client.fetchOrgMemberComments(number, 10));
+        }
+        
+        for (CompletableFuture<String> comment : comments) {
+            assertEquals("[maintainer]: Looking into it\n", comment.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(MAX_IN_FLIGHT, mostRunning.get());
+        assertEquals(8, requests.size());
+    }
+    
+    @Test
+    void queuedRequestsStillRunAfterFailures() throws Exception {
+        handler = exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/issues/1")) {
+                respond(exchange, 500, "{}");
+            } else {
+                respond(exchange, 200, issueJson(2));
+            }
+        };
+        
+        List<CompletableFuture<GitHubIssue>> fetches = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            fetches.add(client.fetchIssueById(i % 2 == 0 ? 1 : 2));
+        }
+        
+        for (int i = 0; i < fetches.size(); i++) {
+            GitHubIssue issue = fetches.get(i).handle((value, e) -> value).get(10, TimeUnit.SECONDS);
+            if (i % 2 == 0) {
+                assertNull(issue);
+            } else {
+                assertEquals(2, issue.getNumber().intValue());
+            }
+        }
+    }
+    
+    private List<String> requestedPages() {
+        synchronized (requests) {
+            return requests.stream()
+                .map(request -> request.replaceAll(".*[?&]page=(\\d+).*", "$1"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+    
+    private static String queryParameter(HttpExchange exchange, String name) {
+        for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return parameter.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+    
+    private static String issuesJson(int first, int last) {
+        return IntStream.iterate(first, n -> n >= last, n -> n - 1)
+            .mapToObj(AsyncGitHubClientTest::issueJson)
+            .collect(Collectors.joining(",", "[", "]"));
+    }
+    
+    private static String issueJson(int number) {
+        return "{\"number\":" + number + ",\"title\":\"Issue " + number + "\",\"state\":\"open\"," +
+            "\"labels\":[{\"name\":\"pending-triage\"}]}";
+    }
+    
+    private static List<Integer> numbers(List<GitHubIssue> issues) {
+        return issues.stream().map(issue -> issue.getNumber().intValue()).collect(Collectors.toList());
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
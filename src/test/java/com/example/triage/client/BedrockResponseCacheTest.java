@@ -0,0 +1,242 @@
+package com.example.triage.client;
+
+import com.example.triage.config.TriageConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BedrockResponseCacheTest {
+    
+    private static final Predicate<String> ANY = response -> true;
+    
+    @TempDir
+    Path directory;
+    
+    private final List<BedrockResponseCache> opened = new ArrayList<>();
+    private final List<String> calls = new ArrayList<>();
+    
+    @AfterEach
+    void closeCaches() {
+        opened.forEach(BedrockResponseCache::close);
+    }
+    
+    @Test
+    void aStoredResponseIsServedWithoutACall() {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 168);
+        
+        assertEquals("Response to A", get(cache, "A"));
+        assertEquals("Response to A", get(cache, "A"));
+        
+        assertEquals(List.of("A"), calls);
+        assertEquals(1L, cache.getStatistics().get("hits"));
+        assertEquals(1L, cache.getStatistics().get("misses"));
+        assertEquals(1, cache.getStatistics().get("entries"));
+    }
+    
+    @Test
+    void responsesTheCallerRejectsAreAskedForAgain() {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 168);
+        
+        cache.getOrCompute("A", () -> call("A"), response -> false);
+        get(cache, "A");
+        // Stored, but no longer readable by the caller, e.g. after its parser changed
+        cache.getOrCompute("A", () -> call("A"), response -> false);
+        get(cache, "A");
+        
+        assertEquals(List.of("A", "A", "A", "A"), calls);
+        assertEquals(3L, cache.getStatistics().get("rejected"));
+        assertEquals(0L, cache.getStatistics().get("hits"));
+    }
+    
+    @Test
+    void expiredResponsesAreAskedForAgain() throws InterruptedException {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 0);
+        
+        get(cache, "A");
+        Thread.sleep(5);
+        get(cache, "A");
+        
+        assertEquals(List.of("A", "A"), calls);
+        assertEquals(1L, cache.getStatistics().get("expirations"));
+        assertEquals(0L, cache.getStatistics().get("hits"));
+    }
+    
+    @Test
+    void theLeastRecentlyUsedAreEvictedDownToNineTenthsOfMaxEntries() throws InterruptedException {
+        BedrockResponseCache cache = open(10, Long.MAX_VALUE, 168);
+        for (int i = 0; i < 10; i++) {
+            getAndWait(cache, "P" + i);
+        }
+        getAndWait(cache, "P0");
+        
+        getAndWait(cache, "P10");
+        
+        assertEquals(9, cache.getStatistics().get("entries"));
+        assertEquals(2L, cache.getStatistics().get("evictions"));
+        calls.clear();
+        for (String prompt : List.of("P0", "P3", "P9", "P10", "P1", "P2")) {
+            get(cache, prompt);
+        }
+        assertEquals(List.of("P1", "P2"), calls);
+    }
+    
+    @Test
+    void theLeastRecentlyUsedAreEvictedDownToNineTenthsOfMaxBytes() throws InterruptedException {
+        // Every response is 100 bytes
+        BedrockResponseCache cache = open(100, 1000, 168);
+        for (int i = 0; i < 10; i++) {
+            cache.getOrCompute("P" + i, () -> "x".repeat(100), ANY);
+            Thread.sleep(2);
+        }
+        
+        cache.getOrCompute("P10", () -> "x".repeat(100), ANY);
+        
+        assertEquals(9, cache.getStatistics().get("entries"));
+        assertEquals(900L, cache.getStatistics().get("bytes"));
+        assertEquals(2L, cache.getStatistics().get("evictions"));
+    }
+    
+    @Test
+    void entriesStayReachableAfterManyRemovals() {
+        // A table of 16 slots, compacted once live and deleted slots pass 12
+        BedrockResponseCache cache = open(8, Long.MAX_VALUE, 168);
+        for (int i = 0; i < 4; i++) {
+            get(cache, "Kept " + i);
+        }
+        for (int i = 0; i < 200; i++) {
+            get(cache, "Dropped " + i);
+            cache.getOrCompute("Dropped " + i, () -> call("Again"), response -> false);
+        }
+        
+        calls.clear();
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Response to Kept " + i, get(cache, "Kept " + i));
+        }
+        assertEquals(List.of(), calls);
+        assertEquals(4, cache.getStatistics().get("entries"));
+        assertEquals(0L, cache.getStatistics().get("evictions"));
+    }
+    
+    @Test
+    void theIndexIsRebuiltFromTheFilesWhenMaxEntriesChanges() throws IOException {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 168);
+        for (int i = 0; i < 5; i++) {
+            get(cache, "P" + i);
+        }
+        cache.close();
+        // Left over from a write that was interrupted before its rename
+        Files.writeString(directory.resolve("entries").resolve("leftover.tmp"), "partial");
+        
+        BedrockResponseCache reopened = open(1000, Long.MAX_VALUE, 168);
+        calls.clear();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Response to P" + i, get(reopened, "P" + i));
+        }
+        
+        assertEquals(List.of(), calls);
+        assertEquals(5, reopened.getStatistics().get("entries"));
+        assertFalse(Files.exists(directory.resolve("entries").resolve("leftover.tmp")));
+    }
+    
+    @Test
+    void aSmallerMaxEntriesEvictsWhileRebuilding() throws IOException {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 168);
+        for (int i = 0; i < 20; i++) {
+            get(cache, "P" + i);
+        }
+        cache.close();
+        
+        BedrockResponseCache reopened = open(10, Long.MAX_VALUE, 168);
+        
+        int entries = (int) reopened.getStatistics().get("entries");
+        assertTrue(entries <= 10, "Entries " + entries);
+        assertEquals((long) entries, entryFiles());
+    }
+    
+    @Test
+    void aDamagedIndexIsRebuiltFromTheFiles() throws IOException {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 168);
+        for (int i = 0; i < 5; i++) {
+            get(cache, "P" + i);
+        }
+        cache.close();
+        try (FileChannel index = FileChannel.open(directory.resolve("index.bin"), StandardOpenOption.WRITE)) {
+            index.write(ByteBuffer.allocate(16), 0);
+        }
+        
+        BedrockResponseCache reopened = open(100, Long.MAX_VALUE, 168);
+        calls.clear();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Response to P" + i, get(reopened, "P" + i));
+        }
+        
+        assertEquals(List.of(), calls);
+        assertEquals(5, reopened.getStatistics().get("entries"));
+    }
+    
+    @Test
+    void anIntactIndexIsReadAsItIs() {
+        BedrockResponseCache cache = open(100, Long.MAX_VALUE, 168);
+        get(cache, "A");
+        get(cache, "B");
+        cache.close();
+        
+        BedrockResponseCache reopened = open(100, Long.MAX_VALUE, 168);
+        calls.clear();
+        get(reopened, "A");
+        
+        assertEquals(List.of(), calls);
+        assertEquals(2, reopened.getStatistics().get("entries"));
+    }
+    
+    private BedrockResponseCache open(int maxEntries, long maxBytes, long ttlHours) {
+        TriageConfiguration config = new TriageConfiguration();
+        TriageConfiguration.AI ai = new TriageConfiguration.AI();
+        ai.setModel("model");
+        ai.setTemperature(0.0);
+        config.setAi(ai);
+        config.getLlmCache().setPath(directory.toString());
+        config.getLlmCache().setMaxEntries(maxEntries);
+        config.getLlmCache().setMaxBytes(maxBytes);
+        config.getLlmCache().setTtlHours(ttlHours);
+        BedrockResponseCache cache = new BedrockResponseCache(config);
+        opened.add(cache);
+        return cache;
+    }
+    
+    private String get(BedrockResponseCache cache, String prompt) {
+        return cache.getOrCompute(prompt, () -> call(prompt), ANY);
+    }
+    
+    // Entries are ordered by their last access, kept in milliseconds
+    private void getAndWait(BedrockResponseCache cache, String prompt) throws InterruptedException {
+        get(cache, prompt);
+        Thread.sleep(2);
+    }
+    
+    private String call(String prompt) {
+        calls.add(prompt);
+        return "Response to " + prompt;
+    }
+    
+    private long entryFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory.resolve("entries"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
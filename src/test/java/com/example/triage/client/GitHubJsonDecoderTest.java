@@ -0,0 +1,129 @@
+package com.example.triage.client;
+
+import com.example.triage.model.GitHubIssue;
+import com.example.triage.model.IssueSearchResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitHubJsonDecoderTest {
+    
+    private static final String ISSUE = """
+        {"url": "https://api.github.com/repos/o/r/issues/42", "number": 42, "title": "Crash on start",
+         "user": {"login": "octocat", "id": 1, "site_admin": false},
+         "labels": [{"id": 7, "name": "bug", "color": "d73a4a"}, {"name": "needs-triage"}],
+         "state": "open", "milestone": {"title": "1.0", "creator": {"login": "admin"}},
+         "reactions": {"+1": 3, "nested": [[1, 2], {"a": null}]},
+         "html_url": "https://github.com/o/r/issues/42",
+         "created_at": "2024-03-01T10:15:30Z", "updated_at": "2024-03-02T08:00:00Z",
+         "body": "It crashes"}
+        """;
+    
+    private final GitHubJsonDecoder decoder = new GitHubJsonDecoder(new JsonFactory());
+    
+    @Test
+    void anIssueKeepsTheFieldsTriageUsesAndSkipsTheRest() throws IOException {
+        GitHubIssue issue = decoder.readIssue(json(ISSUE));
+        
+        assertEquals(Long.valueOf(42), issue.getNumber());
+        assertEquals("Crash on start", issue.getTitle());
+        assertEquals("It crashes", issue.getBody());
+        assertEquals("open", issue.getState());
+        assertEquals("https://github.com/o/r/issues/42", issue.getUrl());
+        assertEquals("octocat", issue.getUser().getLogin());
+        assertEquals(List.of("bug", "needs-triage"), labelNames(issue));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 10, 15, 30), issue.getCreatedAt());
+        assertEquals(LocalDateTime.of(2024, 3, 2, 8, 0), issue.getUpdatedAt());
+    }
+    
+    @Test
+    void nullsAndMissingFieldsAreLeftEmpty() throws IOException {
+        GitHubIssue issue = decoder.readIssue(json(
+            "{\"number\": 7, \"title\": null, \"body\": null, \"user\": null, \"labels\": null, \"updated_at\": null}"));
+        
+        assertEquals(Long.valueOf(7), issue.getNumber());
+        assertNull(issue.getTitle());
+        assertNull(issue.getBody());
+        assertNull(issue.getUser());
+        assertEquals(List.of(), issue.getLabels());
+        assertNull(issue.getUpdatedAt());
+        assertNull(issue.getCreatedAt());
+    }
+    
+    @Test
+    void anArrayOfIssuesIsHandedOverOneByOne() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        
+        int count = decoder.readIssues(json("[" + ISSUE + ", {\"number\": 43, \"labels\": [\"question\"]}]"),
+            issue -> numbers.add(issue.getNumber()));
+        
+        assertEquals(2, count);
+        assertEquals(List.of(42L, 43L), numbers);
+    }
+    
+    @Test
+    void aPayloadThatIsNotAnArrayOrObjectIsEmpty() throws IOException {
+        List<GitHubIssue> issues = new ArrayList<>();
+        
+        assertEquals(0, decoder.readIssues(json("{\"message\": \"Not Found\"}"), issues::add));
+        assertNull(decoder.readIssue(json("[]")));
+        assertEquals(List.of(), issues);
+    }
+    
+    @Test
+    void aSearchPageReadsItsCountsAndItems() throws IOException {
+        IssueSearchResult result = decoder.readSearchResult(json(
+            "{\"total_count\": 1234, \"incomplete_results\": true, \"facets\": {\"x\": [1]},"
+                + " \"items\": [" + ISSUE + ", {\"number\": 43}]}"));
+        
+        assertEquals(1234L, result.getTotalCount());
+        assertTrue(result.isIncompleteResults());
+        assertEquals(List.of(42L, 43L), result.getIssues().stream().map(GitHubIssue::getNumber).toList());
+        assertEquals(List.of("bug", "needs-triage"), labelNames(result.getIssues().get(0)));
+    }
+    
+    @Test
+    void aSearchPageWithoutItemsIsEmpty() throws IOException {
+        IssueSearchResult result = decoder.readSearchResult(json("{\"total_count\": 0, \"items\": null}"));
+        
+        assertEquals(0L, result.getTotalCount());
+        assertFalse(result.isIncompleteResults());
+        assertEquals(List.of(), result.getIssues());
+    }
+    
+    @Test
+    void onlyCommentsByTheGivenAssociationsAreHandedOver() throws IOException {
+        List<String> comments = new ArrayList<>();
+        
+        decoder.readComments(json("""
+                [{"user": {"login": "maintainer"}, "body": "Duplicate of #1", "author_association": "MEMBER"},
+                 {"body": "Same here", "reactions": {"+1": 2}, "user": {"login": "someone"}, "author_association": "NONE"},
+                 {"author_association": "OWNER", "body": "Fixed in 1.1", "user": {"login": "owner"}},
+                 {"body": "No association", "user": {"login": "ghost"}}]
+                """),
+            Set.of("MEMBER", "OWNER"), (login, body) -> comments.add(login + ": " + body));
+        
+        assertEquals(List.of("maintainer: Duplicate of #1", "owner: Fixed in 1.1"), comments);
+    }
+    
+    private static InputStream json(String payload) {
+        return new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static List<String> labelNames(GitHubIssue issue) {
+        return issue.getLabels().stream().map(GitHubIssue.Label::getName).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.triage.controller;
+
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.service.WebhookTriageQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebhookControllerTest {
+    
+    private static final String SECRET = "webhook secret";
+    private static final String OPENED = "{\"action\":\"opened\",\"issue\":{\"number\":42}}";
+    
+    private TriageConfiguration config;
+    private RecordingQueue queue;
+    private WebhookController controller;
+    
+    @BeforeEach
+    void createController() {
+        config = new TriageConfiguration();
+        config.getWebhook().setSecret(SECRET);
+        queue = new RecordingQueue(config);
+        controller = new WebhookController(config, queue, new ObjectMapper());
+    }
+    
+    @AfterEach
+    void shutdown() {
+        queue.shutdown();
+    }
+    
+    @Test
+    void aDeliverySignedWithTheSecretIsQueued() throws Exception {
+        ResponseEntity<Map<String, Object>> response = deliver("issues", OPENED, sign(SECRET, OPENED));
+        
+        assertEquals(202, response.getStatusCode().value());
+        assertEquals(List.of(42L), queue.enqueued);
+    }
+    
+    @Test
+    void aDeliverySignedWithAnotherSecretIsRejected() throws Exception {
+        ResponseEntity<Map<String, Object>> response = deliver("issues", OPENED, sign("another secret", OPENED));
+        
+        assertEquals(401, response.getStatusCode().value());
+        assertEquals(List.of(), queue.enqueued);
+    }
+    
+    @Test
+    void aSignatureOfAnotherBodyIsRejected() throws Exception {
+        String signature = sign(SECRET, "{\"action\":\"opened\",\"issue\":{\"number\":7}}");
+        
+        assertEquals(401, deliver("issues", OPENED, signature).getStatusCode().value());
+        assertEquals(List.of(), queue.enqueued);
+    }
+    
+    @Test
+    void missingOrMalformedSignaturesAreRejected() throws Exception {
+        String hex = sign(SECRET, OPENED).substring("sha256=".length());
+        
+        assertEquals(401, deliver("issues", OPENED, null).getStatusCode().value());
+        assertEquals(401, deliver("issues", OPENED, hex).getStatusCode().value());
+        assertEquals(401, deliver("issues", OPENED, "sha1=" + hex).getStatusCode().value());
+        assertEquals(401, deliver("issues", OPENED, "sha256=not-hex").getStatusCode().value());
+        assertEquals(401, deliver("issues", OPENED, "sha256=" + hex.substring(2)).getStatusCode().value());
+        assertEquals(List.of(), queue.enqueued);
+    }
+    
+    @Test
+    void everyDeliveryIsRejectedWithoutASecret() throws Exception {
+        config.getWebhook().setSecret("");
+        
+        assertEquals(401, deliver("issues", OPENED, sign("", OPENED)).getStatusCode().value());
+        assertEquals(List.of(), queue.enqueued);
+    }
+    
+    @Test
+    void commentsOnPullRequestsAreIgnored() throws Exception {
+        String comment = "{\"action\":\"created\",\"issue\":{\"number\":42,\"pull_request\":{}}}";
+        
+        ResponseEntity<Map<String, Object>> response = deliver("issue_comment", comment, sign(SECRET, comment));
+        
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(), queue.enqueued);
+    }
+    
+    private ResponseEntity<Map<String, Object>> deliver(String event, String payload, String signature) {
+        return controller.receiveGitHubEvent(event, "delivery", signature, payload.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String sign(String secret, String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.isEmpty() ? new byte[1] : secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    // Records the issues a delivery queued instead of triaging them
+    private static class RecordingQueue extends WebhookTriageQueue {
+        private final List<Long> enqueued = new ArrayList<>();
+        
+        RecordingQueue(TriageConfiguration config) {
+            super(null, null, null, config);
+        }
+        
+        @Override
+        public void enqueue(long issueNumber) {
+            enqueued.add(issueNumber);
+        }
+    }
+}
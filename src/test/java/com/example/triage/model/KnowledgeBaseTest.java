@@ -0,0 +1,162 @@
+package com.example.triage.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnowledgeBaseTest {
+    
+    @Test
+    void addingAnIssueAgainReplacesItsSummary() {
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.addIssue(issue(1, IssueCategory.BUG, "Crash", "bug"));
+        kb.addIssue(issue(2, IssueCategory.BUG, "Hang", "bug"));
+        
+        kb.addIssue(issue(1, IssueCategory.FEATURE_REQUEST, "Crash reporting", "enhancement"));
+        
+        assertEquals(2, kb.getTotalIssuesAnalyzed());
+        assertEquals(List.of(2), numbers(kb, IssueCategory.BUG));
+        assertEquals(List.of(1), numbers(kb, IssueCategory.FEATURE_REQUEST));
+        assertEquals("Crash reporting", kb.getIssuesByCategory(IssueCategory.FEATURE_REQUEST).get(0).getTitle());
+        assertEquals(Map.of("bug", 1, "enhancement", 1), kb.getLabelFrequency());
+    }
+    
+    @Test
+    void removingAnIssueKeepsTheOrderOfTheOthers() {
+        KnowledgeBase kb = new KnowledgeBase();
+        for (int number = 1; number <= 5; number++) {
+            kb.addIssue(issue(number, IssueCategory.BUG, "Issue " + number, "bug"));
+        }
+        
+        assertTrue(kb.removeIssue(2));
+        assertFalse(kb.removeIssue(2));
+        assertTrue(kb.removeIssue(5));
+        kb.addIssue(issue(3, IssueCategory.BUG, "Issue 3 again", "bug"));
+        
+        assertEquals(List.of(1, 4, 3), numbers(kb, IssueCategory.BUG));
+        assertEquals(List.of("Issue 1", "Issue 4", "Issue 3 again"), kb.getIssuesByCategory(IssueCategory.BUG).stream()
+            .map(KnowledgeBase.IssueSummary::getTitle).collect(Collectors.toList()));
+        assertTrue(kb.removeIssue(4));
+        assertEquals(List.of(1, 3), numbers(kb, IssueCategory.BUG));
+        assertEquals(Map.of("bug", 2), kb.getLabelFrequency());
+    }
+    
+    @Test
+    void findsAnIssueByNumber() {
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.addIssue(issue(1, IssueCategory.BUG, "Crash", "bug"));
+        kb.addIssue(issue(2, IssueCategory.QUESTION, "How to configure", "question"));
+        
+        assertEquals("How to configure", kb.getIssue(2).getTitle());
+        assertEquals(IssueCategory.QUESTION, kb.getIssue(2).getCategory());
+        assertTrue(kb.containsIssue(1));
+        assertFalse(kb.containsIssue(3));
+        assertNull(kb.getIssue(3));
+    }
+    
+    @Test
+    void aCopyChangesIndependentlyOfTheOriginal() {
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.addIssue(issue(1, IssueCategory.BUG, "Crash", "bug"));
+        kb.addIssue(issue(2, IssueCategory.BUG, "Hang", "bug"));
+        
+        KnowledgeBase copy = kb.copy();
+        copy.removeIssue(1);
+        copy.addIssue(issue(2, IssueCategory.QUESTION, "Hang on start", "question"));
+        copy.addIssue(issue(3, IssueCategory.BUG, "Leak", "bug"));
+        
+        assertEquals(List.of(1, 2), numbers(kb, IssueCategory.BUG));
+        assertEquals("Hang", kb.getIssue(2).getTitle());
+        assertFalse(kb.containsIssue(3));
+        assertEquals(Map.of("bug", 2), kb.getLabelFrequency());
+        assertEquals(List.of(3), numbers(copy, IssueCategory.BUG));
+        assertEquals("Hang on start", copy.getIssue(2).getTitle());
+        assertEquals(Map.of("bug", 1, "question", 1), copy.getLabelFrequency());
+    }
+    
+    @Test
+    void aCopyAddsItsTextsOutsideTheOriginalsArena() {
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.addIssue(issue(1, IssueCategory.BUG, "Crash", "bug"));
+        long heapBytes = kb.getTextHeapBytes();
+        
+        KnowledgeBase copy = kb;
+        for (int generation = 0; generation < 20; generation++) {
+            copy = copy.copy();
+            copy.addIssue(issue(100 + generation, IssueCategory.QUESTION, "Question " + generation, "question"));
+        }
+        
+        assertEquals(heapBytes, kb.getTextHeapBytes());
+        assertEquals(1, kb.getTotalIssuesAnalyzed());
+        assertEquals(21, copy.getTotalIssuesAnalyzed());
+        assertEquals("Body of Crash", copy.getIssue(1).getBody());
+        assertEquals("Question 0", copy.getIssue(100).getTitle());
+        assertEquals("Question 19", copy.getIssue(119).getTitle());
+    }
+    
+    @Test
+    void removedRowsAreCompactedAwayKeepingTheIndex() {
+        KnowledgeBase kb = new KnowledgeBase();
+        for (int number = 1; number <= 1000; number++) {
+            kb.addIssue(issue(number, number % 3 == 0 ? IssueCategory.QUESTION : IssueCategory.BUG,
+                "Issue " + number, "bug"));
+        }
+        
+        for (int number = 1; number <= 1000; number += 2) {
+            assertTrue(kb.removeIssue(number));
+        }
+        kb.addIssue(issue(2, IssueCategory.FEATURE_REQUEST, "Issue 2 again", "enhancement"));
+        
+        assertEquals(500, kb.getTotalIssuesAnalyzed());
+        for (int number = 1; number <= 1000; number++) {
+            assertEquals(number % 2 == 0, kb.containsIssue(number), "Issue " + number);
+        }
+        assertEquals("Issue 998", kb.getIssue(998).getTitle());
+        assertEquals(IssueCategory.QUESTION, kb.getIssue(996).getCategory());
+        assertEquals("Issue 2 again", kb.getIssue(2).getTitle());
+        List<Integer> bugs = numbers(kb, IssueCategory.BUG);
+        assertEquals(List.of(4, 8, 10, 14), bugs.subList(0, 4));
+        assertEquals(bugs.get(100).intValue(), kb.getIssuesByCategory(IssueCategory.BUG).get(100).getNumber());
+        assertEquals(Map.of("bug", 499, "enhancement", 1), kb.getLabelFrequency());
+    }
+    
+    @Test
+    void textsOfReplacedIssuesAreCompactedAway() {
+        KnowledgeBase kb = new KnowledgeBase();
+        String body = "x".repeat(10_000);
+        for (int round = 0; round < 50; round++) {
+            for (int number = 1; number <= 100; number++) {
+                KnowledgeBase.IssueSummary summary = issue(number, IssueCategory.BUG, "Issue " + number + " round " + round, "bug");
+                summary.setBody(body + round);
+                kb.addIssue(summary);
+            }
+        }
+        
+        // One round's texts are about 1 MB; without compaction the arena would hold all 50
+        assertTrue(kb.getTextHeapBytes() < 4_000_000, "Text heap " + kb.getTextHeapBytes());
+        assertEquals(100, kb.getTotalIssuesAnalyzed());
+        for (KnowledgeBase.IssueSummary summary : kb.getAllIssues()) {
+            assertEquals("Issue " + summary.getNumber() + " round 49", summary.getTitle());
+            assertEquals(body + 49, summary.getBody());
+        }
+    }
+    
+    private static KnowledgeBase.IssueSummary issue(int number, IssueCategory category, String title, String label) {
+        KnowledgeBase.IssueSummary summary = new KnowledgeBase.IssueSummary(number, title, category, List.of(label), null);
+        summary.setBody("Body of " + title);
+        return summary;
+    }
+    
+    private static List<Integer> numbers(KnowledgeBase kb, IssueCategory category) {
+        return kb.getIssuesByCategory(category).stream()
+            .map(KnowledgeBase.IssueSummary::getNumber)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.triage.service;
+
+import com.example.triage.config.TriageConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassificationStageExecutorTest {
+    
+    private static final long STAGE_TIMEOUT_MS = 300;
+    
+    private ClassificationStageExecutor executor;
+    
+    @BeforeEach
+    void createExecutor() {
+        TriageConfiguration config = new TriageConfiguration();
+        TriageConfiguration.AI ai = new TriageConfiguration.AI();
+        ai.setMaxRetries(1);
+        ai.setStageTimeoutMs(STAGE_TIMEOUT_MS);
+        config.setAi(ai);
+        // One issue at a time: three stage threads
+        config.getBatch().setMaxConcurrency(1);
+        executor = new ClassificationStageExecutor(config);
+    }
+    
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    @Test
+    void stagesRunConcurrently() {
+        ClassificationStageExecutor.StageRun run = executor.newRun(1L);
+        long startedAt = System.nanoTime();
+        
+        List<CompletableFuture<String>> stages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "stage " + i;
+            stages.add(run.start(() -> sleepThen(200, name)));
+        }
+        
+        for (int i = 0; i < 3; i++) {
+            assertEquals("stage " + i, run.await("stage " + i, stages.get(i)));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 500);
+        assertEquals(List.of(), run.getIncompleteStages());
+    }
+    
+    @Test
+    void aStagePastItsDeadlineIsInterruptedAndRecorded() throws InterruptedException {
+        ClassificationStageExecutor.StageRun run = executor.newRun(1L);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        
+        CompletableFuture<String> stage = run.start(() -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException(e);
+            }
+        });
+        
+        assertNull(run.await("duplicates", stage));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("duplicates"), run.getIncompleteStages());
+        assertEquals(1L, executor.getStatistics().get("timedOut"));
+    }
+    
+    @Test
+    void theDeadlineStartsWhenAThreadPicksTheStageUp() {
+        // The stages of another issue hold every thread for most of a timeout
+        ClassificationStageExecutor.StageRun busy = executor.newRun(1L);
+        List<CompletableFuture<String>> holding = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            holding.add(busy.start(() -> sleepThen(200, "held")));
+        }
+        
+        ClassificationStageExecutor.StageRun run = executor.newRun(2L);
+        CompletableFuture<String> queued = run.start(() -> sleepThen(200, "done"));
+        
+        assertEquals("done", run.await("response_suggestion", queued));
+        assertEquals(List.of(), run.getIncompleteStages());
+        holding.forEach(stage -> busy.await("held", stage));
+    }
+    
+    @Test
+    void aFailedStageIsRecordedWithoutFailingTheRun() {
+        ClassificationStageExecutor.StageRun run = executor.newRun(1L);
+        
+        CompletableFuture<String> failing = run.start(() -> {
+            throw new IllegalStateException("No response");
+        });
+        CompletableFuture<String> succeeding = run.start(() -> "Thanks for the report");
+        
+        assertNull(run.await("reproducibility", failing));
+        assertEquals("Thanks for the report", run.await("response_suggestion", succeeding));
+        assertEquals(List.of("reproducibility"), run.getIncompleteStages());
+        assertEquals(1L, executor.getStatistics().get("failed"));
+        assertEquals(1L, executor.getStatistics().get("completed"));
+    }
+    
+    private static String sleepThen(long millis, String value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+}
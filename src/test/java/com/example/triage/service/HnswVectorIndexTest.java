@@ -0,0 +1,210 @@
+package com.example.triage.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswVectorIndexTest {
+    
+    private static final int DIMENSIONS = 32;
+    private static final int M = 8;
+    private static final int EF_CONSTRUCTION = 64;
+    private static final int EF_SEARCH = 64;
+    private static final String EMBEDDER = "test-embedder";
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void findsEachIndexedVectorFirst() {
+        Random random = new Random(1);
+        float[][] vectors = randomVectors(random, 500);
+        HnswVectorIndex index = index(vectors);
+        
+        int found = 0;
+        for (int i = 0; i < vectors.length; i++) {
+            List<HnswVectorIndex.Match> matches = index.search(vectors[i], 1, EF_SEARCH, null);
+            if (matches.get(0).getNumber() == i + 1) {
+                found++;
+            }
+        }
+        assertTrue(found >= vectors.length * 98 / 100, "Found " + found + " of " + vectors.length);
+    }
+    
+    @Test
+    void loadedIndexGivesTheSameResults() throws IOException {
+        Random random = new Random(2);
+        HnswVectorIndex index = index(randomVectors(random, 300));
+        index.remove(10);
+        index.add(20, randomVector(random));
+        Path file = directory.resolve("knowledge-base.vectors");
+        
+        index.save(file);
+        HnswVectorIndex loaded = HnswVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION, EMBEDDER);
+        
+        assertNotNull(loaded);
+        assertTrue(loaded.isMapped());
+        assertEquals(index.size(), loaded.size());
+        assertFalse(loaded.contains(10));
+        assertTrue(loaded.contains(20));
+        for (int i = 0; i < 20; i++) {
+            float[] query = randomVector(random);
+            assertEquals(numbers(index.search(query, 10, EF_SEARCH, null)),
+                numbers(loaded.search(query, 10, EF_SEARCH, null)));
+        }
+    }
+    
+    @Test
+    void addingToALoadedIndexMovesItsVectorsToTheHeap() throws IOException {
+        Random random = new Random(3);
+        Path file = directory.resolve("knowledge-base.vectors");
+        index(randomVectors(random, 100)).save(file);
+        HnswVectorIndex loaded = HnswVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION, EMBEDDER);
+        float[] added = randomVector(random);
+        
+        loaded.add(1000, added);
+        
+        assertFalse(loaded.isMapped());
+        assertEquals(101, loaded.size());
+        assertEquals(1000, loaded.search(added, 1, EF_SEARCH, null).get(0).getNumber());
+    }
+    
+    @Test
+    void changingACopyLeavesTheOriginalUnchanged() throws IOException {
+        Random random = new Random(6);
+        HnswVectorIndex built = index(randomVectors(random, 200));
+        Path file = directory.resolve("knowledge-base.vectors");
+        built.save(file);
+        HnswVectorIndex loaded = HnswVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION, EMBEDDER);
+        
+        for (HnswVectorIndex index : List.of(built, loaded)) {
+            float[] query = randomVector(random);
+            List<Integer> before = numbers(index.search(query, 10, EF_SEARCH, null));
+            HnswVectorIndex copy = index.copy();
+            copy.remove(before.get(0));
+            for (int number = 201; number <= 300; number++) {
+                copy.add(number, randomVector(random));
+            }
+            copy.add(301, query);
+            
+            assertEquals(before, numbers(index.search(query, 10, EF_SEARCH, null)));
+            assertEquals(200, index.size());
+            assertEquals(index == loaded, index.isMapped());
+            assertEquals(300, copy.size());
+            assertFalse(copy.contains(before.get(0)));
+            assertEquals(301, copy.search(query, 1, EF_SEARCH, null).get(0).getNumber());
+        }
+    }
+    
+    @Test
+    void loadReturnsNullForOtherSettingsOrADamagedFile() throws IOException {
+        Path file = directory.resolve("knowledge-base.vectors");
+        index(randomVectors(new Random(4), 50)).save(file);
+        
+        assertNull(HnswVectorIndex.load(file, DIMENSIONS * 2, M, EF_CONSTRUCTION, EMBEDDER));
+        assertNull(HnswVectorIndex.load(file, DIMENSIONS, M + 1, EF_CONSTRUCTION, EMBEDDER));
+        assertNull(HnswVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION, "other-embedder"));
+        assertNull(HnswVectorIndex.load(directory.resolve("missing.vectors"), DIMENSIONS, M, EF_CONSTRUCTION, EMBEDDER));
+        
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length / 2));
+        assertNull(HnswVectorIndex.load(file, DIMENSIONS, M, EF_CONSTRUCTION, EMBEDDER));
+    }
+    
+    @Test
+    void removedAndExcludedIssuesAreNotReturned() {
+        Random random = new Random(5);
+        float[][] vectors = randomVectors(random, 200);
+        HnswVectorIndex index = index(vectors);
+        
+        assertTrue(index.remove(7));
+        assertFalse(index.remove(7));
+        
+        assertEquals(199, index.size());
+        assertFalse(numbers(index.search(vectors[6], 20, EF_SEARCH, null)).contains(7));
+        assertFalse(numbers(index.search(vectors[7], 20, EF_SEARCH, 8)).contains(8));
+    }
+    
+    @Test
+    void addingAnIndexedNumberReplacesItsVector() {
+        Random random = new Random(6);
+        HnswVectorIndex index = index(randomVectors(random, 200));
+        float[] replacement = randomVector(random);
+        
+        index.add(50, replacement);
+        
+        assertEquals(200, index.size());
+        assertEquals(50, index.search(replacement, 1, EF_SEARCH, null).get(0).getNumber());
+    }
+    
+    @Test
+    void graphIsRebuiltOnceAQuarterOfItsNodesAreDeleted() throws IOException {
+        Random random = new Random(7);
+        float[][] vectors = randomVectors(random, 400);
+        HnswVectorIndex index = index(vectors);
+        Path full = directory.resolve("full.vectors");
+        index.save(full);
+        
+        for (int round = 0; round < 5; round++) {
+            for (int number = 1; number <= 200; number++) {
+                vectors[number - 1] = randomVector(random);
+                index.add(number, vectors[number - 1]);
+            }
+        }
+        for (int number = 301; number <= 400; number++) {
+            index.remove(number);
+        }
+        Path compacted = directory.resolve("compacted.vectors");
+        index.save(compacted);
+        
+        assertEquals(300, index.size());
+        assertTrue(Files.size(compacted) < Files.size(full), "Deleted nodes are still saved");
+        int found = 0;
+        for (int i = 0; i < 300; i++) {
+            if (index.search(vectors[i], 1, EF_SEARCH, null).get(0).getNumber() == i + 1) {
+                found++;
+            }
+        }
+        assertTrue(found >= 300 * 98 / 100, "Found " + found + " of 300");
+    }
+    
+    private static HnswVectorIndex index(float[][] vectors) {
+        HnswVectorIndex index = new HnswVectorIndex(DIMENSIONS, M, EF_CONSTRUCTION, EMBEDDER);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(i + 1, vectors[i]);
+        }
+        return index;
+    }
+    
+    private static float[][] randomVectors(Random random, int count) {
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = randomVector(random);
+        }
+        return vectors;
+    }
+    
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+    
+    private static List<Integer> numbers(List<HnswVectorIndex.Match> matches) {
+        return matches.stream().map(HnswVectorIndex.Match::getNumber).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.triage.service;
+
+import com.example.triage.client.GitHubClient;
+import com.example.triage.client.GitHubRateLimiter;
+import com.example.triage.client.GitHubResponseCache;
+import com.example.triage.config.TriageConfiguration;
+import com.example.triage.model.GitHubIssue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IssueMirrorServiceTest {
+    
+    private TriageConfiguration config;
+    private FakeGitHubClient gitHubClient;
+    private IssueMirrorService mirror;
+    
+    @BeforeEach
+    void createMirror() {
+        config = new TriageConfiguration();
+        config.setGithub(new TriageConfiguration.GitHub());
+        config.getMirror().setEnabled(true);
+        gitHubClient = new FakeGitHubClient(config);
+        mirror = new IssueMirrorService(gitHubClient, config);
+    }
+    
+    @AfterEach
+    void shutdown() {
+        gitHubClient.shutdown();
+    }
+    
+    @Test
+    void theFirstReadLoadsThePendingIssuesNewestFirst() {
+        LocalDateTime now = now();
+        gitHubClient.pending.add(issue(1, now.minusDays(2), "pending-triage"));
+        gitHubClient.pending.add(issue(2, now.minusDays(1), "pending-triage"));
+        
+        assertEquals(List.of(2L, 1L), numbers(mirror.getPendingIssues()));
+        assertEquals(1, gitHubClient.loads);
+        assertTrue(mirror.findPendingIssue(1).isPresent());
+    }
+    
+    @Test
+    void syncAppliesChangedIssues() {
+        LocalDateTime now = now();
+        gitHubClient.pending.add(issue(1, now.minusDays(2), "pending-triage"));
+        gitHubClient.pending.add(issue(2, now.minusDays(2), "pending-triage"));
+        mirror.sync();
+        
+        GitHubIssue triaged = issue(1, now.minusDays(2), "bug");
+        GitHubIssue closed = issue(2, now.minusDays(2), "pending-triage");
+        closed.setState("closed");
+        gitHubClient.changes.add(List.of(triaged, closed, issue(3, now.minusDays(1), "pending-triage")));
+        mirror.sync();
+        
+        assertEquals(List.of(3L), numbers(mirror.getPendingIssues()));
+        assertFalse(mirror.findPendingIssue(1).isPresent());
+    }
+    
+    @Test
+    void theNextSyncStartsBeforeThisOneDid() {
+        mirror.sync();
+        
+        // Updated while this sync ran; the listing's pages shifted and an issue labelled then was missed
+        LocalDateTime updatedDuringSync = now();
+        gitHubClient.changes.add(List.of(issue(4, updatedDuringSync, "pending-triage")));
+        mirror.sync();
+        LocalDateTime syncEnd = now();
+        gitHubClient.changes.add(List.of(issue(4, updatedDuringSync, "pending-triage"),
+            issue(5, updatedDuringSync, "pending-triage")));
+        mirror.sync();
+        
+        assertTrue(gitHubClient.since.get(1).isBefore(updatedDuringSync));
+        assertFalse(gitHubClient.since.get(1).isAfter(syncEnd.minusSeconds(60)));
+        assertEquals(List.of(4L, 5L), numbers(mirror.getPendingIssues()).stream().sorted().collect(Collectors.toList()));
+    }
+    
+    @Test
+    void syncsWithoutChangesKeepTheirStart() {
+        mirror.sync();
+        mirror.sync();
+        mirror.sync();
+        mirror.sync();
+        
+        assertEquals(3, gitHubClient.since.size());
+        assertEquals(gitHubClient.since.get(0), gitHubClient.since.get(2));
+    }
+    
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+    
+    private static GitHubIssue issue(long number, LocalDateTime updatedAt, String label) {
+        GitHubIssue issue = new GitHubIssue();
+        issue.setNumber(number);
+        issue.setTitle("Issue " + number);
+        issue.setState("open");
+        issue.setCreatedAt(updatedAt.minusDays(number));
+        issue.setUpdatedAt(updatedAt);
+        GitHubIssue.Label issueLabel = new GitHubIssue.Label();
+        issueLabel.setName(label);
+        issue.setLabels(List.of(issueLabel));
+        return issue;
+    }
+    
+    private static List<Long> numbers(List<GitHubIssue> issues) {
+        return issues.stream().map(GitHubIssue::getNumber).collect(Collectors.toList());
+    }
+    
+    // Serves the pending issues on a load, and each sync the next list of changed issues
+    private static class FakeGitHubClient extends GitHubClient {
+        private final List<GitHubIssue> pending = new ArrayList<>();
+        private final List<List<GitHubIssue>> changes = new ArrayList<>();
+        private final List<LocalDateTime> since = new ArrayList<>();
+        private int loads;
+        
+        FakeGitHubClient(TriageConfiguration config) {
+            super(config, new GitHubResponseCache(config), new GitHubRateLimiter(config), null, null);
+        }
+        
+        @Override
+        public int forEachPendingTriageIssue(int limit, Consumer<GitHubIssue> consumer) {
+            loads++;
+            pending.forEach(consumer);
+            return pending.size();
+        }
+        
+        @Override
+        public int forEachIssueUpdatedSince(LocalDateTime updatedSince, Consumer<GitHubIssue> consumer) {
+            since.add(updatedSince);
+            List<GitHubIssue> changed = changes.isEmpty() ? List.of() : changes.remove(0);
+            changed.forEach(consumer);
+            return changed.size();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.triage.service;
+
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IssueSimilarityIndexTest {
+    
+    @Test
+    void ranksIssuesSharingRareTermsFirst() {
+        IssueSimilarityIndex index = IssueSimilarityIndex.of(knowledgeBase());
+        
+        List<IssueSimilarityIndex.Match> matches = index.search("Editor crashes with NullPointerException",
+            "Opening a large file throws NullPointerException in the editor", 3, null);
+        
+        assertEquals(1, matches.get(0).getNumber());
+        assertTrue(matches.get(0).getScore() > matches.get(1).getScore());
+        assertEquals(4, index.size());
+    }
+    
+    @Test
+    void excludesTheIssueItselfAndRemovedIssues() {
+        IssueSimilarityIndex index = IssueSimilarityIndex.of(knowledgeBase());
+        
+        assertFalse(numbers(index.search("Editor crashes with NullPointerException", null, 10, 1)).contains(1));
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertFalse(index.contains(1));
+        assertFalse(numbers(index.search("Editor crashes with NullPointerException", null, 10, null)).contains(1));
+        assertEquals(3, index.size());
+    }
+    
+    @Test
+    void addingAnIndexedIssueReplacesIt() {
+        IssueSimilarityIndex index = IssueSimilarityIndex.of(knowledgeBase());
+        
+        index.add(issue(1, "Telemetry opt-out setting", "Add a setting to disable telemetry"));
+        
+        assertEquals(4, index.size());
+        assertEquals(1, index.search("disable telemetry", null, 1, null).get(0).getNumber());
+        assertFalse(numbers(index.search("NullPointerException", null, 10, null)).contains(1));
+    }
+    
+    @Test
+    void changingACopyLeavesTheOriginalUnchanged() {
+        IssueSimilarityIndex index = IssueSimilarityIndex.of(knowledgeBase());
+        List<Integer> before = numbers(index.search("Editor crashes with NullPointerException", null, 10, null));
+        
+        IssueSimilarityIndex copy = index.copy();
+        copy.remove(1);
+        copy.add(issue(5, "Editor crash on save", "NullPointerException when saving in the editor"));
+        copy.add(issue(2, "Telemetry opt-out setting", "Add a setting to disable telemetry"));
+        
+        assertEquals(before, numbers(index.search("Editor crashes with NullPointerException", null, 10, null)));
+        assertEquals(4, index.size());
+        assertTrue(index.contains(1));
+        assertFalse(index.contains(5));
+        assertFalse(copy.contains(1));
+        assertEquals(5, copy.search("Editor crashes with NullPointerException", null, 1, null).get(0).getNumber());
+        assertEquals(2, copy.search("disable telemetry", null, 1, null).get(0).getNumber());
+    }
+    
+    @Test
+    void findsNothingForUnknownTerms() {
+        IssueSimilarityIndex index = IssueSimilarityIndex.of(knowledgeBase());
+        
+        assertTrue(index.search("zzzz qqqq", null, 10, null).isEmpty());
+        assertTrue(index.search("", "", 10, null).isEmpty());
+    }
+    
+    @Test
+    void searchesStayCorrectAfterRemovedIssuesAreCompactedAway() {
+        IssueSimilarityIndex index = new IssueSimilarityIndex();
+        for (int number = 1; number <= 100; number++) {
+            index.add(issue(number, "Issue about component" + number, "Details of component" + number));
+        }
+        for (int number = 1; number <= 60; number++) {
+            index.remove(number);
+        }
+        for (int number = 61; number <= 100; number += 2) {
+            index.add(issue(number, "Replaced issue about module" + number, null));
+        }
+        
+        assertEquals(40, index.size());
+        assertTrue(index.search("component10", null, 5, null).isEmpty());
+        assertEquals(62, index.search("component62", null, 5, null).get(0).getNumber());
+        assertEquals(63, index.search("module63", null, 5, null).get(0).getNumber());
+        assertTrue(index.search("component63", null, 5, null).isEmpty());
+    }
+    
+    @Test
+    void searchesRunWhileIssuesAreAddedAndRemoved() throws Exception {
+        IssueSimilarityIndex index = IssueSimilarityIndex.of(knowledgeBase());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> searches = new ArrayList<>();
+            for (int thread = 0; thread < 3; thread++) {
+                searches.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        List<IssueSimilarityIndex.Match> matches = index.search("Editor crashes with NullPointerException", null, 3, null);
+                        assertEquals(1, matches.get(0).getNumber());
+                    }
+                }));
+            }
+            for (int i = 0; i < 2000; i++) {
+                index.add(issue(100 + i % 50, "Unrelated issue " + i, "Something else entirely " + i));
+                index.remove(100 + (i + 25) % 50);
+            }
+            for (Future<?> search : searches) {
+                search.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private static KnowledgeBase knowledgeBase() {
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.addIssue(issue(1, "NullPointerException when opening large file in editor",
+            "The editor crashes with a NullPointerException after opening a 200 MB log file"));
+        kb.addIssue(issue(2, "Editor font size resets after restart", "The editor forgets the font size"));
+        kb.addIssue(issue(3, "Dark theme for the settings page", "Please add a dark theme"));
+        kb.addIssue(issue(4, "Crash on startup on Windows", "The application crashes right after the splash screen"));
+        return kb;
+    }
+    
+    private static KnowledgeBase.IssueSummary issue(int number, String title, String body) {
+        KnowledgeBase.IssueSummary summary = new KnowledgeBase.IssueSummary(number, title, IssueCategory.BUG, List.of("bug"));
+        summary.setBody(body);
+        return summary;
+    }
+    
+    private static List<Integer> numbers(List<IssueSimilarityIndex.Match> matches) {
+        return matches.stream().map(IssueSimilarityIndex.Match::getNumber).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.triage.service;
+
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Load time and retained heap of a knowledge base read from JSON and from the binary file. Takes a
+// minute and a few hundred MB of heap, so it only runs when asked for:
+//   ./mvnw test -Dtest=KnowledgeBaseFileBenchmarkTest -Dkb.benchmark=true
+@EnabledIfSystemProperty(named = "kb.benchmark", matches = "true")
+class KnowledgeBaseFileBenchmarkTest {
+    
+    private static final int[] SIZES = {10_000, 100_000};
+    private static final int RUNS = 3;
+    private static final String[] LABELS = {
+        "bug", "enhancement", "question", "ux", "core", "ide", "cli", "docs", "performance", "regression",
+        "windows", "macos", "linux", "auth", "extensions", "terminal"};
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void binaryFileRetainsLessHeapThanJson() throws IOException {
+        System.out.printf("%9s %8s %12s %12s %12s %12s%n", "issues", "format", "file MB", "load ms", "heap MB", "read ms");
+        for (int size : SIZES) {
+            Path json = directory.resolve("knowledge-base-" + size + ".json");
+            Path file = directory.resolve("knowledge-base-" + size + ".bin");
+            KnowledgeBase kb = generate(size);
+            objectMapper.writeValue(json.toFile(), kb);
+            KnowledgeBaseFile.write(kb, file);
+            kb = null;
+            
+            Result fromJson = measure(() -> objectMapper.readValue(json.toFile(), KnowledgeBase.class), size);
+            Result fromFile = measure(() -> KnowledgeBaseFile.read(file), size);
+            print(size, "json", json, fromJson);
+            print(size, "binary", file, fromFile);
+            
+            assertTrue(fromFile.heapBytes < fromJson.heapBytes / 2,
+                "Binary knowledge base should retain less than half the heap of the JSON one");
+        }
+    }
+    
+    // Best load time of a few runs, and the heap the last loaded knowledge base keeps after a GC.
+    // Reading every issue afterwards shows what decoding the texts costs.
+    private Result measure(Loader loader, int size) throws IOException {
+        long bestNanos = Long.MAX_VALUE;
+        KnowledgeBase kb = null;
+        long before = 0;
+        for (int run = 0; run < RUNS; run++) {
+            kb = null;
+            before = usedHeap();
+            long start = System.nanoTime();
+            kb = loader.load();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        long heapBytes = usedHeap() - before;
+        
+        long start = System.nanoTime();
+        int textLength = 0;
+        for (KnowledgeBase.IssueSummary issue : kb.getAllIssues()) {
+            textLength += issue.getTitle().length() + issue.getBody().length();
+        }
+        long readNanos = System.nanoTime() - start;
+        
+        assertEquals(size, kb.getTotalIssuesAnalyzed());
+        assertTrue(textLength > 0);
+        return new Result(bestNanos, heapBytes, readNanos);
+    }
+    
+    // Titles, bodies and comments of typical length, from a small vocabulary like real issues
+    private static KnowledgeBase generate(int size) {
+        Random random = new Random(size);
+        IssueCategory[] categories = IssueCategory.values();
+        KnowledgeBase kb = new KnowledgeBase();
+        for (int number = 1; number <= size; number++) {
+            List<String> labels = new ArrayList<>();
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                String label = LABELS[random.nextInt(LABELS.length)];
+                if (!labels.contains(label)) {
+                    labels.add(label);
+                }
+            }
+            KnowledgeBase.IssueSummary issue = new KnowledgeBase.IssueSummary(number, text(random, 8),
+                categories[random.nextInt(categories.length)], labels, text(random, 40));
+            issue.setBody(text(random, 150 + random.nextInt(150)));
+            issue.setKeyTerms(text(random, 5));
+            kb.addIssue(issue);
+        }
+        return kb;
+    }
+    
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append("word").append(random.nextInt(5000));
+        }
+        return text.toString();
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static void print(int size, String format, Path file, Result result) throws IOException {
+        System.out.printf("%9d %8s %12.1f %12.1f %12.1f %12.1f%n", size, format, Files.size(file) / 1e6,
+            result.loadNanos / 1e6, result.heapBytes / 1e6, result.readNanos / 1e6);
+    }
+    
+    private interface Loader {
+        KnowledgeBase load() throws IOException;
+    }
+    
+    private static class Result {
+        private final long loadNanos;
+        private final long heapBytes;
+        private final long readNanos;
+        
+        Result(long loadNanos, long heapBytes, long readNanos) {
+            this.loadNanos = loadNanos;
+            this.heapBytes = heapBytes;
+            this.readNanos = readNanos;
+        }
+    }
+}
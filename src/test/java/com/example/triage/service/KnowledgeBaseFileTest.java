@@ -0,0 +1,181 @@
+package com.example.triage.service;
+
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class KnowledgeBaseFileTest {
+    
+    // Where the first category's directory entry starts: the header is 6 ints and 3 timestamps
+    private static final int DIRECTORY_OFFSET = 6 * 4 + 3 * 12;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void readReturnsWhatWasWritten() throws IOException {
+        KnowledgeBase kb = sampleKnowledgeBase();
+        Path file = directory.resolve("knowledge-base.bin");
+        
+        KnowledgeBaseFile.write(kb, file);
+        KnowledgeBase read = KnowledgeBaseFile.read(file);
+        
+        assertNotNull(read);
+        assertSameContent(kb, read);
+    }
+    
+    @Test
+    void issuesAddedAfterReadingAreSavedWithTheMappedOnes() throws IOException {
+        Path file = directory.resolve("knowledge-base.bin");
+        KnowledgeBaseFile.write(sampleKnowledgeBase(), file);
+        KnowledgeBase read = KnowledgeBaseFile.read(file);
+        
+        read.addIssue(issue(7, IssueCategory.QUESTION, "How do I configure the proxy?", List.of("question")));
+        read.addIssue(issue(2, IssueCategory.BUG, "Crash on startup, again", List.of("bug", "regression")));
+        read.removeIssue(3);
+        Path copy = directory.resolve("copy.bin");
+        KnowledgeBaseFile.write(read, copy);
+        
+        assertSameContent(read, KnowledgeBaseFile.read(copy));
+    }
+    
+    @Test
+    void aReadKnowledgeBaseSurvivesItsFileBeingCopiedOver() throws IOException {
+        KnowledgeBase kb = sampleKnowledgeBase();
+        Path file = directory.resolve("knowledge-base.bin");
+        KnowledgeBaseFile.write(kb, file);
+        KnowledgeBase read = KnowledgeBaseFile.read(file);
+        
+        // Truncated and rewritten in place, as cp does, rather than renamed over
+        Files.write(file, new byte[16], StandardOpenOption.TRUNCATE_EXISTING);
+        
+        assertSameContent(kb, read);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file), files.collect(Collectors.toList()));
+        }
+    }
+    
+    @Test
+    void convertReadsTheJsonFormat() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        KnowledgeBase kb = sampleKnowledgeBase();
+        Path json = directory.resolve("knowledge-base.json");
+        Path file = directory.resolve("knowledge-base.bin");
+        objectMapper.writeValue(json.toFile(), kb);
+        
+        KnowledgeBase converted = KnowledgeBaseFile.convert(json, file, objectMapper);
+        
+        assertSameContent(kb, converted);
+        assertSameContent(kb, KnowledgeBaseFile.read(file));
+    }
+    
+    @Test
+    void readReturnsNullForAMissingFile() throws IOException {
+        assertNull(KnowledgeBaseFile.read(directory.resolve("missing.bin")));
+    }
+    
+    @Test
+    void readReturnsNullForATruncatedFile() throws IOException {
+        Path file = directory.resolve("knowledge-base.bin");
+        KnowledgeBaseFile.write(sampleKnowledgeBase(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        
+        for (int length : new int[] {0, DIRECTORY_OFFSET, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertNull(KnowledgeBaseFile.read(file), "Truncated to " + length + " bytes");
+        }
+    }
+    
+    @Test
+    void readReturnsNullForADamagedCategoryName() throws IOException {
+        Path file = directory.resolve("knowledge-base.bin");
+        KnowledgeBaseFile.write(sampleKnowledgeBase(), file);
+        
+        overwriteInt(file, DIRECTORY_OFFSET, -1);
+        
+        assertNull(KnowledgeBaseFile.read(file));
+    }
+    
+    @Test
+    void readReturnsNullForAnUnknownFormat() throws IOException {
+        Path file = directory.resolve("knowledge-base.bin");
+        KnowledgeBaseFile.write(sampleKnowledgeBase(), file);
+        
+        overwriteInt(file, 4, 99);
+        
+        assertNull(KnowledgeBaseFile.read(file));
+    }
+    
+    static KnowledgeBase sampleKnowledgeBase() {
+        KnowledgeBase kb = new KnowledgeBase();
+        kb.addIssue(issue(1, IssueCategory.BUG, "NullPointerException when saving", List.of("bug", "core")));
+        kb.addIssue(issue(2, IssueCategory.BUG, "Crash on startup", List.of("bug")));
+        kb.addIssue(issue(3, IssueCategory.FEATURE_REQUEST, "Dark mode", List.of("enhancement", "ui")));
+        KnowledgeBase.IssueSummary unicode = issue(4, IssueCategory.USABILITY, "Ümlaute im Titel 🚀", List.of());
+        unicode.setBody(null);
+        unicode.setOrgMemberComments(null);
+        kb.addIssue(unicode);
+        kb.setCommonPatterns(List.of("Crashes on startup", "Requests for themes"));
+        kb.setIssuesUpdatedThrough(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000));
+        return kb;
+    }
+    
+    static KnowledgeBase.IssueSummary issue(int number, IssueCategory category, String title, List<String> labels) {
+        KnowledgeBase.IssueSummary summary = new KnowledgeBase.IssueSummary(number, title, category, labels,
+            "Team: thanks, looking into #" + number);
+        summary.setBody("Steps to reproduce issue " + number);
+        summary.setKeyTerms("term" + number);
+        return summary;
+    }
+    
+    static void assertSameContent(KnowledgeBase expected, KnowledgeBase actual) {
+        assertEquals(expected.getTotalIssuesAnalyzed(), actual.getTotalIssuesAnalyzed());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getLastUpdated(), actual.getLastUpdated());
+        assertEquals(expected.getIssuesUpdatedThrough(), actual.getIssuesUpdatedThrough());
+        assertEquals(expected.getCommonPatterns(), actual.getCommonPatterns());
+        assertEquals(expected.getLabelFrequency(), actual.getLabelFrequency());
+        for (IssueCategory category : IssueCategory.values()) {
+            List<KnowledgeBase.IssueSummary> expectedIssues = expected.getIssuesByCategory(category);
+            List<KnowledgeBase.IssueSummary> actualIssues = actual.getIssuesByCategory(category);
+            assertEquals(expectedIssues.size(), actualIssues.size(), category.name());
+            for (int i = 0; i < expectedIssues.size(); i++) {
+                KnowledgeBase.IssueSummary e = expectedIssues.get(i);
+                KnowledgeBase.IssueSummary a = actualIssues.get(i);
+                assertEquals(e.getNumber(), a.getNumber());
+                assertEquals(e.getTitle(), a.getTitle());
+                assertEquals(e.getCategory(), a.getCategory());
+                assertEquals(e.getLabels(), a.getLabels());
+                assertEquals(e.getKeyTerms(), a.getKeyTerms());
+                assertEquals(e.getBody(), a.getBody());
+                assertEquals(e.getOrgMemberComments(), a.getOrgMemberComments());
+            }
+        }
+    }
+    
+    private static void overwriteInt(Path file, int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), offset);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.triage.service;
+
+import com.example.triage.model.IssueCategory;
+import com.example.triage.model.KnowledgeBase;
+import com.example.triage.model.KnowledgeBaseCheckpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnowledgeBaseJournalTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void aResumedBuildReplaysTheChangesItsCheckpointCovers() throws IOException {
+        Path journal = directory.resolve("journal");
+        KnowledgeBaseCheckpoint checkpoint = newBuild();
+        merge(checkpoint, 1, "Crash");
+        merge(checkpoint, 2, "Hang");
+        KnowledgeBaseJournal.append(checkpoint, journal, objectMapper);
+        checkpoint.getKnowledgeBase().removeIssue(1);
+        checkpoint.recordRemoved(1);
+        merge(checkpoint, 2, "Hang on start");
+        merge(checkpoint, 3, "Leak");
+        KnowledgeBaseJournal.append(checkpoint, journal, objectMapper);
+        
+        KnowledgeBaseCheckpoint resumed = resume(checkpoint);
+        
+        assertTrue(KnowledgeBaseJournal.replay(resumed, journal, objectMapper));
+        KnowledgeBase kb = resumed.getKnowledgeBase();
+        assertEquals(2, kb.getTotalIssuesAnalyzed());
+        assertFalse(kb.containsIssue(1));
+        assertEquals("Hang on start", kb.getIssue(2).getTitle());
+        assertEquals("Leak", kb.getIssue(3).getTitle());
+        assertEquals(Set.of(2, 3), resumed.getMergedIssues());
+    }
+    
+    @Test
+    void changesOfABatchThatWasNotCheckpointedAreCutOff() throws IOException {
+        Path journal = directory.resolve("journal");
+        KnowledgeBaseCheckpoint checkpoint = newBuild();
+        merge(checkpoint, 1, "Crash");
+        KnowledgeBaseJournal.append(checkpoint, journal, objectMapper);
+        KnowledgeBaseCheckpoint saved = resume(checkpoint);
+        // The next batch reached the journal, but the build stopped before its checkpoint was written
+        merge(checkpoint, 2, "Hang");
+        KnowledgeBaseJournal.append(checkpoint, journal, objectMapper);
+        
+        assertTrue(KnowledgeBaseJournal.replay(saved, journal, objectMapper));
+        
+        assertEquals(List.of(1), numbers(saved.getKnowledgeBase()));
+        assertEquals(saved.getJournalBytes(), Files.size(journal));
+        merge(saved, 3, "Leak");
+        KnowledgeBaseJournal.append(saved, journal, objectMapper);
+        KnowledgeBaseCheckpoint resumedAgain = resume(saved);
+        assertTrue(KnowledgeBaseJournal.replay(resumedAgain, journal, objectMapper));
+        assertEquals(List.of(1, 3), numbers(resumedAgain.getKnowledgeBase()));
+    }
+    
+    @Test
+    void aJournalShorterThanItsCheckpointIsNotReplayed() throws IOException {
+        Path journal = directory.resolve("journal");
+        KnowledgeBaseCheckpoint checkpoint = newBuild();
+        merge(checkpoint, 1, "Crash");
+        merge(checkpoint, 2, "Hang");
+        KnowledgeBaseJournal.append(checkpoint, journal, objectMapper);
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(checkpoint.getJournalBytes() - 10);
+        }
+        
+        KnowledgeBaseCheckpoint resumed = resume(checkpoint);
+        
+        assertFalse(KnowledgeBaseJournal.replay(resumed, journal, objectMapper));
+        assertEquals(0, resumed.getKnowledgeBase().getTotalIssuesAnalyzed());
+        assertFalse(KnowledgeBaseJournal.replay(resumed, directory.resolve("missing"), objectMapper));
+    }
+    
+    @Test
+    void aNewBuildWritesOverTheJournalOfAnEarlierOne() throws IOException {
+        Path journal = directory.resolve("journal");
+        Files.writeString(journal, "{\"removed\":9}\n".repeat(100));
+        KnowledgeBaseCheckpoint checkpoint = newBuild();
+        merge(checkpoint, 1, "Crash");
+        
+        KnowledgeBaseJournal.append(checkpoint, journal, objectMapper);
+        
+        assertEquals(checkpoint.getJournalBytes(), Files.size(journal));
+        KnowledgeBaseCheckpoint resumed = resume(checkpoint);
+        assertTrue(KnowledgeBaseJournal.replay(resumed, journal, objectMapper));
+        assertEquals(List.of(1), numbers(resumed.getKnowledgeBase()));
+    }
+    
+    private static KnowledgeBaseCheckpoint newBuild() {
+        return new KnowledgeBaseCheckpoint(true, 1000, null, new KnowledgeBase());
+    }
+    
+    private static void merge(KnowledgeBaseCheckpoint checkpoint, int number, String title) {
+        KnowledgeBase.IssueSummary issue = new KnowledgeBase.IssueSummary(number, title, IssueCategory.BUG, List.of("bug"), null);
+        issue.setBody("Body of " + title);
+        checkpoint.getKnowledgeBase().addIssue(issue);
+        checkpoint.recordMerged(issue);
+    }
+    
+    // The checkpoint as a restarted build reads it back, with the knowledge base it started from
+    private KnowledgeBaseCheckpoint resume(KnowledgeBaseCheckpoint checkpoint) throws IOException {
+        KnowledgeBaseCheckpoint read = objectMapper.readValue(objectMapper.writeValueAsString(checkpoint),
+            KnowledgeBaseCheckpoint.class);
+        read.setKnowledgeBase(new KnowledgeBase());
+        return read;
+    }
+    
+    private static List<Integer> numbers(KnowledgeBase kb) {
+        return kb.getAllIssues().stream().map(KnowledgeBase.IssueSummary::getNumber).sorted().toList();
+    }
+}
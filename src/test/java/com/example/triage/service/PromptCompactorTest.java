@@ -0,0 +1,128 @@
+package com.example.triage.service;
+
+import com.example.triage.config.TriageConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptCompactorTest {
+    
+    private final PromptCompactor compactor = new PromptCompactor(config(10_000));
+    
+    @Test
+    void textWithinBudgetIsUnchanged() {
+        String text = "Crash when opening a file\nat com.example.Editor.open(Editor.java:42)";
+        
+        assertSame(text, compactor.compact(text, 100));
+        assertEquals("", compactor.compact(null, 100));
+    }
+    
+    @Test
+    void repeatedLinesDifferingOnlyInNumbersAreCounted() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Starting");
+        for (int i = 0; i < 50; i++) {
+            lines.add("Retrying connection attempt " + i + " after 100 ms");
+        }
+        lines.add("Gave up");
+        
+        String result = compactor.compact(String.join("\n", lines), 50);
+        
+        assertEquals("Starting\nRetrying connection attempt 0 after 100 ms\n" +
+            "... [previous line repeated 49 more times]\nGave up", result);
+    }
+    
+    @Test
+    void longStackTraceKeepsItsHeadAndTail() {
+        List<String> lines = new ArrayList<>();
+        lines.add("java.lang.IllegalStateException: broken");
+        for (int i = 0; i < 60; i++) {
+            lines.add("\tat com.example.Layer" + (char) ('A' + i % 26) + ".call" + (char) ('a' + i / 26) + "(Layer.java)");
+        }
+        String text = String.join("\n", lines);
+        
+        String result = compactor.compact(text, PromptCompactor.estimateTokens(text) - 1);
+        
+        List<String> compacted = List.of(result.split("\n"));
+        assertEquals(lines.get(0), compacted.get(0));
+        assertEquals(lines.subList(1, 13), compacted.subList(1, 13));
+        assertEquals("... [42 lines omitted] ...", compacted.get(13));
+        assertEquals(lines.subList(55, 61), compacted.subList(14, 20));
+    }
+    
+    @Test
+    void codeFencesAreShortenedBetweenTheirMarkers() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Config:");
+        lines.add("```yaml");
+        for (int i = 0; i < 40; i++) {
+            lines.add("key" + (char) ('a' + i % 26) + (char) ('a' + i / 26) + ": value");
+        }
+        lines.add("```");
+        lines.add("That is all.");
+        String text = String.join("\n", lines);
+        
+        String result = compactor.compact(text, PromptCompactor.estimateTokens(text) - 1);
+        
+        assertTrue(result.startsWith("Config:\n```yaml\nkeyaa: value\n"));
+        assertTrue(result.contains("... [22 lines omitted] ..."));
+        assertTrue(result.endsWith("\n```\nThat is all."));
+    }
+    
+    @Test
+    void whatIsStillTooLongIsTruncatedWithinBudget() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            text.append("Sentence ").append(Character.toChars('a' + i % 26)).append(" of a long description. ");
+        }
+        
+        String result = compactor.compact(text.toString(), 100);
+        
+        assertTrue(PromptCompactor.estimateTokens(result) <= 100, "Estimated " + PromptCompactor.estimateTokens(result));
+        assertTrue(result.startsWith("Sentence a of a long description."));
+        assertTrue(result.contains("... [truncated "));
+    }
+    
+    @Test
+    void truncationNeverSplitsASurrogatePair() {
+        String text = "🚀".repeat(500);
+        
+        String result = compactor.compact(text, 10);
+        
+        for (int i = 0; i < result.length(); i++) {
+            char c = result.charAt(i);
+            if (Character.isHighSurrogate(c)) {
+                assertTrue(i + 1 < result.length() && Character.isLowSurrogate(result.charAt(i + 1)));
+            } else {
+                assertFalse(Character.isLowSurrogate(c) && (i == 0 || !Character.isHighSurrogate(result.charAt(i - 1))));
+            }
+        }
+    }
+    
+    @Test
+    void statisticsCountCompactedSections() {
+        PromptCompactor fresh = new PromptCompactor(config(1000));
+        fresh.compact("short", 100);
+        fresh.compact("x".repeat(1000), 10);
+        
+        assertEquals(1000, fresh.getStatistics().get("promptTokenBudget"));
+        assertEquals(2L, fresh.getStatistics().get("sections"));
+        assertEquals(1L, fresh.getStatistics().get("compacted"));
+        assertEquals(300, fresh.bodyBudget());
+        assertEquals(200, fresh.commentsBudget());
+        assertEquals(400, fresh.contextBudget());
+    }
+    
+    private static TriageConfiguration config(int promptTokenBudget) {
+        TriageConfiguration config = new TriageConfiguration();
+        config.setAi(new TriageConfiguration.AI());
+        config.getAi().setPromptTokenBudget(promptTokenBudget);
+        return config;
+    }
+}